@@ -0,0 +1,131 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.AdaptiveTimeoutConfig;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Tests that the adaptive read timeout follows the recorded latency of an endpoint
+ *
+ * @author Callum Taylor
+ */
+public class AdaptiveTimeoutTest extends AndroidTestCase
+{
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private MockWebServer server;
+	private String endpoint;
+	private volatile long responseDelay = 0;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		LatencyTracker.reset();
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				release.await(responseDelay, TimeUnit.MILLISECONDS);
+				return new MockResponse().setBody("hello world");
+			}
+		});
+
+		endpoint = LatencyTracker.getEndpoint(new Request.Builder().url(server.url("/")).build());
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		release.countDown();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the maximum is used until the endpoint has enough samples
+	 */
+	public void testMaxWithoutSamples()
+	{
+		responseDelay = 150;
+
+		SyncHttpClient<String> client = request();
+
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+		Assert.assertEquals(1000, client.getConnectionInfo().readTimeout);
+	}
+
+	/**
+	 * Tests that the timeout is a multiple of the p99 latency, and fails requests slower than that
+	 */
+	public void testFromPercentile()
+	{
+		record(40);
+		responseDelay = 500;
+
+		SyncHttpClient<String> client = request();
+
+		Assert.assertEquals(120, client.getConnectionInfo().readTimeout);
+		Assert.assertEquals(0, client.getConnectionInfo().responseCode);
+		Assert.assertTrue(client.getConnectionInfo().exception instanceof SocketTimeoutException);
+	}
+
+	/**
+	 * Tests that the timeout is clamped to the minimum and maximum
+	 */
+	public void testClamped()
+	{
+		record(1);
+		Assert.assertEquals(50, request().getConnectionInfo().readTimeout);
+
+		LatencyTracker.reset();
+		record(5000);
+		Assert.assertEquals(1000, request().getConnectionInfo().readTimeout);
+	}
+
+	/**
+	 * Tests that timed out requests are recorded, so the timeout grows when the endpoint slows down
+	 */
+	public void testTimeoutsRecorded()
+	{
+		record(20);
+		responseDelay = 500;
+
+		for (int index = 0; index < 5; index++)
+		{
+			request();
+		}
+
+		Assert.assertTrue(request().getConnectionInfo().readTimeout > 60);
+	}
+
+	private void record(long latency)
+	{
+		for (int index = 0; index < LatencyTracker.MIN_SAMPLES; index++)
+		{
+			LatencyTracker.record(endpoint, latency);
+		}
+	}
+
+	private SyncHttpClient<String> request()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setAdaptiveTimeout(new AdaptiveTimeoutConfig(50, 1000, TimeUnit.MILLISECONDS));
+		client.get(new StringResponseHandler());
+
+		return client;
+	}
+}
@@ -77,7 +77,8 @@ public class AsyncPostTest extends AndroidTestCase
 			{
 				@Override public void onByteChunkSent(byte[] chunk, long chunkLength, long totalProcessed, long totalLength)
 				{
-					Assert.assertNotNull(chunk);
+					// Chunks are only copied when enabled with setSentChunksEnabled()
+					Assert.assertNull(chunk);
 					Assert.assertTrue(chunkLength > 0);
 					Assert.assertEquals(16384, totalLength);
 				}
@@ -124,7 +125,8 @@ public class AsyncPostTest extends AndroidTestCase
 			{
 				@Override public void onByteChunkSent(byte[] chunk, long chunkLength, long totalProcessed, long totalLength)
 				{
-					Assert.assertNotNull(chunk);
+					// Chunks are only copied when enabled with setSentChunksEnabled()
+					Assert.assertNull(chunk);
 					Assert.assertTrue(chunkLength > 0);
 				}
 
@@ -73,7 +73,8 @@ public class AsyncPutTest extends AndroidTestCase
 			{
 				@Override public void onByteChunkSent(byte[] chunk, long chunkLength, long totalProcessed, long totalLength)
 				{
-					Assert.assertNotNull(chunk);
+					// Chunks are only copied when enabled with setSentChunksEnabled()
+					Assert.assertNull(chunk);
 					Assert.assertTrue(chunkLength > 0);
 					Assert.assertEquals(16384, totalLength);
 				}
@@ -0,0 +1,253 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.BatchRequest;
+import net.callumtaylor.asynchttp.obj.RequestMode;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class BatchTest extends AndroidTestCase
+{
+	private static final int REQUEST_COUNT = 20;
+
+	private MockWebServer server;
+	private final AtomicInteger serverCount = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				serverCount.incrementAndGet();
+				int count = inFlight.incrementAndGet();
+
+				synchronized (maxInFlight)
+				{
+					maxInFlight.set(Math.max(maxInFlight.get(), count));
+				}
+
+				// Later items respond faster, so they finish out of order
+				String id = request.getPath().substring("/items/".length());
+				Thread.sleep(100 - Integer.parseInt(id) * 3);
+				inFlight.decrementAndGet();
+
+				if ("3".equals(id))
+				{
+					return new MockResponse().setResponseCode(500);
+				}
+
+				return new MockResponse().setBody("item " + id);
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that a batch is limited to its parallelism and returns the results in order
+	 */
+	public void testSyncBatch()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		RequestBatch<String> batch = client.batch(createRequests(), 4, false);
+
+		Assert.assertTrue(batch.isFinished());
+		Assert.assertFalse(batch.isCancelled());
+		Assert.assertEquals(REQUEST_COUNT, serverCount.get());
+		Assert.assertTrue(maxInFlight.get() <= 4);
+		Assert.assertEquals(1, batch.getFailureCount());
+		assertResults(batch, REQUEST_COUNT);
+	}
+
+	/**
+	 * Tests that a failure with fail-fast skips the rest of the batch
+	 */
+	public void testSyncFailFast()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		RequestBatch<String> batch = client.batch(createRequests(), 1, true);
+
+		Assert.assertTrue(batch.isFinished());
+		Assert.assertTrue(batch.isCancelled());
+		Assert.assertEquals(4, serverCount.get());
+		Assert.assertEquals(1, batch.getFailureCount());
+		assertResults(batch, 3);
+	}
+
+	/**
+	 * Tests that the listener is called once with every result
+	 */
+	public void testAsyncBatch() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(1);
+		final AtomicInteger completeCount = new AtomicInteger();
+		final AtomicReference<RequestBatch<String>> result = new AtomicReference<>();
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.batch(createRequests(), 4, false, new RequestBatch.Listener<String>()
+		{
+			@Override public void onComplete(RequestBatch<String> batch)
+			{
+				completeCount.incrementAndGet();
+				result.set(batch);
+				signal.countDown();
+			}
+		});
+
+		signal.await(10, TimeUnit.SECONDS);
+		Thread.sleep(100);
+
+		Assert.assertEquals(1, completeCount.get());
+		Assert.assertTrue(maxInFlight.get() <= 4);
+		Assert.assertEquals(0, client.getActiveRequestCount());
+		assertResults(result.get(), REQUEST_COUNT);
+	}
+
+	/**
+	 * Tests that cancelling the client cancels its batches, so the requests that have not started are skipped
+	 */
+	public void testClientCancel() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(1);
+		final AtomicReference<RequestBatch<String>> result = new AtomicReference<>();
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.batch(createRequests(), 2, false, new RequestBatch.Listener<String>()
+		{
+			@Override public void onComplete(RequestBatch<String> batch)
+			{
+				result.set(batch);
+				signal.countDown();
+			}
+		});
+
+		// Long enough for the first requests to be in flight
+		Thread.sleep(50);
+		client.cancel();
+
+		signal.await(10, TimeUnit.SECONDS);
+		Thread.sleep(300);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertTrue(result.get().isCancelled());
+		Assert.assertTrue(serverCount.get() <= 4);
+		Assert.assertEquals(0, client.getActiveRequestCount());
+	}
+
+	/**
+	 * Tests that cancelling a sync client from another thread cancels its running batch
+	 */
+	public void testSyncClientCancel() throws Exception
+	{
+		final SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try
+		{
+			Future<RequestBatch<String>> result = executor.submit(new Callable<RequestBatch<String>>()
+			{
+				@Override public RequestBatch<String> call()
+				{
+					return client.batch(createRequests(), 2, false);
+				}
+			});
+
+			// Long enough for the first requests to be in flight
+			Thread.sleep(50);
+			client.cancel();
+
+			RequestBatch<String> batch = result.get(5, TimeUnit.SECONDS);
+
+			Assert.assertTrue(batch.isFinished());
+			Assert.assertTrue(batch.isCancelled());
+			Assert.assertTrue(serverCount.get() <= 4);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tests that an empty batch completes straight away
+	 */
+	public void testEmptyBatch()
+	{
+		final AtomicInteger completeCount = new AtomicInteger();
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		RequestBatch<String> batch = client.batch(new ArrayList<BatchRequest<String>>(), 4, false, new RequestBatch.Listener<String>()
+		{
+			@Override public void onComplete(RequestBatch<String> batch)
+			{
+				completeCount.incrementAndGet();
+			}
+		});
+
+		Assert.assertTrue(batch.isFinished());
+		Assert.assertEquals(1, completeCount.get());
+	}
+
+	private List<BatchRequest<String>> createRequests()
+	{
+		List<BatchRequest<String>> requests = new ArrayList<>();
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			requests.add(new BatchRequest<>(RequestMode.GET, "items/" + index, new StringResponseHandler()));
+		}
+
+		return requests;
+	}
+
+	private void assertResults(RequestBatch<String> batch, int finishedCount)
+	{
+		List<String> results = batch.getResults();
+		Assert.assertEquals(REQUEST_COUNT, results.size());
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			if (index == 3 || index >= finishedCount)
+			{
+				Assert.assertNull(results.get(index));
+				Assert.assertFalse(batch.isSuccessful(index));
+			}
+			else
+			{
+				Assert.assertEquals("item " + index, results.get(index));
+				Assert.assertTrue(batch.isSuccessful(index));
+			}
+		}
+	}
+}
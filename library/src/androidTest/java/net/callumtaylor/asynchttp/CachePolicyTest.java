@@ -0,0 +1,153 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.CachePolicy;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * @author Callum Taylor
+ */
+public class CachePolicyTest extends AndroidTestCase
+{
+	private MockWebServer server;
+	private final AtomicInteger serverCount = new AtomicInteger();
+	private volatile boolean offline = false;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				if (offline)
+				{
+					return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+				}
+
+				int count = serverCount.incrementAndGet();
+
+				if (request.getPath().startsWith("/fresh"))
+				{
+					return new MockResponse()
+						.setHeader("Cache-Control", "max-age=60")
+						.setBody("response " + count);
+				}
+
+				return new MockResponse()
+					.setHeader("Cache-Control", "max-age=0")
+					.setBody("response " + count);
+			}
+		});
+
+		Cache cache = new Cache(new File(getContext().getCacheDir(), "policy"), 1024 * 1024);
+		cache.evictAll();
+		SyncHttpClient.cache = cache;
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		SyncHttpClient.cache.delete();
+		SyncHttpClient.cache = null;
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that a cached response is delivered when the connection fails
+	 */
+	public void testNetworkFirstFallback()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		client.setCachePolicy(CachePolicy.NETWORK_FIRST_FALLBACK_CACHE, 1, TimeUnit.HOURS);
+
+		Assert.assertEquals("response 1", client.get("stale", new StringResponseHandler()));
+		Assert.assertFalse(client.getConnectionInfo().cacheFallback);
+
+		offline = true;
+
+		Assert.assertEquals("response 1", client.get("stale", new StringResponseHandler()));
+		Assert.assertTrue(client.getConnectionInfo().cacheFallback);
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+	}
+
+	/**
+	 * Tests that a cached response older than the max-stale is not used as a fallback
+	 */
+	public void testNetworkFirstFallbackMaxStale()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		client.setCachePolicy(CachePolicy.NETWORK_FIRST_FALLBACK_CACHE, 0, TimeUnit.SECONDS);
+
+		client.get("stale", new StringResponseHandler());
+		offline = true;
+		client.get("stale", new StringResponseHandler());
+
+		Assert.assertFalse(client.getConnectionInfo().cacheFallback);
+		Assert.assertEquals(0, client.getConnectionInfo().responseCode);
+		Assert.assertNotNull(client.getConnectionInfo().exception);
+	}
+
+	/**
+	 * Tests that a stale cached response is used without making the request
+	 */
+	public void testCacheFirst()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		Assert.assertEquals("response 1", client.get("stale", new StringResponseHandler()));
+
+		client.setCachePolicy(CachePolicy.CACHE_FIRST);
+		Assert.assertEquals("response 1", client.get("stale", new StringResponseHandler()));
+		Assert.assertEquals(1, serverCount.get());
+
+		// Nothing cached, so the request is made
+		Assert.assertEquals("response 2", client.get("fresh", new StringResponseHandler()));
+	}
+
+	/**
+	 * Tests that requests are not made when only the cache can be used
+	 */
+	public void testCacheOnly()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		client.setCachePolicy(CachePolicy.CACHE_ONLY);
+
+		client.get("stale", new StringResponseHandler());
+
+		Assert.assertEquals(504, client.getConnectionInfo().responseCode);
+		Assert.assertEquals(0, serverCount.get());
+	}
+
+	/**
+	 * Tests that fresh cached responses are not used when only the network can be used
+	 */
+	public void testNetworkOnly()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		client.setCachePolicy(CachePolicy.NETWORK_ONLY);
+
+		Assert.assertEquals("response 1", client.get("fresh", new StringResponseHandler()));
+		Assert.assertEquals("response 2", client.get("fresh", new StringResponseHandler()));
+
+		// The response was still stored
+		client.setCachePolicy(null);
+		Assert.assertEquals("response 2", client.get("fresh", new StringResponseHandler()));
+	}
+}
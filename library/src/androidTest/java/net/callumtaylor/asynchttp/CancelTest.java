@@ -0,0 +1,169 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Tests that cancelling a request aborts the call against a slow local server
+ *
+ * @author Callum Taylor
+ */
+public class CancelTest extends AndroidTestCase
+{
+	/**
+	 * How long a cancelled request has to free its thread
+	 */
+	private static final long MAX_CANCEL_TIME = 250;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private MockWebServer server;
+	private ExecutorService executor;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				if (request.getPath().startsWith("/headers"))
+				{
+					// Slow to respond at all
+					release.await(10, TimeUnit.SECONDS);
+					return new MockResponse().setBody("hello world");
+				}
+
+				// Slow to read the upload, and slow to send the download
+				return new MockResponse().setBody(new Buffer().write(new byte[1024 * 64])).throttleBody(1024, 1, TimeUnit.SECONDS);
+			}
+		});
+
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		release.countDown();
+		executor.shutdownNow();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests cancelling whilst waiting for the response headers
+	 */
+	public void testCancelWaitingForResponse() throws InterruptedException
+	{
+		assertSyncCancel("headers", null);
+	}
+
+	/**
+	 * Tests cancelling whilst the response body is downloading
+	 */
+	public void testCancelDownload() throws InterruptedException
+	{
+		assertSyncCancel("download", null);
+	}
+
+	/**
+	 * Tests cancelling whilst the request body is uploading
+	 */
+	public void testCancelUpload() throws InterruptedException
+	{
+		assertSyncCancel("upload", RequestBody.create(MediaType.parse("application/octet-stream"), new byte[1024 * 1024 * 4]));
+	}
+
+	/**
+	 * Tests that cancelling an async request frees the scheduler's thread for the next request
+	 */
+	public void testAsyncCancelFreesThread() throws InterruptedException
+	{
+		final AtomicInteger finishCount = new AtomicInteger();
+		RequestScheduler scheduler = new RequestScheduler(executor, 1, 0);
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.setScheduler(scheduler);
+
+		RequestHandle handle = client.get("download", new StringResponseHandler()
+		{
+			@Override public void onFinish()
+			{
+				finishCount.incrementAndGet();
+			}
+		});
+
+		Thread.sleep(300);
+		Assert.assertEquals(1, scheduler.getRunningCount());
+
+		long start = System.currentTimeMillis();
+		handle.cancel();
+
+		while (scheduler.getRunningCount() > 0 && System.currentTimeMillis() - start < 5000)
+		{
+			Thread.sleep(5);
+		}
+
+		long cancelTime = System.currentTimeMillis() - start;
+
+		Assert.assertEquals(0, scheduler.getRunningCount());
+		Assert.assertTrue("Took " + cancelTime + "ms to free the thread", cancelTime < MAX_CANCEL_TIME);
+		Assert.assertEquals(0, finishCount.get());
+	}
+
+	private void assertSyncCancel(String path, final RequestBody body) throws InterruptedException
+	{
+		final SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		final CountDownLatch signal = new CountDownLatch(1);
+		final String url = path;
+
+		executor.execute(new Runnable()
+		{
+			@Override public void run()
+			{
+				if (body == null)
+				{
+					client.get(url, new StringResponseHandler());
+				}
+				else
+				{
+					client.post(url, body, new StringResponseHandler());
+				}
+
+				signal.countDown();
+			}
+		});
+
+		// Give the request time to reach the slow phase
+		Thread.sleep(300);
+		Assert.assertEquals(1, signal.getCount());
+
+		long start = System.currentTimeMillis();
+		client.cancel();
+		signal.await(5, TimeUnit.SECONDS);
+
+		long cancelTime = System.currentTimeMillis() - start;
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertTrue("Took " + cancelTime + "ms to free the thread", cancelTime < MAX_CANCEL_TIME);
+	}
+}
@@ -0,0 +1,209 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.CircuitOpenException;
+import net.callumtaylor.asynchttp.obj.CircuitState;
+import net.callumtaylor.asynchttp.obj.RetryPolicy;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class CircuitBreakerTest extends AndroidTestCase
+{
+	private MockWebServer server;
+	private CircuitBreaker breaker;
+	private volatile int responseCode = 500;
+	private volatile long responseDelay = 0;
+	private final AtomicInteger serverCount = new AtomicInteger();
+	private final List<String> transitions = Collections.synchronizedList(new ArrayList<String>());
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				serverCount.incrementAndGet();
+				Thread.sleep(responseDelay);
+
+				// Cached responses are always revalidated with a conditional request
+				return new MockResponse()
+					.setResponseCode(responseCode)
+					.setHeader("Cache-Control", "no-cache")
+					.setHeader("ETag", "\"1\"")
+					.setBody("hello world");
+			}
+		});
+
+		breaker = new CircuitBreaker(4, 4, 0.5f, 200, 0.5f, 300, TimeUnit.MILLISECONDS, 2);
+		breaker.setListener(new CircuitBreaker.Listener()
+		{
+			@Override public void onStateChanged(String host, CircuitState from, CircuitState to)
+			{
+				transitions.add(from + "->" + to);
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the breaker opens after failures and fails requests straight away
+	 */
+	public void testOpensOnFailures()
+	{
+		for (int index = 0; index < 4; index++)
+		{
+			request();
+		}
+
+		Assert.assertEquals(CircuitState.OPEN, breaker.getState(server.getHostName()));
+		Assert.assertEquals(4, serverCount.get());
+
+		SyncHttpClient<String> client = request();
+
+		Assert.assertEquals(4, serverCount.get());
+		Assert.assertEquals(0, client.getConnectionInfo().responseCode);
+		Assert.assertTrue(client.getConnectionInfo().exception instanceof CircuitOpenException);
+		Assert.assertEquals(Collections.singletonList("CLOSED->OPEN"), transitions);
+	}
+
+	/**
+	 * Tests that the breaker lets trial requests through after the open duration, and closes once they succeed
+	 */
+	public void testHalfOpenCloses() throws InterruptedException
+	{
+		for (int index = 0; index < 4; index++)
+		{
+			request();
+		}
+
+		responseCode = 200;
+		Thread.sleep(350);
+
+		Assert.assertEquals(CircuitState.HALF_OPEN, breaker.getState(server.getHostName()));
+
+		Assert.assertEquals(200, request().getConnectionInfo().responseCode);
+		Assert.assertEquals(CircuitState.HALF_OPEN, breaker.getState(server.getHostName()));
+		request();
+
+		Assert.assertEquals(CircuitState.CLOSED, breaker.getState(server.getHostName()));
+		Assert.assertEquals(6, serverCount.get());
+		Assert.assertEquals(3, transitions.size());
+		Assert.assertEquals("OPEN->HALF_OPEN", transitions.get(1));
+		Assert.assertEquals("HALF_OPEN->CLOSED", transitions.get(2));
+	}
+
+	/**
+	 * Tests that a failed trial request opens the breaker again
+	 */
+	public void testHalfOpenReopens() throws InterruptedException
+	{
+		for (int index = 0; index < 4; index++)
+		{
+			request();
+		}
+
+		Thread.sleep(350);
+		request();
+
+		Assert.assertEquals(CircuitState.OPEN, breaker.getState(server.getHostName()));
+		Assert.assertEquals("HALF_OPEN->OPEN", transitions.get(transitions.size() - 1));
+	}
+
+	/**
+	 * Tests that slow responses open the breaker
+	 */
+	public void testOpensOnSlowResponses()
+	{
+		responseCode = 200;
+		responseDelay = 250;
+
+		for (int index = 0; index < 4; index++)
+		{
+			request();
+		}
+
+		Assert.assertEquals(CircuitState.OPEN, breaker.getState(server.getHostName()));
+	}
+
+	/**
+	 * Tests that requests failed by an open breaker are not retried
+	 */
+	public void testOpenNotRetried()
+	{
+		for (int index = 0; index < 4; index++)
+		{
+			request();
+		}
+
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setCircuitBreaker(breaker);
+		client.setRetryPolicy(new RetryPolicy(3, 10, 100, TimeUnit.MILLISECONDS));
+		client.get(new StringResponseHandler());
+
+		Assert.assertEquals(0, client.getConnectionInfo().retryCount);
+		Assert.assertTrue(client.getConnectionInfo().exception instanceof CircuitOpenException);
+	}
+
+	/**
+	 * Tests that failed conditional requests for cached responses are recorded as failures
+	 */
+	public void testCachedFailures() throws Exception
+	{
+		SyncHttpClient.cache = new Cache(new File(getContext().getCacheDir(), "breaker"), 1024 * 1024);
+		SyncHttpClient.cache.evictAll();
+
+		try
+		{
+			responseCode = 200;
+			request();
+
+			responseCode = 503;
+			for (int index = 0; index < 4; index++)
+			{
+				request();
+			}
+
+			Assert.assertEquals(CircuitState.OPEN, breaker.getState(server.getHostName()));
+		}
+		finally
+		{
+			SyncHttpClient.cache.delete();
+			SyncHttpClient.cache = null;
+		}
+	}
+
+	private SyncHttpClient<String> request()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setCircuitBreaker(breaker);
+		client.get(new StringResponseHandler());
+
+		return client;
+	}
+}
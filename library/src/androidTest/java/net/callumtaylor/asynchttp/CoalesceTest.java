@@ -0,0 +1,320 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.CircuitState;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Headers;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class CoalesceTest extends AndroidTestCase
+{
+	private static final int REQUEST_COUNT = 10;
+
+	private MockWebServer server;
+	private ExecutorService executor;
+	private final AtomicInteger serverCount = new AtomicInteger();
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		// Enough threads for every request to be in flight at once
+		executor = Executors.newFixedThreadPool(REQUEST_COUNT);
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				serverCount.incrementAndGet();
+				Thread.sleep(300);
+
+				if (request.getPath().startsWith("/error"))
+				{
+					return new MockResponse().setResponseCode(500);
+				}
+
+				if (request.getHeader("X-User-Id") != null)
+				{
+					return new MockResponse().setBody("user " + request.getHeader("X-User-Id"));
+				}
+
+				return new MockResponse().setBody("hello " + request.getHeader("Accept-Language"));
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		executor.shutdownNow();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that identical concurrent GET requests share one network call, and every handler receives the body
+	 */
+	public void testCoalesce() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(REQUEST_COUNT);
+		final AtomicInteger successCount = new AtomicInteger();
+		final AtomicInteger coalescedCount = new AtomicInteger();
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.setScheduler(new RequestScheduler(executor, 0, 0));
+		client.setCoalesce(true);
+
+		Headers headers = new Headers.Builder().add("Accept-Language", "en").build();
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			client.get("shared", headers, new StringResponseHandler()
+			{
+				@Override public void onSuccess()
+				{
+					if ("hello en".equals(getContent()))
+					{
+						successCount.incrementAndGet();
+					}
+
+					if (getConnectionInfo().coalesced)
+					{
+						coalescedCount.incrementAndGet();
+					}
+				}
+
+				@Override public void onFinish()
+				{
+					signal.countDown();
+				}
+			});
+		}
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals(REQUEST_COUNT, successCount.get());
+		Assert.assertEquals(1, serverCount.get());
+		Assert.assertEquals(REQUEST_COUNT - 1, coalescedCount.get());
+		Assert.assertEquals(0, RequestCoalescer.getInFlightCount());
+	}
+
+	/**
+	 * Tests that requests with different headers are not shared
+	 */
+	public void testDifferentHeaders() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(2);
+		final String[] content = new String[2];
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.setScheduler(new RequestScheduler(executor, 0, 0));
+		client.setCoalesce(true);
+
+		String[] languages = {"en", "fr"};
+		for (int index = 0; index < languages.length; index++)
+		{
+			final int position = index;
+			client.get("shared", new Headers.Builder().add("Accept-Language", languages[index]).build(), new StringResponseHandler()
+			{
+				@Override public void onSuccess()
+				{
+					content[position] = getContent();
+				}
+
+				@Override public void onFinish()
+				{
+					signal.countDown();
+				}
+			});
+		}
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals(2, serverCount.get());
+		Assert.assertEquals("hello en", content[0]);
+		Assert.assertEquals("hello fr", content[1]);
+	}
+
+	/**
+	 * Tests that requests that only differ by a custom header are not shared, so one user never receives another's response
+	 */
+	public void testDifferentCustomHeaders() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(2);
+		final String[] content = new String[2];
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.setScheduler(new RequestScheduler(executor, 0, 0));
+		client.setCoalesce(true);
+
+		String[] users = {"1", "2"};
+		for (int index = 0; index < users.length; index++)
+		{
+			final int position = index;
+			client.get("shared", new Headers.Builder().add("X-User-Id", users[index]).build(), new StringResponseHandler()
+			{
+				@Override public void onSuccess()
+				{
+					content[position] = getContent();
+				}
+
+				@Override public void onFinish()
+				{
+					signal.countDown();
+				}
+			});
+		}
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals(2, serverCount.get());
+		Assert.assertEquals("user 1", content[0]);
+		Assert.assertEquals("user 2", content[1]);
+	}
+
+	/**
+	 * Tests that a cancelled request stops waiting for the shared call, whilst the others still get the response
+	 */
+	public void testCancelWaiter() throws Exception
+	{
+		final SyncHttpClient<String> leader = coalescingClient();
+		final SyncHttpClient<String> waiter = coalescingClient();
+
+		Future<String> leaderResult = executor.submit(new Callable<String>()
+		{
+			@Override public String call()
+			{
+				return leader.get("shared", new StringResponseHandler());
+			}
+		});
+
+		Thread.sleep(50);
+
+		Future<String> waiterResult = executor.submit(new Callable<String>()
+		{
+			@Override public String call()
+			{
+				return waiter.get("shared", new StringResponseHandler());
+			}
+		});
+
+		Thread.sleep(50);
+		long start = System.currentTimeMillis();
+		waiter.cancel();
+		waiterResult.get(5, TimeUnit.SECONDS);
+
+		Assert.assertTrue(System.currentTimeMillis() - start < 200);
+		Assert.assertEquals("hello null", leaderResult.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, serverCount.get());
+	}
+
+	/**
+	 * Tests that the shared call is aborted once every request waiting on it has been cancelled
+	 */
+	public void testCancelAll() throws Exception
+	{
+		final SyncHttpClient<String> client = coalescingClient();
+
+		Future<String> result = executor.submit(new Callable<String>()
+		{
+			@Override public String call()
+			{
+				return client.get("shared", new StringResponseHandler());
+			}
+		});
+
+		Thread.sleep(100);
+		long start = System.currentTimeMillis();
+		client.cancel();
+		result.get(5, TimeUnit.SECONDS);
+
+		Assert.assertTrue(System.currentTimeMillis() - start < 200);
+		Assert.assertEquals(0, RequestCoalescer.getInFlightCount());
+	}
+
+	/**
+	 * Tests that a shared call is recorded by the circuit breaker once, rather than once for every request sharing it
+	 */
+	public void testBreakerRecordsOnce() throws Exception
+	{
+		final CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5f, 10000, 0.5f, 60, TimeUnit.SECONDS, 1);
+		List<Future<String>> results = new ArrayList<>();
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			results.add(executor.submit(new Callable<String>()
+			{
+				@Override public String call()
+				{
+					SyncHttpClient<String> client = coalescingClient();
+					client.setCircuitBreaker(breaker);
+
+					return client.get("error", new StringResponseHandler());
+				}
+			}));
+		}
+
+		for (Future<String> result : results)
+		{
+			result.get(5, TimeUnit.SECONDS);
+		}
+
+		Assert.assertEquals(1, serverCount.get());
+		Assert.assertEquals(CircuitState.CLOSED, breaker.getState(server.getHostName()));
+	}
+
+	private SyncHttpClient<String> coalescingClient()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setCoalesce(true);
+
+		return client;
+	}
+
+	/**
+	 * Tests that requests are not shared when coalescing is off
+	 */
+	public void testCoalesceOff() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(3);
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+
+		for (int index = 0; index < 3; index++)
+		{
+			client.get("shared", new StringResponseHandler()
+			{
+				@Override public void onFinish()
+				{
+					signal.countDown();
+				}
+			});
+		}
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals(3, serverCount.get());
+	}
+}
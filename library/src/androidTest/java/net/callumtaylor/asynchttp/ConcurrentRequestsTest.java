@@ -0,0 +1,161 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class ConcurrentRequestsTest extends AndroidTestCase
+{
+	private static final int REQUEST_COUNT = 100;
+
+	private MockWebServer server;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				if (request.getPath().startsWith("/slow"))
+				{
+					Thread.sleep(500);
+				}
+
+				return new MockResponse().setBody(request.getPath());
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that a single client can make many requests at once without cancelling earlier ones,
+	 * and that each request is made relative to the base uri
+	 */
+	public void testFanOut() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(REQUEST_COUNT);
+		final Set<String> bodies = Collections.synchronizedSet(new HashSet<String>());
+		final AtomicInteger successCount = new AtomicInteger();
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			client.get("item/" + index, new StringResponseHandler()
+			{
+				@Override public void onSuccess()
+				{
+					successCount.incrementAndGet();
+					bodies.add(getContent());
+				}
+
+				@Override public void onFinish()
+				{
+					signal.countDown();
+				}
+			});
+		}
+
+		signal.await(60, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals(REQUEST_COUNT, successCount.get());
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			Assert.assertTrue(bodies.contains("/item/" + index));
+		}
+	}
+
+	/**
+	 * Tests that cancelling a handle only cancels that request
+	 */
+	public void testCancelHandle() throws InterruptedException
+	{
+		final CountDownLatch signal = new CountDownLatch(1);
+		final AtomicInteger cancelledCallbacks = new AtomicInteger();
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+
+		RequestHandle cancelled = client.get("slow", new StringResponseHandler()
+		{
+			@Override public void onFinish()
+			{
+				cancelledCallbacks.incrementAndGet();
+			}
+		});
+
+		RequestHandle kept = client.get("slow/kept", new StringResponseHandler()
+		{
+			@Override public void onFinish()
+			{
+				signal.countDown();
+			}
+		});
+
+		Assert.assertEquals(2, client.getActiveRequestCount());
+		cancelled.cancel();
+
+		signal.await(10, TimeUnit.SECONDS);
+		Thread.sleep(100);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertTrue(cancelled.isCancelled());
+		Assert.assertFalse(kept.isCancelled());
+		Assert.assertTrue(kept.isFinished());
+		Assert.assertEquals(0, cancelledCallbacks.get());
+		Assert.assertEquals(200, kept.getConnectionInfo().responseCode);
+		Assert.assertEquals(0, client.getActiveRequestCount());
+	}
+
+	/**
+	 * Tests that cancelling the client cancels every request it has made
+	 */
+	public void testCancelAll() throws InterruptedException
+	{
+		final AtomicInteger finishCount = new AtomicInteger();
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+
+		for (int index = 0; index < 5; index++)
+		{
+			client.get("slow/" + index, new StringResponseHandler()
+			{
+				@Override public void onFinish()
+				{
+					finishCount.incrementAndGet();
+				}
+			});
+		}
+
+		client.cancel();
+		Thread.sleep(1000);
+
+		Assert.assertEquals(0, finishCount.get());
+		Assert.assertEquals(0, client.getActiveRequestCount());
+	}
+}
@@ -0,0 +1,144 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import com.google.gson.JsonElement;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.response.JsonResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class ConditionalTest extends AndroidTestCase
+{
+	private MockWebServer server;
+	private final AtomicInteger notModifiedCount = new AtomicInteger();
+	private final AtomicInteger parseCount = new AtomicInteger();
+	private volatile String version = "1";
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				String etag = "\"" + version + "\"";
+
+				if (etag.equals(request.getHeader("If-None-Match")))
+				{
+					notModifiedCount.incrementAndGet();
+					return new MockResponse()
+						.setResponseCode(304)
+						.setHeader("ETag", etag);
+				}
+
+				return new MockResponse()
+					.setHeader("Cache-Control", "no-cache")
+					.setHeader("ETag", etag)
+					.setBody("{\"version\":" + version + "}");
+			}
+		});
+
+		SyncHttpClient.contentCache = new ContentCache(10);
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		if (SyncHttpClient.cache != null)
+		{
+			SyncHttpClient.cache.delete();
+			SyncHttpClient.cache = null;
+		}
+
+		SyncHttpClient.contentCache = null;
+		server.shutdown();
+		super.tearDown();
+	}
+
+	private JsonResponseHandler countingHandler()
+	{
+		return new JsonResponseHandler()
+		{
+			@Override public void generateContent()
+			{
+				parseCount.incrementAndGet();
+				super.generateContent();
+			}
+		};
+	}
+
+	/**
+	 * Tests that a 304 re-uses the decoded content when there is no disk cache
+	 */
+	public void testNotModified() throws InterruptedException
+	{
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		JsonElement first = client.get("poll", countingHandler());
+		Assert.assertFalse(client.getConnectionInfo().notModified);
+
+		JsonElement second = client.get("poll", countingHandler());
+		Assert.assertTrue(client.getConnectionInfo().notModified);
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+
+		// The request was conditional on the ETag of the cached content
+		server.takeRequest();
+		Assert.assertEquals("\"1\"", server.takeRequest().getHeader("If-None-Match"));
+
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, parseCount.get());
+		Assert.assertEquals(1, notModifiedCount.get());
+		Assert.assertEquals(1, SyncHttpClient.contentCache.notModifiedCount());
+	}
+
+	/**
+	 * Tests that a 304 from the disk cache's conditional request re-uses the decoded content
+	 */
+	public void testNotModifiedWithDiskCache() throws Exception
+	{
+		Cache cache = new Cache(new File(getContext().getCacheDir(), "conditional"), 1024 * 1024);
+		cache.evictAll();
+		SyncHttpClient.cache = cache;
+
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		JsonElement first = client.get("poll", countingHandler());
+		JsonElement second = client.get("poll", countingHandler());
+
+		Assert.assertTrue(client.getConnectionInfo().notModified);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, parseCount.get());
+		Assert.assertEquals(1, notModifiedCount.get());
+	}
+
+	/**
+	 * Tests that changed content is parsed again
+	 */
+	public void testModified()
+	{
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		client.get("poll", countingHandler());
+		version = "2";
+
+		JsonElement second = client.get("poll", countingHandler());
+
+		Assert.assertFalse(client.getConnectionInfo().notModified);
+		Assert.assertEquals(2, second.getAsJsonObject().get("version").getAsInt());
+		Assert.assertEquals(2, parseCount.get());
+	}
+}
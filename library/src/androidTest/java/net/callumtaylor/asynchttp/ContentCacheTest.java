@@ -0,0 +1,186 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import com.google.gson.JsonElement;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.response.GsonResponseHandler;
+import net.callumtaylor.asynchttp.response.JsonResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class ContentCacheTest extends AndroidTestCase
+{
+	private MockWebServer server;
+	private final AtomicInteger serverCount = new AtomicInteger();
+	private final AtomicInteger parseCount = new AtomicInteger();
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				int count = serverCount.incrementAndGet();
+
+				if ("POST".equals(request.getMethod()))
+				{
+					return new MockResponse().setBody("{}");
+				}
+				else if (request.getPath().startsWith("/fresh"))
+				{
+					return new MockResponse()
+						.setHeader("Cache-Control", "max-age=60")
+						.setBody("{\"count\":" + count + "}");
+				}
+
+				return new MockResponse().setBody("{\"count\":" + count + "}");
+			}
+		});
+
+		SyncHttpClient.contentCache = new ContentCache(10);
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		SyncHttpClient.contentCache = null;
+		server.shutdown();
+		super.tearDown();
+	}
+
+	private JsonResponseHandler countingHandler()
+	{
+		return new JsonResponseHandler()
+		{
+			@Override public void generateContent()
+			{
+				parseCount.incrementAndGet();
+				super.generateContent();
+			}
+		};
+	}
+
+	/**
+	 * Tests that fresh content is given to the handler without a request or parsing
+	 */
+	public void testFreshHit()
+	{
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		JsonElement first = client.get("fresh", countingHandler());
+		Assert.assertFalse(client.getConnectionInfo().contentCached);
+
+		JsonElement second = client.get("fresh", countingHandler());
+		Assert.assertTrue(client.getConnectionInfo().contentCached);
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, serverCount.get());
+		Assert.assertEquals(1, parseCount.get());
+		Assert.assertEquals(1, SyncHttpClient.contentCache.hitCount());
+	}
+
+	/**
+	 * Tests that content decoded from a response without a freshness lifetime is not cached
+	 */
+	public void testNotFresh()
+	{
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		Assert.assertEquals(1, client.get("uncached", countingHandler()).getAsJsonObject().get("count").getAsInt());
+		Assert.assertEquals(2, client.get("uncached", countingHandler()).getAsJsonObject().get("count").getAsInt());
+
+		Assert.assertEquals(2, parseCount.get());
+		Assert.assertEquals(0, SyncHttpClient.contentCache.size());
+	}
+
+	/**
+	 * Tests that handlers decoding into different types do not share content
+	 */
+	public void testKeyedByHandler()
+	{
+		SyncHttpClient<Object> client = new SyncHttpClient<Object>(server.url("/").toString());
+
+		Assert.assertTrue(client.get("fresh", new JsonResponseHandler()) instanceof JsonElement);
+		Assert.assertTrue(client.get("fresh", new GsonResponseHandler<Map>(Map.class)) instanceof Map);
+
+		Assert.assertEquals(2, serverCount.get());
+		Assert.assertEquals(2, SyncHttpClient.contentCache.size());
+	}
+
+	/**
+	 * Tests that the cache is bounded by the weight of its content, and content heavier than the maximum is not kept
+	 */
+	public void testWeigher()
+	{
+		SyncHttpClient.contentCache = new ContentCache(3, new ContentCache.Weigher()
+		{
+			@Override public long weigh(Object content)
+			{
+				return ((JsonElement)content).getAsJsonObject().get("count").getAsInt() == 3 ? 4 : 2;
+			}
+		});
+
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		client.get("fresh?id=1", countingHandler());
+		client.get("fresh?id=2", countingHandler());
+
+		Assert.assertEquals(1, SyncHttpClient.contentCache.size());
+		Assert.assertEquals(2, SyncHttpClient.contentCache.weight());
+		Assert.assertEquals(1, SyncHttpClient.contentCache.evictionCount());
+
+		client.get("fresh?id=3", countingHandler());
+
+		Assert.assertEquals(1, SyncHttpClient.contentCache.size());
+		Assert.assertEquals(2, SyncHttpClient.contentCache.weight());
+
+		client.get("fresh?id=2", countingHandler());
+		Assert.assertTrue(client.getConnectionInfo().contentCached);
+	}
+
+	/**
+	 * Tests that handler subclasses, which may decode the response differently, do not share content with their base class
+	 */
+	public void testKeyedBySubclass()
+	{
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		client.get("fresh", countingHandler());
+		client.get("fresh", new JsonResponseHandler());
+
+		Assert.assertFalse(client.getConnectionInfo().contentCached);
+		Assert.assertEquals(2, serverCount.get());
+		Assert.assertEquals(2, SyncHttpClient.contentCache.size());
+	}
+
+	/**
+	 * Tests that a POST to a url removes its cached content
+	 */
+	public void testInvalidate()
+	{
+		SyncHttpClient<JsonElement> client = new SyncHttpClient<JsonElement>(server.url("/").toString());
+
+		client.get("fresh", countingHandler());
+		client.post("fresh", new JsonResponseHandler());
+		client.get("fresh", countingHandler());
+
+		Assert.assertFalse(client.getConnectionInfo().contentCached);
+		Assert.assertEquals(3, serverCount.get());
+		Assert.assertEquals(2, parseCount.get());
+	}
+}
@@ -0,0 +1,214 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.CountingRequestBody;
+import net.callumtaylor.asynchttp.obj.ProgressThrottle;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+
+/**
+ * Tests the upload progress of request bodies, with and without copying the sent chunks
+ *
+ * @author Callum Taylor
+ */
+public class CountingRequestBodyTest extends AndroidTestCase
+{
+	private static final int BODY_SIZE = 256 * 1024;
+
+	private MockWebServer server;
+	private final AtomicLong received = new AtomicLong();
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				received.set(request.getBodySize());
+				return new MockResponse().setBody("ok");
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that by default only the byte counts are reported
+	 */
+	public void testCountsOnly()
+	{
+		final AtomicInteger chunks = new AtomicInteger();
+		final AtomicLong sent = new AtomicLong();
+
+		StringResponseHandler handler = new StringResponseHandler()
+		{
+			@Override public void onByteChunkSent(byte[] chunk, long chunkLength, long totalProcessed, long totalLength)
+			{
+				Assert.assertNull(chunk);
+				Assert.assertEquals(BODY_SIZE, totalLength);
+
+				chunks.incrementAndGet();
+				sent.addAndGet(chunkLength);
+			}
+		};
+
+		new SyncHttpClient<String>(server.url("/").toString()).post(createBody(), handler);
+
+		Assert.assertTrue(chunks.get() > 0);
+		Assert.assertEquals(BODY_SIZE, sent.get());
+		Assert.assertEquals(BODY_SIZE, received.get());
+	}
+
+	/**
+	 * Tests that the sent chunks are copied when enabled, and match the body
+	 */
+	public void testChunksEnabled()
+	{
+		final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+
+		StringResponseHandler handler = new StringResponseHandler()
+		{
+			@Override public void onByteChunkSent(byte[] chunk, long chunkLength, long totalProcessed, long totalLength)
+			{
+				Assert.assertNotNull(chunk);
+				Assert.assertEquals(chunkLength, chunk.length);
+
+				sent.write(chunk, 0, chunk.length);
+			}
+		};
+		handler.setSentChunksEnabled(true);
+
+		new SyncHttpClient<String>(server.url("/").toString()).post(createBody(), handler);
+
+		byte[] expected = new byte[BODY_SIZE];
+		for (int index = 0; index < BODY_SIZE; index++)
+		{
+			expected[index] = (byte)index;
+		}
+
+		Assert.assertTrue(Arrays.equals(expected, sent.toByteArray()));
+	}
+
+	/**
+	 * Tests that the content length of the delegate is only worked out once
+	 */
+	public void testContentLengthCached() throws IOException
+	{
+		final AtomicInteger lengthCalls = new AtomicInteger();
+		final RequestBody delegate = createBody();
+
+		RequestBody body = new CountingRequestBody(new RequestBody()
+		{
+			@Override public MediaType contentType()
+			{
+				return delegate.contentType();
+			}
+
+			@Override public long contentLength() throws IOException
+			{
+				lengthCalls.incrementAndGet();
+				return delegate.contentLength();
+			}
+
+			@Override public void writeTo(BufferedSink sink) throws IOException
+			{
+				delegate.writeTo(sink);
+			}
+		}, new CountingRequestBody.Listener()
+		{
+			@Override public void onRequestProgress(byte[] buffer, long bufferCount, long bytesWritten, long contentLength)
+			{
+				Assert.assertEquals(BODY_SIZE, contentLength);
+			}
+
+			@Override public void onRequestComplete(long bytesWritten, long contentLength)
+			{
+				Assert.assertEquals(BODY_SIZE, bytesWritten);
+			}
+		});
+
+		body.writeTo(new Buffer());
+		body.writeTo(new Buffer());
+
+		Assert.assertEquals(BODY_SIZE, body.contentLength());
+		Assert.assertEquals(1, lengthCalls.get());
+	}
+
+	/**
+	 * Tests that the final upload update is delivered when the body is longer than its reported length
+	 */
+	public void testUnderestimatedLength()
+	{
+		final List<Long> updates = new ArrayList<>();
+		final RequestBody delegate = createBody();
+
+		StringResponseHandler handler = new StringResponseHandler()
+		{
+			@Override public void onByteChunkSentProcessed(long totalProcessed, long totalLength)
+			{
+				updates.add(totalProcessed);
+			}
+		};
+		handler.setProgressThrottle(new ProgressThrottle(1, TimeUnit.MINUTES, 0));
+
+		new SyncHttpClient<String>(server.url("/").toString()).post(new RequestBody()
+		{
+			@Override public MediaType contentType()
+			{
+				return delegate.contentType();
+			}
+
+			@Override public long contentLength()
+			{
+				return -1;
+			}
+
+			@Override public void writeTo(BufferedSink sink) throws IOException
+			{
+				delegate.writeTo(sink);
+			}
+		}, handler);
+
+		Assert.assertEquals(BODY_SIZE, received.get());
+		Assert.assertEquals(2, updates.size());
+		Assert.assertEquals(BODY_SIZE, (long)updates.get(1));
+	}
+
+	private static RequestBody createBody()
+	{
+		byte[] body = new byte[BODY_SIZE];
+		for (int index = 0; index < BODY_SIZE; index++)
+		{
+			body[index] = (byte)index;
+		}
+
+		return RequestBody.create(MediaType.parse("application/octet-stream"), body);
+	}
+}
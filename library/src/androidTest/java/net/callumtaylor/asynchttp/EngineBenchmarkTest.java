@@ -0,0 +1,143 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Benchmarks the shared {@link ClientEngine} against building a new client for every request
+ * using a local server.
+ *
+ * @author Callum Taylor
+ */
+public class EngineBenchmarkTest extends AndroidTestCase
+{
+	private static final String TAG = "EngineBenchmark";
+	private static final int WARM_UP_COUNT = 20;
+	private static final int REQUEST_COUNT = 200;
+
+	private MockWebServer server;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				return new MockResponse().setBody("{\"hello\":\"world\"}");
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that equal configs are given the same client instance
+	 */
+	public void testSharedClient()
+	{
+		ClientEngine.Config config = new ClientEngine.Config();
+		config.timeout = 20000;
+
+		ClientEngine.Config other = new ClientEngine.Config();
+		other.timeout = 20000;
+
+		Assert.assertSame(ClientEngine.getClient(config), ClientEngine.getClient(other));
+
+		other.allowAllSsl = true;
+		Assert.assertNotSame(ClientEngine.getClient(config), ClientEngine.getClient(other));
+	}
+
+	/**
+	 * Compares the latency and throughput of the shared engine against creating a new client per request
+	 */
+	public void testBenchmarkSharedEngine() throws IOException
+	{
+		String url = server.url("/get").toString();
+
+		KeepAliveConfig keepAlive = new KeepAliveConfig();
+
+		runPerRequestClients(url, WARM_UP_COUNT);
+		runSharedEngine(url, null, WARM_UP_COUNT);
+		runSharedEngine(url, keepAlive, WARM_UP_COUNT);
+
+		long perRequestTime = runPerRequestClients(url, REQUEST_COUNT);
+		long sharedTime = runSharedEngine(url, null, REQUEST_COUNT);
+		long keepAliveTime = runSharedEngine(url, keepAlive, REQUEST_COUNT);
+
+		log("per-request client", perRequestTime);
+		log("shared engine", sharedTime);
+		log("shared engine with keep-alive", keepAliveTime);
+
+		Assert.assertEquals((WARM_UP_COUNT + REQUEST_COUNT) * 3, server.getRequestCount());
+	}
+
+	/**
+	 * Replicates the previous behaviour of building a new client for every request
+	 */
+	private long runPerRequestClients(String url, int count) throws IOException
+	{
+		long start = System.nanoTime();
+
+		for (int index = 0; index < count; index++)
+		{
+			OkHttpClient client = new OkHttpClient()
+				.newBuilder()
+				.connectTimeout(20000, TimeUnit.MILLISECONDS)
+				.writeTimeout(20000, TimeUnit.MILLISECONDS)
+				.readTimeout(20000, TimeUnit.MILLISECONDS)
+				.build();
+
+			Response response = client.newCall(new Request.Builder().url(url).header("Connection", "close").build()).execute();
+			Assert.assertNotNull(response.body().string());
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	private long runSharedEngine(String url, KeepAliveConfig keepAlive, int count)
+	{
+		long start = System.nanoTime();
+
+		for (int index = 0; index < count; index++)
+		{
+			SyncHttpClient<String> client = new SyncHttpClient<>(url, 20000);
+			client.setKeepAlive(keepAlive);
+
+			String response = client.get(new StringResponseHandler());
+			Assert.assertNotNull(response);
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	private void log(String name, long totalNanos)
+	{
+		double averageMs = (totalNanos / (double)REQUEST_COUNT) / 1000000d;
+		double throughput = REQUEST_COUNT / (totalNanos / 1000000000d);
+
+		Log.i(TAG, String.format("%s: %d requests, avg %.3fms, %.1f req/s", name, REQUEST_COUNT, averageMs, throughput));
+	}
+}
@@ -0,0 +1,217 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.RequestMode;
+import net.callumtaylor.asynchttp.obj.ResponseException;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class FutureTest extends AndroidTestCase
+{
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final AtomicInteger serverCount = new AtomicInteger();
+
+	private MockWebServer server;
+	private ExecutorService executor;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			@Override public Thread newThread(Runnable runnable)
+			{
+				return new Thread(runnable, "continuation");
+			}
+		});
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				serverCount.incrementAndGet();
+
+				if (request.getPath().startsWith("/slow"))
+				{
+					release.await(10, TimeUnit.SECONDS);
+				}
+
+				if (request.getPath().startsWith("/error"))
+				{
+					return new MockResponse().setResponseCode(500);
+				}
+
+				return new MockResponse().setBody(request.getPath().substring(1));
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		release.countDown();
+		executor.shutdownNow();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the future completes with the content and connection info
+	 */
+	public void testGet() throws Exception
+	{
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		ResponseFuture<String> future = client.future(RequestMode.GET, "hello", new StringResponseHandler());
+
+		Assert.assertEquals("hello", future.get(5, TimeUnit.SECONDS));
+		Assert.assertTrue(future.isSuccessful());
+		Assert.assertEquals(200, future.getConnectionInfo().responseCode);
+	}
+
+	/**
+	 * Tests that an unsuccessful response fails the future
+	 */
+	public void testFailure() throws Exception
+	{
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		ResponseFuture<String> future = client.future(RequestMode.GET, "error", new StringResponseHandler());
+
+		try
+		{
+			future.get(5, TimeUnit.SECONDS);
+			Assert.fail();
+		}
+		catch (ExecutionException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof ResponseException);
+			Assert.assertEquals(500, ((ResponseException)e.getCause()).connectionInfo.responseCode);
+		}
+
+		Assert.assertFalse(future.isSuccessful());
+	}
+
+	/**
+	 * Tests that a chained request starts from the content of the first, on the given executor
+	 */
+	public void testChain() throws Exception
+	{
+		final AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		final AtomicReference<String> continuationThread = new AtomicReference<>();
+		final AtomicReference<String> listenerThread = new AtomicReference<>();
+		final CountDownLatch listenerSignal = new CountDownLatch(1);
+
+		ResponseFuture<String> future = client.future(RequestMode.GET, "first", new StringResponseHandler())
+			.then(new ResponseFuture.Continuation<String, String>()
+			{
+				@Override public ResponseFuture<String> then(String content)
+				{
+					continuationThread.set(Thread.currentThread().getName());
+					return client.future(RequestMode.GET, content + "/second", new StringResponseHandler());
+				}
+			}, executor)
+			.addListener(new ResponseFuture.Listener<String>()
+			{
+				@Override public void onComplete(ResponseFuture<String> future)
+				{
+					listenerThread.set(Thread.currentThread().getName());
+					listenerSignal.countDown();
+				}
+			}, executor);
+
+		Assert.assertEquals("first/second", future.get(5, TimeUnit.SECONDS));
+		Assert.assertTrue(listenerSignal.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals("continuation", continuationThread.get());
+		Assert.assertEquals("continuation", listenerThread.get());
+		Assert.assertEquals(2, serverCount.get());
+	}
+
+	/**
+	 * Tests that a failure skips the rest of the chain
+	 */
+	public void testChainFailure() throws Exception
+	{
+		final AtomicBoolean called = new AtomicBoolean();
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+
+		ResponseFuture<String> future = client.future(RequestMode.GET, "error", new StringResponseHandler())
+			.then(new ResponseFuture.Continuation<String, String>()
+			{
+				@Override public ResponseFuture<String> then(String content)
+				{
+					called.set(true);
+					return null;
+				}
+			}, executor);
+
+		try
+		{
+			future.get(5, TimeUnit.SECONDS);
+			Assert.fail();
+		}
+		catch (ExecutionException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof ResponseException);
+		}
+
+		Assert.assertFalse(called.get());
+	}
+
+	/**
+	 * Tests that cancelling a chained future cancels the request in flight
+	 */
+	public void testCancelThrough() throws Exception
+	{
+		final AtomicBoolean called = new AtomicBoolean();
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+
+		ResponseFuture<String> first = client.future(RequestMode.GET, "slow", new StringResponseHandler());
+		ResponseFuture<String> future = first.then(new ResponseFuture.Continuation<String, String>()
+		{
+			@Override public ResponseFuture<String> then(String content)
+			{
+				called.set(true);
+				return null;
+			}
+		}, executor);
+
+		Thread.sleep(200);
+		Assert.assertTrue(future.cancel(true));
+
+		try
+		{
+			future.get(5, TimeUnit.SECONDS);
+			Assert.fail();
+		}
+		catch (CancellationException e)
+		{
+		}
+
+		Assert.assertTrue(first.isCancelled());
+		Assert.assertFalse(called.get());
+
+		Thread.sleep(200);
+		Assert.assertEquals(0, client.getActiveRequestCount());
+	}
+}
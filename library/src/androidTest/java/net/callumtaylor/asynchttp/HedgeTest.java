@@ -0,0 +1,191 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.HedgeConfig;
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Tests hedging against a local server whose first response is slow
+ *
+ * @author Callum Taylor
+ */
+public class HedgeTest extends AndroidTestCase
+{
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final AtomicInteger serverCount = new AtomicInteger();
+
+	private MockWebServer server;
+	private volatile long firstDelay = 2000;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		LatencyTracker.reset();
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				if (request.getPath().startsWith("/hang"))
+				{
+					release.await(firstDelay, TimeUnit.MILLISECONDS);
+					return new MockResponse().setBody("slow");
+				}
+
+				if (request.getPath().startsWith("/fast"))
+				{
+					return new MockResponse().setBody("fast");
+				}
+
+				if (serverCount.incrementAndGet() == 1)
+				{
+					release.await(firstDelay, TimeUnit.MILLISECONDS);
+					return new MockResponse().setBody("slow");
+				}
+
+				return new MockResponse().setBody("fast");
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		release.countDown();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the hedged request is sent after the delay and its response is used
+	 */
+	public void testHedgeWins()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setHedge(new HedgeConfig(100, TimeUnit.MILLISECONDS));
+
+		long start = System.nanoTime();
+		String content = client.get(new StringResponseHandler());
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		Assert.assertEquals("fast", content);
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+		Assert.assertTrue(client.getConnectionInfo().hedged);
+		Assert.assertTrue(client.getConnectionInfo().hedgeWon);
+		Assert.assertEquals(2, serverCount.get());
+	}
+
+	/**
+	 * Tests that no hedged request is sent when the response arrives before the delay
+	 */
+	public void testNotHedgedBeforeDelay()
+	{
+		firstDelay = 200;
+
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setHedge(new HedgeConfig(1, TimeUnit.SECONDS));
+		String content = client.get(new StringResponseHandler());
+
+		Assert.assertEquals("slow", content);
+		Assert.assertFalse(client.getConnectionInfo().hedged);
+		Assert.assertFalse(client.getConnectionInfo().hedgeWon);
+		Assert.assertEquals(1, serverCount.get());
+	}
+
+	/**
+	 * Tests that requests which are not idempotent are never hedged
+	 */
+	public void testPostNotHedged()
+	{
+		firstDelay = 300;
+
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setHedge(new HedgeConfig(50, TimeUnit.MILLISECONDS));
+		String content = client.post(RequestBody.create(MediaType.parse("text/plain"), "hello"), new StringResponseHandler());
+
+		Assert.assertEquals("slow", content);
+		Assert.assertFalse(client.getConnectionInfo().hedged);
+		Assert.assertEquals(1, serverCount.get());
+	}
+
+	/**
+	 * Tests that the hedge delay comes from the latency percentile of the endpoint once there are enough samples
+	 */
+	public void testPercentileDelay()
+	{
+		firstDelay = 300;
+
+		String endpoint = LatencyTracker.getEndpoint(new Request.Builder().url(server.url("/")).build());
+		for (int index = 0; index < LatencyTracker.MIN_SAMPLES; index++)
+		{
+			LatencyTracker.record(endpoint, 1000);
+		}
+
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setHedge(new HedgeConfig(50, TimeUnit.MILLISECONDS, 0.95));
+		String content = client.get(new StringResponseHandler());
+
+		Assert.assertEquals("slow", content);
+		Assert.assertFalse(client.getConnectionInfo().hedged);
+		Assert.assertEquals(1, serverCount.get());
+	}
+
+	/**
+	 * Tests that cancelling a request whilst it is hedged releases its slot in the host limit, so later
+	 * requests to the same host are not blocked
+	 */
+	public void testCancelDuringHedge() throws InterruptedException
+	{
+		KeepAliveConfig keepAlive = new KeepAliveConfig(5, 5, TimeUnit.MINUTES, 1);
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.setKeepAlive(keepAlive);
+		client.setHedge(new HedgeConfig(50, TimeUnit.MILLISECONDS));
+
+		RequestHandle handle = client.get("hang", new StringResponseHandler());
+
+		// Long enough for the hedged request to be sent
+		Thread.sleep(300);
+		handle.cancel();
+
+		final CountDownLatch signal = new CountDownLatch(1);
+		final AtomicReference<String> content = new AtomicReference<String>();
+
+		AsyncHttpClient followUp = new AsyncHttpClient(server.url("/").toString());
+		followUp.setKeepAlive(keepAlive);
+		followUp.get("fast", new StringResponseHandler()
+		{
+			@Override public void onSuccess()
+			{
+				content.set(getContent());
+			}
+
+			@Override public void onFinish()
+			{
+				signal.countDown();
+			}
+		});
+
+		signal.await(1500, TimeUnit.MILLISECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals("fast", content.get());
+	}
+}
@@ -0,0 +1,186 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.Http2Config;
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Benchmarks 100 parallel small GETs over HTTP/1.1 and HTTP/2 against a local server
+ *
+ * @author Callum Taylor
+ */
+public class Http2BenchmarkTest extends AndroidTestCase
+{
+	private static final String TAG = "Http2Benchmark";
+	private static final int PARALLEL_COUNT = 100;
+	private static final int ROUND_COUNT = 5;
+	private static final long SERVER_DELAY = 10;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private MockWebServer http1Server;
+	private MockWebServer http2Server;
+	private ExecutorService executor;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		Dispatcher dispatcher = new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				int current = inFlight.incrementAndGet();
+
+				synchronized (maxInFlight)
+				{
+					maxInFlight.set(Math.max(maxInFlight.get(), current));
+				}
+
+				Thread.sleep(SERVER_DELAY);
+				inFlight.decrementAndGet();
+
+				return new MockResponse().setBody("{\"hello\":\"world\"}");
+			}
+		};
+
+		http1Server = LocalServer.start(dispatcher);
+		http2Server = LocalServer.start(dispatcher, Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+		executor = Executors.newFixedThreadPool(PARALLEL_COUNT);
+
+		ClientEngine.reset();
+		ClientEngine.resetConnectionCounts();
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		executor.shutdownNow();
+		http1Server.shutdown();
+		http2Server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that parallel HTTP/2 requests are multiplexed over a single connection
+	 */
+	public void testHttp2SharesConnection() throws InterruptedException
+	{
+		String protocol = runParallel(http2Server.url("/").toString(), null, new Http2Config(true, 0));
+
+		Assert.assertEquals("h2_prior_knowledge", protocol);
+		Assert.assertEquals(1, ClientEngine.connectionMissCount());
+		Assert.assertEquals(PARALLEL_COUNT - 1, ClientEngine.connectionHitCount());
+	}
+
+	/**
+	 * Tests that the number of concurrent streams to a host never goes over the limit
+	 */
+	public void testMaxConcurrentStreams() throws InterruptedException
+	{
+		runParallel(http2Server.url("/").toString(), null, new Http2Config(true, 4));
+
+		Assert.assertTrue(maxInFlight.get() <= 4);
+	}
+
+	/**
+	 * Compares the time taken to make 100 parallel requests over HTTP/1.1 with keep-alive and HTTP/2
+	 */
+	public void testBenchmarkHttp2() throws InterruptedException
+	{
+		KeepAliveConfig keepAlive = new KeepAliveConfig(PARALLEL_COUNT, 5, TimeUnit.MINUTES);
+		Http2Config http2 = new Http2Config(true, 0);
+
+		// Warm up both servers and the connection pools
+		runParallel(http1Server.url("/").toString(), keepAlive, null);
+		runParallel(http2Server.url("/").toString(), null, http2);
+
+		long http1Time = 0;
+		long http2Time = 0;
+
+		for (int round = 0; round < ROUND_COUNT; round++)
+		{
+			long start = System.nanoTime();
+			runParallel(http1Server.url("/").toString(), keepAlive, null);
+			http1Time += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			runParallel(http2Server.url("/").toString(), null, http2);
+			http2Time += System.nanoTime() - start;
+		}
+
+		log("http/1.1", http1Time);
+		log("h2", http2Time);
+	}
+
+	private String runParallel(final String url, final KeepAliveConfig keepAlive, final Http2Config http2) throws InterruptedException
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch signal = new CountDownLatch(PARALLEL_COUNT);
+		final AtomicInteger successCount = new AtomicInteger();
+		final String[] protocol = new String[1];
+
+		for (int index = 0; index < PARALLEL_COUNT; index++)
+		{
+			executor.execute(new Runnable()
+			{
+				@Override public void run()
+				{
+					try
+					{
+						start.await();
+
+						SyncHttpClient<String> client = new SyncHttpClient<>(url, 20000);
+						client.setKeepAlive(keepAlive);
+						client.setHttp2(http2);
+
+						if (client.get(new StringResponseHandler()) != null)
+						{
+							successCount.incrementAndGet();
+							protocol[0] = client.getConnectionInfo().protocol;
+						}
+					}
+					catch (InterruptedException e)
+					{
+						e.printStackTrace();
+					}
+
+					signal.countDown();
+				}
+			});
+		}
+
+		start.countDown();
+		signal.await(60, TimeUnit.SECONDS);
+
+		Assert.assertEquals(PARALLEL_COUNT, successCount.get());
+		return protocol[0];
+	}
+
+	private void log(String name, long totalNanos)
+	{
+		double averageMs = (totalNanos / (double)ROUND_COUNT) / 1000000d;
+		double throughput = (PARALLEL_COUNT * ROUND_COUNT) / (totalNanos / 1000000000d);
+
+		Log.i(TAG, String.format("%s: %d parallel requests, avg %.3fms per batch, %.1f req/s", name, PARALLEL_COUNT, averageMs, throughput));
+	}
+}
@@ -0,0 +1,145 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class KeepAliveTest extends AndroidTestCase
+{
+	private static final int REQUEST_COUNT = 10;
+
+	private MockWebServer server;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				return new MockResponse().setBody("hello world");
+			}
+		});
+
+		ClientEngine.reset();
+		ClientEngine.resetConnectionCounts();
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that connections are closed after every request by default
+	 */
+	public void testKeepAliveDisabled() throws InterruptedException
+	{
+		String keepAliveProperty = System.getProperty("http.keepAlive");
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+			Assert.assertEquals("hello world", client.get(new StringResponseHandler()));
+
+			RecordedRequest request = server.takeRequest();
+			Assert.assertEquals("close", request.getHeader("Connection"));
+			Assert.assertEquals(0, request.getSequenceNumber());
+		}
+
+		Assert.assertEquals(0, ClientEngine.connectionHitCount());
+		Assert.assertEquals(REQUEST_COUNT, ClientEngine.connectionMissCount());
+
+		// The client must not change global system properties
+		Assert.assertEquals(keepAliveProperty, System.getProperty("http.keepAlive"));
+	}
+
+	/**
+	 * Tests that sequential requests re-use the same pooled connection
+	 */
+	public void testKeepAliveReusesConnection() throws InterruptedException
+	{
+		KeepAliveConfig keepAlive = new KeepAliveConfig(5, 1, TimeUnit.MINUTES);
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+			client.setKeepAlive(keepAlive);
+			Assert.assertEquals("hello world", client.get(new StringResponseHandler()));
+
+			RecordedRequest request = server.takeRequest();
+			Assert.assertEquals("Keep-Alive", request.getHeader("Connection"));
+			Assert.assertEquals(index, request.getSequenceNumber());
+		}
+
+		Assert.assertEquals(REQUEST_COUNT - 1, ClientEngine.connectionHitCount());
+		Assert.assertEquals(1, ClientEngine.connectionMissCount());
+	}
+
+	/**
+	 * Tests that the per-host limit is never exceeded under concurrent load
+	 */
+	public void testMaxConnectionsPerHost() throws Exception
+	{
+		server.shutdown();
+
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				int current = inFlight.incrementAndGet();
+				maxInFlight.set(Math.max(maxInFlight.get(), current));
+
+				Thread.sleep(50);
+				inFlight.decrementAndGet();
+
+				return new MockResponse().setBody("hello world");
+			}
+		});
+
+		final KeepAliveConfig keepAlive = new KeepAliveConfig(5, 1, TimeUnit.MINUTES, 2);
+		final CountDownLatch signal = new CountDownLatch(REQUEST_COUNT);
+
+		for (int index = 0; index < REQUEST_COUNT; index++)
+		{
+			new Thread(new Runnable()
+			{
+				@Override public void run()
+				{
+					SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+					client.setKeepAlive(keepAlive);
+					client.get(new StringResponseHandler());
+
+					signal.countDown();
+				}
+			}).start();
+		}
+
+		signal.await(60, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertTrue(maxInFlight.get() <= 2);
+		Assert.assertTrue(ClientEngine.connectionMissCount() <= 2);
+	}
+}
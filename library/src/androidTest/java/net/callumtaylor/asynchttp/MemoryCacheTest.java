@@ -0,0 +1,176 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Headers;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class MemoryCacheTest extends AndroidTestCase
+{
+	private MockWebServer server;
+	private final AtomicInteger serverCount = new AtomicInteger();
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				int count = serverCount.incrementAndGet();
+
+				if ("POST".equals(request.getMethod()))
+				{
+					return new MockResponse().setBody("posted");
+				}
+				else if (request.getPath().startsWith("/fresh"))
+				{
+					return new MockResponse()
+						.setHeader("Cache-Control", "max-age=60")
+						.setBody("fresh " + count);
+				}
+				else if (request.getPath().startsWith("/vary"))
+				{
+					return new MockResponse()
+						.setHeader("Cache-Control", "max-age=60")
+						.setHeader("Vary", "Accept-Language")
+						.setBody("hello " + request.getHeader("Accept-Language"));
+				}
+				else if (request.getPath().startsWith("/large"))
+				{
+					return new MockResponse()
+						.setHeader("Cache-Control", "max-age=60")
+						.setBody(new String(new char[1024]).replace('\0', 'a'));
+				}
+
+				return new MockResponse().setBody("uncached " + count);
+			}
+		});
+
+		SyncHttpClient.memoryCache = new MemoryCache(1024 * 1024);
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		SyncHttpClient.memoryCache = null;
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that a fresh response is served from memory without a network request
+	 */
+	public void testFreshHit()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		Assert.assertEquals("fresh 1", client.get("fresh", new StringResponseHandler()));
+		Assert.assertEquals("fresh 1", client.get("fresh", new StringResponseHandler()));
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+
+		Assert.assertEquals(1, serverCount.get());
+		Assert.assertEquals(1, SyncHttpClient.memoryCache.hitCount());
+		Assert.assertEquals(1, SyncHttpClient.memoryCache.missCount());
+	}
+
+	/**
+	 * Tests that responses without a freshness lifetime, or requests with {@code no-cache}, go to the network
+	 */
+	public void testNotFresh()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		Assert.assertEquals("uncached 1", client.get("uncached", new StringResponseHandler()));
+		Assert.assertEquals("uncached 2", client.get("uncached", new StringResponseHandler()));
+
+		Assert.assertEquals("fresh 3", client.get("fresh", new StringResponseHandler()));
+		Assert.assertEquals("fresh 4", client.get("fresh", Headers.of("Cache-Control", "no-cache"), new StringResponseHandler()));
+
+		Assert.assertEquals(0, SyncHttpClient.memoryCache.hitCount());
+	}
+
+	/**
+	 * Tests that entries only match requests with the same values for the headers the response varies by
+	 */
+	public void testVary()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		Assert.assertEquals("hello en", client.get("vary", Headers.of("Accept-Language", "en"), new StringResponseHandler()));
+		Assert.assertEquals("hello fr", client.get("vary", Headers.of("Accept-Language", "fr"), new StringResponseHandler()));
+		Assert.assertEquals("hello fr", client.get("vary", Headers.of("Accept-Language", "fr"), new StringResponseHandler()));
+
+		Assert.assertEquals(2, serverCount.get());
+		Assert.assertEquals(1, SyncHttpClient.memoryCache.hitCount());
+	}
+
+	/**
+	 * Tests that a POST to a url removes its cached GET response
+	 */
+	public void testInvalidate()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		Assert.assertEquals("fresh 1", client.get("fresh", new StringResponseHandler()));
+		Assert.assertEquals("posted", client.post("fresh", new StringResponseHandler()));
+		Assert.assertEquals("fresh 3", client.get("fresh", new StringResponseHandler()));
+	}
+
+	/**
+	 * Tests that the least recently used entries are evicted to keep the cache within its size
+	 */
+	public void testEviction()
+	{
+		SyncHttpClient.memoryCache = new MemoryCache(4096);
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		for (int index = 0; index < 5; index++)
+		{
+			client.get("large?index=" + index, new StringResponseHandler());
+		}
+
+		Assert.assertEquals(4096, SyncHttpClient.memoryCache.size());
+		Assert.assertEquals(1, SyncHttpClient.memoryCache.evictionCount());
+
+		// The oldest entry was evicted, the newest is still cached
+		client.get("large?index=0", new StringResponseHandler());
+		client.get("large?index=4", new StringResponseHandler());
+
+		Assert.assertEquals(6, serverCount.get());
+		Assert.assertEquals(1, SyncHttpClient.memoryCache.hitCount());
+	}
+
+	/**
+	 * Tests that responses served from memory are not recorded as latency samples for the endpoint
+	 */
+	public void testHitNotRecorded()
+	{
+		LatencyTracker.reset();
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		for (int index = 0; index < LatencyTracker.MIN_SAMPLES; index++)
+		{
+			client.get("fresh", new StringResponseHandler());
+		}
+
+		String endpoint = LatencyTracker.getEndpoint(new Request.Builder().url(server.url("/fresh")).build());
+
+		Assert.assertEquals(1, serverCount.get());
+		Assert.assertEquals(-1, LatencyTracker.getPercentile(endpoint, 0.5));
+	}
+}
@@ -0,0 +1,149 @@
+package net.callumtaylor.asynchttp;
+
+import android.net.Uri;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.ProgressThrottle;
+import net.callumtaylor.asynchttp.obj.RequestMode;
+import net.callumtaylor.asynchttp.response.ResponseHandler;
+
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests that reporting progress through an {@link AsyncHttpClient} task does not allocate per chunk
+ *
+ * @author Callum Taylor
+ */
+public class ProgressAllocationTest extends AndroidTestCase
+{
+	private static final int CHUNK_SIZE = 8192;
+	private static final int CHUNK_COUNT = 10000;
+	private static final int WARM_UP_CHUNKS = 100;
+	private static final int WARM_UP_TRANSFERS = 5;
+
+	/**
+	 * Tests that the steady state of the transfer loop allocates nothing, and that the updates are
+	 * coalesced into the latest progress on the main thread
+	 */
+	public void testTransferLoopAllocatesNothing() throws Exception
+	{
+		// Full transfers first, so the measured one runs code that has already been loaded and compiled
+		for (int index = 0; index < WARM_UP_TRANSFERS; index++)
+		{
+			transfer();
+		}
+
+		Assert.assertEquals(0, transfer());
+	}
+
+	/**
+	 * Reads a response through the progress path of an async task, with the main thread held so every
+	 * update after the first is coalesced into the pending delivery
+	 * @return The allocations of the transfer loop after the warm up
+	 */
+	private int transfer() throws Exception
+	{
+		final AtomicLong lastProgress = new AtomicLong();
+		final AtomicInteger progressCount = new AtomicInteger();
+		final CountDownLatch finished = new CountDownLatch(1);
+
+		ResponseHandler<Void> handler = new ResponseHandler<Void>()
+		{
+			@Override public void onByteChunkReceivedProcessed(long totalProcessed, long totalLength)
+			{
+				progressCount.incrementAndGet();
+				lastProgress.set(totalProcessed);
+
+				if (totalProcessed == totalLength)
+				{
+					finished.countDown();
+				}
+			}
+
+			@Override public void generateContent(){}
+
+			@Override public Void getContent()
+			{
+				return null;
+			}
+		};
+		handler.setProgressThrottle(ProgressThrottle.NONE);
+
+		AsyncHttpClient.AsyncClientExecutorTask task = new AsyncHttpClient.AsyncClientExecutorTask(RequestMode.GET, Uri.parse("http://localhost/"), null, null, handler, true, false, 10000);
+		CountingInputStream stream = new CountingInputStream();
+
+		final CountDownLatch release = new CountDownLatch(1);
+		new Handler(Looper.getMainLooper()).post(new Runnable()
+		{
+			@Override public void run()
+			{
+				try
+				{
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ignored)
+				{
+				}
+			}
+		});
+
+		Debug.startAllocCounting();
+
+		try
+		{
+			handler.onReceiveStream(stream, task.clientTask, (long)CHUNK_SIZE * CHUNK_COUNT);
+		}
+		finally
+		{
+			Debug.stopAllocCounting();
+			release.countDown();
+		}
+
+		Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals((long)CHUNK_SIZE * CHUNK_COUNT, lastProgress.get());
+		Assert.assertTrue(progressCount.get() <= 2);
+
+		return stream.allocations;
+	}
+
+	/**
+	 * Serves zeroed chunks without allocating, and measures the allocations of the loop reading it
+	 * between the end of the warm up and the last chunk
+	 */
+	private static class CountingInputStream extends InputStream
+	{
+		private int chunk = 0;
+		private int allocations = -1;
+
+		@Override public int read(byte[] buffer)
+		{
+			if (chunk == WARM_UP_CHUNKS)
+			{
+				Debug.resetThreadAllocCount();
+			}
+
+			if (chunk == CHUNK_COUNT)
+			{
+				allocations = Debug.getThreadAllocCount();
+				return -1;
+			}
+
+			chunk++;
+			return Math.min(buffer.length, CHUNK_SIZE);
+		}
+
+		@Override public int read()
+		{
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.ProgressThrottle;
+import net.callumtaylor.asynchttp.response.ByteArrayResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Tests that progress updates are throttled and the final update is always delivered
+ *
+ * @author Callum Taylor
+ */
+public class ProgressThrottleTest extends AndroidTestCase
+{
+	private static final int BODY_SIZE = 1024 * 1024;
+
+	private MockWebServer server;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				return new MockResponse().setBody(new Buffer().write(new byte[BODY_SIZE]));
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that every chunk is dispatched without a throttle
+	 */
+	public void testNoThrottle()
+	{
+		List<Long> updates = download(ProgressThrottle.NONE);
+
+		Assert.assertTrue(updates.size() > 10);
+		Assert.assertEquals(BODY_SIZE, (long)updates.get(updates.size() - 1));
+	}
+
+	/**
+	 * Tests that a long interval only lets the first and final updates through
+	 */
+	public void testInterval()
+	{
+		List<Long> updates = download(new ProgressThrottle(1, TimeUnit.MINUTES, 0));
+
+		Assert.assertEquals(2, updates.size());
+		Assert.assertEquals(BODY_SIZE, (long)updates.get(1));
+	}
+
+	/**
+	 * Tests that a percentage step limits the number of updates
+	 */
+	public void testStep()
+	{
+		List<Long> updates = download(new ProgressThrottle(0, TimeUnit.MILLISECONDS, 0.25f));
+
+		Assert.assertTrue(updates.size() >= 2 && updates.size() <= 6);
+		Assert.assertEquals(BODY_SIZE, (long)updates.get(updates.size() - 1));
+
+		for (int index = 1; index < updates.size() - 1; index++)
+		{
+			Assert.assertTrue(updates.get(index) - updates.get(index - 1) >= BODY_SIZE / 4);
+		}
+	}
+
+	private List<Long> download(ProgressThrottle throttle)
+	{
+		final List<Long> updates = new ArrayList<>();
+
+		ByteArrayResponseHandler handler = new ByteArrayResponseHandler()
+		{
+			@Override public void onByteChunkReceivedProcessed(long totalProcessed, long totalLength)
+			{
+				updates.add(totalProcessed);
+			}
+		};
+		handler.setProgressThrottle(throttle);
+
+		byte[] content = new SyncHttpClient<byte[]>(server.url("/").toString()).get(handler);
+
+		Assert.assertNotNull(content);
+		Assert.assertEquals(BODY_SIZE, content.length);
+
+		return updates;
+	}
+}
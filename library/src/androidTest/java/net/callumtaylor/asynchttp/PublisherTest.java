@@ -0,0 +1,192 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.ChunkSubscriber;
+import net.callumtaylor.asynchttp.obj.ChunkSubscription;
+import net.callumtaylor.asynchttp.obj.ResponseException;
+import net.callumtaylor.asynchttp.response.PublisherResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Tests that a publisher response handler only reads the body as fast as its subscriber requests it
+ *
+ * @author Callum Taylor
+ */
+public class PublisherTest extends AndroidTestCase
+{
+	private static final int BODY_SIZE = 1024 * 1024;
+	private static final int CHUNK_SIZE = 8192;
+
+	private MockWebServer server;
+	private ExecutorService executor;
+
+	private final AtomicReference<ChunkSubscription> subscription = new AtomicReference<>();
+	private final AtomicLong received = new AtomicLong();
+	private final AtomicInteger chunkCount = new AtomicInteger();
+	private final AtomicBoolean completed = new AtomicBoolean();
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+	private final CountDownLatch firstChunk = new CountDownLatch(1);
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		executor = Executors.newSingleThreadExecutor();
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				if (request.getPath().startsWith("/error"))
+				{
+					return new MockResponse().setResponseCode(500).setBody("error");
+				}
+
+				return new MockResponse().setBody(new Buffer().write(new byte[BODY_SIZE]));
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		executor.shutdownNow();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that no more chunks are read than requested, and the rest follow once requested
+	 */
+	public void testBackpressure() throws Exception
+	{
+		Future<?> request = request("/");
+
+		Assert.assertTrue(firstChunk.await(5, TimeUnit.SECONDS));
+		Thread.sleep(300);
+
+		Assert.assertEquals(1, chunkCount.get());
+		Assert.assertFalse(request.isDone());
+
+		subscription.get().request(Long.MAX_VALUE);
+		request.get(5, TimeUnit.SECONDS);
+
+		Assert.assertEquals(BODY_SIZE, received.get());
+		Assert.assertTrue(completed.get());
+		Assert.assertNull(error.get());
+	}
+
+	/**
+	 * Tests that cancelling the subscription cancels the request
+	 */
+	public void testCancel() throws Exception
+	{
+		Future<?> request = request("/");
+
+		Assert.assertTrue(firstChunk.await(5, TimeUnit.SECONDS));
+		subscription.get().cancel();
+		request.get(1, TimeUnit.SECONDS);
+
+		Assert.assertEquals(1, chunkCount.get());
+		Assert.assertFalse(completed.get());
+		Assert.assertNull(error.get());
+	}
+
+	/**
+	 * Tests that an error response is sent to onError without publishing its body
+	 */
+	public void testError() throws Exception
+	{
+		request("/error").get(5, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, chunkCount.get());
+		Assert.assertFalse(completed.get());
+		Assert.assertTrue(error.get() instanceof ResponseException);
+		Assert.assertEquals(500, ((ResponseException)error.get()).connectionInfo.responseCode);
+	}
+
+	/**
+	 * Tests that a response without a subscriber fails instead of waiting forever, and a late subscriber is sent the error
+	 */
+	public void testNoSubscriber() throws Exception
+	{
+		final PublisherResponseHandler handler = new PublisherResponseHandler(CHUNK_SIZE);
+
+		executor.submit(new Runnable()
+		{
+			@Override public void run()
+			{
+				new SyncHttpClient<Void>(server.url("/").toString()).get(handler);
+			}
+		}).get(5, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, handler.getConnectionInfo().responseCode);
+		Assert.assertNotNull(handler.getConnectionInfo().exception);
+
+		subscribe(handler);
+
+		Assert.assertEquals(0, chunkCount.get());
+		Assert.assertFalse(completed.get());
+		Assert.assertTrue(error.get() instanceof ResponseException);
+	}
+
+	private Future<?> request(final String path)
+	{
+		final PublisherResponseHandler handler = new PublisherResponseHandler(CHUNK_SIZE);
+		subscribe(handler);
+
+		return executor.submit(new Runnable()
+		{
+			@Override public void run()
+			{
+				new SyncHttpClient<Void>(server.url(path).toString()).get(handler);
+			}
+		});
+	}
+
+	private void subscribe(PublisherResponseHandler handler)
+	{
+		handler.subscribe(new ChunkSubscriber()
+		{
+			@Override public void onSubscribe(ChunkSubscription chunkSubscription)
+			{
+				subscription.set(chunkSubscription);
+				chunkSubscription.request(1);
+			}
+
+			@Override public void onNext(byte[] chunk)
+			{
+				chunkCount.incrementAndGet();
+				received.addAndGet(chunk.length);
+				firstChunk.countDown();
+			}
+
+			@Override public void onError(Throwable throwable)
+			{
+				error.set(throwable);
+			}
+
+			@Override public void onComplete()
+			{
+				completed.set(true);
+			}
+		});
+	}
+}
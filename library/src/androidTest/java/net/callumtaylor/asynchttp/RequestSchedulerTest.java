@@ -0,0 +1,355 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.RequestPriority;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class RequestSchedulerTest extends AndroidTestCase
+{
+	private ExecutorService executor;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+		executor = Executors.newFixedThreadPool(16);
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		executor.shutdownNow();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the global in-flight limit is never exceeded
+	 */
+	public void testMaxRequests() throws InterruptedException
+	{
+		RequestScheduler scheduler = new RequestScheduler(executor, 3, 0);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		CountDownLatch signal = new CountDownLatch(20);
+
+		for (int index = 0; index < 20; index++)
+		{
+			scheduler.schedule("host" + index, new SlowTask(inFlight, maxInFlight, signal, null, 0));
+		}
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertTrue(maxInFlight.get() <= 3);
+	}
+
+	/**
+	 * Tests that the per-host limit is never exceeded, and a busy host does not block other hosts
+	 */
+	public void testMaxRequestsPerHost() throws InterruptedException
+	{
+		RequestScheduler scheduler = new RequestScheduler(executor, 0, 2);
+		AtomicInteger slowInFlight = new AtomicInteger();
+		AtomicInteger slowMaxInFlight = new AtomicInteger();
+		CountDownLatch slowSignal = new CountDownLatch(10);
+		CountDownLatch fastSignal = new CountDownLatch(1);
+
+		for (int index = 0; index < 10; index++)
+		{
+			scheduler.schedule("images.example.com", new SlowTask(slowInFlight, slowMaxInFlight, slowSignal, null, 0));
+		}
+
+		scheduler.schedule("api.example.com", new SlowTask(new AtomicInteger(), new AtomicInteger(), fastSignal, null, 0));
+
+		// The api request should not wait for the queued image requests
+		Assert.assertTrue(fastSignal.await(1, TimeUnit.SECONDS));
+		Assert.assertTrue(slowSignal.getCount() > 0);
+
+		slowSignal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, slowSignal.getCount());
+		Assert.assertTrue(slowMaxInFlight.get() <= 2);
+	}
+
+	/**
+	 * Tests that queued requests are started in the order they were made
+	 */
+	public void testFairOrder() throws InterruptedException
+	{
+		RequestScheduler scheduler = new RequestScheduler(executor, 1, 0);
+		List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch signal = new CountDownLatch(10);
+
+		for (int index = 0; index < 10; index++)
+		{
+			scheduler.schedule("example.com", new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, index));
+		}
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		for (int index = 0; index < 10; index++)
+		{
+			Assert.assertEquals(index, (int)order.get(index));
+		}
+	}
+
+	/**
+	 * Tests that queued requests are started highest priority first
+	 */
+	public void testPriorityOrder() throws InterruptedException
+	{
+		RequestScheduler scheduler = new RequestScheduler(executor, 1, 0);
+		List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch blocker = new CountDownLatch(1);
+		CountDownLatch signal = new CountDownLatch(4);
+
+		// Holds the only slot so the rest are queued
+		scheduler.schedule("example.com", new BlockingTask(blocker));
+
+		scheduler.schedule("example.com", RequestPriority.PREFETCH, new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, 3));
+		scheduler.schedule("example.com", RequestPriority.LOW, new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, 2));
+		scheduler.schedule("example.com", RequestPriority.NORMAL, new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, 1));
+		scheduler.schedule("example.com", RequestPriority.HIGH, new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, 0));
+
+		Assert.assertEquals(4, scheduler.getQueuedCount());
+		blocker.countDown();
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		for (int index = 0; index < 4; index++)
+		{
+			Assert.assertEquals(index, (int)order.get(index));
+		}
+	}
+
+	/**
+	 * Tests that immediate requests ignore the limits
+	 */
+	public void testImmediateBypassesLimits() throws InterruptedException
+	{
+		RequestScheduler scheduler = new RequestScheduler(executor, 1, 1);
+		CountDownLatch blocker = new CountDownLatch(1);
+		CountDownLatch signal = new CountDownLatch(1);
+
+		scheduler.schedule("example.com", new BlockingTask(blocker));
+		scheduler.schedule("example.com", RequestPriority.IMMEDIATE, new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, null, 0));
+
+		Assert.assertTrue(signal.await(1, TimeUnit.SECONDS));
+		blocker.countDown();
+	}
+
+	/**
+	 * Tests that a queued request can be promoted ahead of requests made before it
+	 */
+	public void testReprioritise() throws InterruptedException
+	{
+		RequestScheduler scheduler = new RequestScheduler(executor, 1, 0);
+		List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch blocker = new CountDownLatch(1);
+		CountDownLatch signal = new CountDownLatch(3);
+
+		scheduler.schedule("example.com", new BlockingTask(blocker));
+
+		scheduler.schedule("example.com", new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, 1));
+		scheduler.schedule("example.com", new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, 2));
+		RequestScheduler.ScheduledRequest request = scheduler.schedule("example.com", RequestPriority.PREFETCH, new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, order, 0));
+
+		Assert.assertTrue(request.isQueued());
+		request.setPriority(RequestPriority.HIGH);
+
+		blocker.countDown();
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertFalse(request.isQueued());
+		for (int index = 0; index < 3; index++)
+		{
+			Assert.assertEquals(index, (int)order.get(index));
+		}
+	}
+
+	/**
+	 * Tests that a request rejected by the executor is cancelled and does not hold on to its slot
+	 */
+	public void testRejectedRequest() throws InterruptedException
+	{
+		final AtomicInteger rejections = new AtomicInteger(2);
+		Executor rejectingExecutor = new Executor()
+		{
+			@Override public void execute(Runnable runnable)
+			{
+				if (rejections.getAndDecrement() > 0)
+				{
+					throw new RejectedExecutionException();
+				}
+
+				executor.execute(runnable);
+			}
+		};
+
+		RequestScheduler scheduler = new RequestScheduler(rejectingExecutor, 1, 1);
+		CountDownLatch signal = new CountDownLatch(2);
+
+		FutureTask<Void> rejected = new FutureTask<Void>(new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, null, 0), null);
+		scheduler.schedule("example.com", rejected);
+		Assert.assertTrue(rejected.isCancelled());
+		Assert.assertEquals(0, scheduler.getRunningCount());
+
+		// Rejected whilst being promoted from the queue by another request finishing
+		CountDownLatch blocker = new CountDownLatch(1);
+		rejections.set(0);
+		scheduler.schedule("example.com", new BlockingTask(blocker));
+		rejections.set(1);
+		scheduler.schedule("example.com", new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, null, 0));
+		scheduler.schedule("example.com", new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, null, 0));
+		scheduler.schedule("example.com", new SlowTask(new AtomicInteger(), new AtomicInteger(), signal, null, 0));
+		blocker.countDown();
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals(0, scheduler.getQueuedCount());
+	}
+
+	/**
+	 * Tests that requests are ran on the executor supplied to the client
+	 */
+	public void testClientUsesScheduler() throws Exception
+	{
+		MockWebServer server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				return new MockResponse().setBody("hello world");
+			}
+		});
+
+		final AtomicInteger executedCount = new AtomicInteger();
+		ExecutorService clientExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			@Override public Thread newThread(Runnable runnable)
+			{
+				executedCount.incrementAndGet();
+				return new Thread(runnable, "scheduler-test");
+			}
+		});
+
+		final CountDownLatch signal = new CountDownLatch(1);
+		final String[] threadName = new String[1];
+
+		AsyncHttpClient client = new AsyncHttpClient(server.url("/").toString());
+		client.setScheduler(new RequestScheduler(clientExecutor, 1, 1));
+		client.get(new StringResponseHandler()
+		{
+			@Override public void onSuccess()
+			{
+				threadName[0] = Thread.currentThread().getName();
+			}
+
+			@Override public void onFinish()
+			{
+				signal.countDown();
+			}
+		});
+
+		signal.await(10, TimeUnit.SECONDS);
+
+		clientExecutor.shutdownNow();
+		server.shutdown();
+
+		Assert.assertEquals(0, signal.getCount());
+		Assert.assertEquals(1, executedCount.get());
+		Assert.assertEquals("scheduler-test", threadName[0]);
+	}
+
+	private static class BlockingTask implements Runnable
+	{
+		private final CountDownLatch blocker;
+
+		public BlockingTask(CountDownLatch blocker)
+		{
+			this.blocker = blocker;
+		}
+
+		@Override public void run()
+		{
+			try
+			{
+				blocker.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static class SlowTask implements Runnable
+	{
+		private final AtomicInteger inFlight;
+		private final AtomicInteger maxInFlight;
+		private final CountDownLatch signal;
+		private final List<Integer> order;
+		private final int index;
+
+		public SlowTask(AtomicInteger inFlight, AtomicInteger maxInFlight, CountDownLatch signal, List<Integer> order, int index)
+		{
+			this.inFlight = inFlight;
+			this.maxInFlight = maxInFlight;
+			this.signal = signal;
+			this.order = order;
+			this.index = index;
+		}
+
+		@Override public void run()
+		{
+			if (order != null)
+			{
+				order.add(index);
+			}
+
+			int current = inFlight.incrementAndGet();
+
+			synchronized (maxInFlight)
+			{
+				maxInFlight.set(Math.max(maxInFlight.get(), current));
+			}
+
+			try
+			{
+				Thread.sleep(20);
+			}
+			catch (InterruptedException e)
+			{
+				e.printStackTrace();
+			}
+
+			inFlight.decrementAndGet();
+			signal.countDown();
+		}
+	}
+}
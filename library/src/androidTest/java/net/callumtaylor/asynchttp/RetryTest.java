@@ -0,0 +1,177 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.ConnectionInfo;
+import net.callumtaylor.asynchttp.obj.RetryBudget;
+import net.callumtaylor.asynchttp.obj.RetryPolicy;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * @author Callum Taylor
+ */
+public class RetryTest extends AndroidTestCase
+{
+	private MockWebServer server;
+	private RetryPolicy retryPolicy;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new QueueDispatcher());
+		retryPolicy = new RetryPolicy(3, 10, 1000, TimeUnit.MILLISECONDS);
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that 503 responses are retried until the request succeeds
+	 */
+	public void testRetryServerError()
+	{
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setBody("hello world"));
+
+		SyncHttpClient<String> client = createClient();
+
+		Assert.assertEquals("hello world", client.get(new StringResponseHandler()));
+
+		ConnectionInfo info = client.getConnectionInfo();
+		Assert.assertEquals(200, info.responseCode);
+		Assert.assertEquals(2, info.retryCount);
+		Assert.assertEquals(2, info.retryDelays.size());
+		Assert.assertEquals(3, server.getRequestCount());
+	}
+
+	/**
+	 * Tests that a dropped connection is retried
+	 */
+	public void testRetryDisconnect()
+	{
+		server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+		server.enqueue(new MockResponse().setBody("hello world"));
+
+		SyncHttpClient<String> client = createClient();
+
+		Assert.assertEquals("hello world", client.get(new StringResponseHandler()));
+		Assert.assertEquals(1, client.getConnectionInfo().retryCount);
+	}
+
+	/**
+	 * Tests that the request fails once all of the retries have been used
+	 */
+	public void testMaxRetries()
+	{
+		for (int index = 0; index < 5; index++)
+		{
+			server.enqueue(new MockResponse().setResponseCode(502));
+		}
+
+		SyncHttpClient<String> client = createClient();
+		client.get(new StringResponseHandler());
+
+		Assert.assertEquals(502, client.getConnectionInfo().responseCode);
+		Assert.assertEquals(3, client.getConnectionInfo().retryCount);
+		Assert.assertEquals(4, server.getRequestCount());
+	}
+
+	/**
+	 * Tests that a Retry-After header is used as the delay, and a delay longer than the max is not waited for
+	 */
+	public void testRetryAfter()
+	{
+		server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+		server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "120"));
+
+		SyncHttpClient<String> client = createClient();
+		client.get(new StringResponseHandler());
+
+		ConnectionInfo info = client.getConnectionInfo();
+		Assert.assertEquals(503, info.responseCode);
+		Assert.assertEquals(1, info.retryCount);
+		Assert.assertEquals(1000L, (long)info.retryDelays.get(0));
+		Assert.assertEquals(2, server.getRequestCount());
+	}
+
+	/**
+	 * Tests that POST requests are not retried by default
+	 */
+	public void testPostNotRetried()
+	{
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setBody("hello world"));
+
+		SyncHttpClient<String> client = createClient();
+		client.post(RequestBody.create(MediaType.parse("text/plain"), "hello"), new StringResponseHandler());
+
+		Assert.assertEquals(503, client.getConnectionInfo().responseCode);
+		Assert.assertEquals(0, client.getConnectionInfo().retryCount);
+		Assert.assertEquals(1, server.getRequestCount());
+	}
+
+	/**
+	 * Tests that retries stop once the shared budget is empty
+	 */
+	public void testRetryBudget()
+	{
+		retryPolicy = new RetryPolicy(3, 10, 1000, TimeUnit.MILLISECONDS, 2, 0.5, false, new RetryBudget(2, 1, TimeUnit.HOURS));
+
+		for (int index = 0; index < 6; index++)
+		{
+			server.enqueue(new MockResponse().setResponseCode(503));
+		}
+
+		SyncHttpClient<String> first = createClient();
+		first.get(new StringResponseHandler());
+
+		SyncHttpClient<String> second = createClient();
+		second.get(new StringResponseHandler());
+
+		Assert.assertEquals(2, first.getConnectionInfo().retryCount);
+		Assert.assertEquals(0, second.getConnectionInfo().retryCount);
+		Assert.assertEquals(4, server.getRequestCount());
+	}
+
+	/**
+	 * Tests the backoff delays grow and stay within the jitter range
+	 */
+	public void testBackoff()
+	{
+		RetryPolicy policy = new RetryPolicy(5, 100, 1000, TimeUnit.MILLISECONDS, 2, 0.5, false, null);
+
+		for (int retry = 0; retry < 5; retry++)
+		{
+			long expected = Math.min(1000, 100 * (long)Math.pow(2, retry));
+			long delay = policy.getDelay(retry, null);
+
+			Assert.assertTrue(delay <= expected);
+			Assert.assertTrue(delay >= expected / 2);
+		}
+	}
+
+	private SyncHttpClient<String> createClient()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setRetryPolicy(retryPolicy);
+
+		return client;
+	}
+}
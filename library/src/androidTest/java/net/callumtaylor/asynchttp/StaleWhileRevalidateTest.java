@@ -0,0 +1,229 @@
+package net.callumtaylor.asynchttp;
+
+import android.os.Looper;
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.response.ResponseHandler;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class StaleWhileRevalidateTest extends AndroidTestCase
+{
+	private MockWebServer server;
+	private final AtomicInteger serverCount = new AtomicInteger();
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request)
+			{
+				int count = serverCount.incrementAndGet();
+
+				if (request.getPath().startsWith("/error") && count > 1)
+				{
+					return new MockResponse().setResponseCode(503);
+				}
+				else if (request.getPath().startsWith("/same"))
+				{
+					// Ignores the conditional request, returning the same content in full
+					return new MockResponse()
+						.setHeader("Cache-Control", "max-age=1, stale-while-revalidate=60")
+						.setHeader("ETag", "\"same\"")
+						.setBody("same");
+				}
+				else if (request.getPath().startsWith("/error"))
+				{
+					return new MockResponse()
+						.setHeader("Cache-Control", "max-age=1, stale-if-error=60")
+						.setBody("response " + count);
+				}
+
+				return new MockResponse()
+					.setHeader("Cache-Control", "max-age=1, stale-while-revalidate=60")
+					.setHeader("ETag", "\"" + count + "\"")
+					.setBody("response " + count);
+			}
+		});
+
+		Cache cache = new Cache(new File(getContext().getCacheDir(), "stale"), 1024 * 1024);
+		cache.evictAll();
+		SyncHttpClient.cache = cache;
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		SyncHttpClient.cache.delete();
+		SyncHttpClient.cache = null;
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that a stale response is delivered straight away and revalidated in the background
+	 */
+	public void testStaleWhileRevalidate() throws InterruptedException
+	{
+		final CountDownLatch changed = new CountDownLatch(1);
+		final String[] content = new String[1];
+
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		client.setStaleWhileRevalidate(true);
+
+		Assert.assertEquals("response 1", client.get("swr", new StringResponseHandler()));
+		Assert.assertFalse(client.getConnectionInfo().stale);
+
+		// Let the response go stale
+		Thread.sleep(1500);
+
+		StringResponseHandler handler = new StringResponseHandler()
+		{
+			@Override public void onContentChanged(ResponseHandler<String> handler)
+			{
+				content[0] = handler.getContent();
+				changed.countDown();
+			}
+		};
+		String stale = client.get("swr", handler);
+
+		Assert.assertEquals("response 1", stale);
+		Assert.assertTrue(client.getConnectionInfo().stale);
+
+		changed.await(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(0, changed.getCount());
+		Assert.assertEquals("response 2", content[0]);
+		Assert.assertEquals(2, serverCount.get());
+
+		// The delivered handler is not changed by the revalidation
+		Assert.assertEquals("response 1", handler.getContent());
+		Assert.assertTrue(handler.getConnectionInfo().stale);
+
+		// The revalidated response is fresh in the cache
+		Assert.assertEquals("response 2", client.get("swr", new StringResponseHandler()));
+		Assert.assertFalse(client.getConnectionInfo().stale);
+		Assert.assertEquals(2, serverCount.get());
+	}
+
+	/**
+	 * Tests that the changed content of an async request is delivered on the main thread, and the request
+	 * can be cancelled by its tag until the revalidation has finished
+	 */
+	public void testAsyncRevalidate() throws InterruptedException
+	{
+		final CountDownLatch finished = new CountDownLatch(1);
+		final CountDownLatch changed = new CountDownLatch(1);
+		final AtomicBoolean mainThread = new AtomicBoolean();
+		final AtomicInteger finishCount = new AtomicInteger(-1);
+
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		Assert.assertEquals("response 1", client.get("swr", new StringResponseHandler()));
+
+		Thread.sleep(1500);
+
+		AsyncHttpClient.cache = SyncHttpClient.cache;
+		AsyncHttpClient asyncClient = new AsyncHttpClient(server.url("/").toString());
+		asyncClient.setStaleWhileRevalidate(true);
+		asyncClient.setTags("swr");
+		asyncClient.get("swr", new StringResponseHandler()
+		{
+			@Override public void onFinish()
+			{
+				finishCount.set(RequestTags.getCount("swr"));
+				finished.countDown();
+			}
+
+			@Override public void onContentChanged(ResponseHandler<String> handler)
+			{
+				mainThread.set(Looper.myLooper() == Looper.getMainLooper());
+				changed.countDown();
+			}
+		});
+
+		finished.await(10, TimeUnit.SECONDS);
+		changed.await(10, TimeUnit.SECONDS);
+		Thread.sleep(100);
+		AsyncHttpClient.cache = null;
+
+		// Still registered when the stale response finished, as the revalidation had not
+		Assert.assertEquals(1, finishCount.get());
+		Assert.assertEquals(0, changed.getCount());
+		Assert.assertTrue(mainThread.get());
+		Assert.assertEquals(0, RequestTags.getCount("swr"));
+	}
+
+	/**
+	 * Tests that a revalidated response with the same content still refreshes the cache
+	 */
+	public void testUnchangedRefreshesCache() throws InterruptedException
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		client.setStaleWhileRevalidate(true);
+
+		Assert.assertEquals("same", client.get("same", new StringResponseHandler()));
+
+		Thread.sleep(1500);
+
+		Assert.assertEquals("same", client.get("same", new StringResponseHandler()));
+		Assert.assertTrue(client.getConnectionInfo().stale);
+
+		// Long enough for the background revalidation to finish
+		Thread.sleep(500);
+
+		Assert.assertEquals("same", client.get("same", new StringResponseHandler()));
+		Assert.assertFalse(client.getConnectionInfo().stale);
+		Assert.assertEquals(2, serverCount.get());
+	}
+
+	/**
+	 * Tests that a stale response is delivered in place of a failed request within its stale-if-error window
+	 */
+	public void testStaleIfError() throws InterruptedException
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+		client.setStaleWhileRevalidate(true);
+
+		Assert.assertEquals("response 1", client.get("error", new StringResponseHandler()));
+
+		Thread.sleep(1500);
+
+		Assert.assertEquals("response 1", client.get("error", new StringResponseHandler()));
+		Assert.assertTrue(client.getConnectionInfo().stale);
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+		Assert.assertEquals(2, serverCount.get());
+	}
+
+	/**
+	 * Tests that stale responses are not used when the mode is off
+	 */
+	public void testOff() throws InterruptedException
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<String>(server.url("/").toString());
+
+		Assert.assertEquals("response 1", client.get("swr", new StringResponseHandler()));
+
+		Thread.sleep(1500);
+
+		Assert.assertEquals("response 2", client.get("swr", new StringResponseHandler()));
+		Assert.assertFalse(client.getConnectionInfo().stale);
+	}
+}
@@ -0,0 +1,130 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author Callum Taylor
+ */
+public class TagTest extends AndroidTestCase
+{
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private MockWebServer server;
+	private ExecutorService executor;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				if (request.getPath().startsWith("/slow"))
+				{
+					release.await(10, TimeUnit.SECONDS);
+				}
+
+				return new MockResponse().setBody("hello world");
+			}
+		});
+
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		release.countDown();
+		executor.shutdownNow();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that cancelling a tag cancels queued and running requests from every client with that tag,
+	 * and leaves other requests alone
+	 */
+	public void testCancelTag() throws InterruptedException
+	{
+		final AtomicInteger taggedFinishCount = new AtomicInteger();
+		final CountDownLatch untaggedSignal = new CountDownLatch(1);
+		RequestScheduler scheduler = new RequestScheduler(executor, 2, 0);
+
+		AsyncHttpClient first = new AsyncHttpClient(server.url("/").toString());
+		first.setScheduler(scheduler);
+		first.setTags("screen");
+
+		AsyncHttpClient second = new AsyncHttpClient(server.url("/").toString());
+		second.setScheduler(scheduler);
+		second.setTags("screen", "images");
+
+		for (int index = 0; index < 5; index++)
+		{
+			StringResponseHandler handler = new StringResponseHandler()
+			{
+				@Override public void onFinish()
+				{
+					taggedFinishCount.incrementAndGet();
+				}
+			};
+
+			first.get("slow/" + index, handler);
+			second.get("slow/" + index, handler);
+		}
+
+		Thread.sleep(200);
+
+		Assert.assertEquals(10, RequestTags.getCount("screen"));
+		Assert.assertEquals(5, RequestTags.getCount("images"));
+		Assert.assertEquals(2, scheduler.getRunningCount());
+		Assert.assertEquals(8, scheduler.getQueuedCount());
+
+		Assert.assertEquals(10, RequestTags.cancel("screen"));
+		Assert.assertEquals(0, RequestTags.getCount("screen"));
+		Assert.assertEquals(0, RequestTags.getCount("images"));
+
+		// The scheduler should be free for new requests straight away
+		AsyncHttpClient untagged = new AsyncHttpClient(server.url("/").toString());
+		untagged.setScheduler(scheduler);
+		untagged.get("fast", new StringResponseHandler()
+		{
+			@Override public void onFinish()
+			{
+				untaggedSignal.countDown();
+			}
+		});
+
+		Assert.assertTrue(untaggedSignal.await(2, TimeUnit.SECONDS));
+		Assert.assertEquals(0, taggedFinishCount.get());
+		Assert.assertEquals(0, first.getActiveRequestCount());
+	}
+
+	/**
+	 * Tests that finished requests are removed from the registry
+	 */
+	public void testFinishedRequestsUnregistered() throws InterruptedException
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setTags("sync");
+
+		Assert.assertEquals("hello world", client.get("fast", new StringResponseHandler()));
+		Assert.assertEquals(0, RequestTags.getCount("sync"));
+		Assert.assertEquals(0, RequestTags.cancel("sync"));
+	}
+}
@@ -0,0 +1,132 @@
+package net.callumtaylor.asynchttp;
+
+import android.test.AndroidTestCase;
+
+import junit.framework.Assert;
+
+import net.callumtaylor.asynchttp.obj.RetryPolicy;
+import net.callumtaylor.asynchttp.obj.TimeoutConfig;
+import net.callumtaylor.asynchttp.response.StringResponseHandler;
+import net.callumtaylor.asynchttp.test.LocalServer;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Tests the separate timeouts and call deadline against a slow local server
+ *
+ * @author Callum Taylor
+ */
+public class TimeoutTest extends AndroidTestCase
+{
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private MockWebServer server;
+
+	@Override protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		server = LocalServer.start(new Dispatcher()
+		{
+			@Override public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				if (request.getPath().startsWith("/unavailable"))
+				{
+					return new MockResponse().setResponseCode(503);
+				}
+
+				if (request.getPath().startsWith("/headers"))
+				{
+					// Slow to respond at all
+					release.await(10, TimeUnit.SECONDS);
+					return new MockResponse().setBody("hello world");
+				}
+
+				// Each read completes quickly, but the whole body takes around 800ms
+				return new MockResponse().setBody(new Buffer().write(new byte[256])).throttleBody(16, 50, TimeUnit.MILLISECONDS);
+			}
+		});
+	}
+
+	@Override protected void tearDown() throws Exception
+	{
+		release.countDown();
+		server.shutdown();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the read timeout applies on its own
+	 */
+	public void testReadTimeout()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/headers").toString());
+		client.setTimeouts(new TimeoutConfig(5000, 100, 5000, TimeUnit.MILLISECONDS));
+
+		long start = System.nanoTime();
+		client.get(new StringResponseHandler());
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		Assert.assertEquals(0, client.getConnectionInfo().responseCode);
+		Assert.assertTrue(client.getConnectionInfo().exception instanceof SocketTimeoutException);
+	}
+
+	/**
+	 * Tests that the call deadline cancels a response that is trickled slowly enough to never hit the read timeout
+	 */
+	public void testCallDeadline()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setTimeouts(new TimeoutConfig(5000, 5000, 5000, 300, TimeUnit.MILLISECONDS));
+
+		long start = System.nanoTime();
+		client.get(new StringResponseHandler());
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 700);
+		Assert.assertEquals(0, client.getConnectionInfo().responseCode);
+		Assert.assertNotNull(client.getConnectionInfo().exception);
+	}
+
+	/**
+	 * Tests that changing the timeouts between requests gives each request its own
+	 */
+	public void testPerRequest()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/").toString());
+		client.setTimeouts(new TimeoutConfig(5000, 5000, 5000, 300, TimeUnit.MILLISECONDS));
+		client.get(new StringResponseHandler());
+
+		Assert.assertEquals(0, client.getConnectionInfo().responseCode);
+
+		client.setTimeouts(new TimeoutConfig(5000, 5000, 5000, 5000, TimeUnit.MILLISECONDS));
+		client.get(new StringResponseHandler());
+
+		Assert.assertEquals(200, client.getConnectionInfo().responseCode);
+		Assert.assertEquals(256, client.getConnectionInfo().responseLength);
+	}
+
+	/**
+	 * Tests that the call deadline covers every retry of the request, rather than each attempt
+	 */
+	public void testDeadlineAcrossRetries()
+	{
+		SyncHttpClient<String> client = new SyncHttpClient<>(server.url("/unavailable").toString());
+		client.setTimeouts(new TimeoutConfig(5000, 5000, 5000, 300, TimeUnit.MILLISECONDS));
+		client.setRetryPolicy(new RetryPolicy(10, 100, 100, TimeUnit.MILLISECONDS, 1, 0, false, null));
+
+		long start = System.nanoTime();
+		client.get(new StringResponseHandler());
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 700);
+		Assert.assertEquals(503, client.getConnectionInfo().responseCode);
+		Assert.assertTrue(client.getConnectionInfo().retryCount < 3);
+	}
+}
@@ -0,0 +1,75 @@
+package net.callumtaylor.asynchttp.test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Helper for starting a local {@link MockWebServer} used by the benchmark tests.
+ *
+ * Accepted sockets have Nagle's algorithm disabled, the same as most production servers. Without
+ * this, re-used connections stall on delayed ACKs and the numbers are meaningless.
+ */
+public class LocalServer
+{
+	public static MockWebServer start(Dispatcher dispatcher) throws IOException
+	{
+		return start(dispatcher, null);
+	}
+
+	public static MockWebServer start(Dispatcher dispatcher, List<Protocol> protocols) throws IOException
+	{
+		MockWebServer server = new MockWebServer();
+		server.setServerSocketFactory(new NoDelayServerSocketFactory());
+		server.setDispatcher(dispatcher);
+
+		if (protocols != null)
+		{
+			server.setProtocols(protocols);
+		}
+
+		server.start();
+
+		return server;
+	}
+
+	private static class NoDelayServerSocketFactory extends ServerSocketFactory
+	{
+		@Override public ServerSocket createServerSocket() throws IOException
+		{
+			return new ServerSocket()
+			{
+				@Override public Socket accept() throws IOException
+				{
+					Socket socket = super.accept();
+					socket.setTcpNoDelay(true);
+
+					return socket;
+				}
+			};
+		}
+
+		@Override public ServerSocket createServerSocket(int port) throws IOException
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override public ServerSocket createServerSocket(int port, int backlog) throws IOException
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
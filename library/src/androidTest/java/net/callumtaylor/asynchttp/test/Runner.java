@@ -5,20 +5,44 @@ import android.test.InstrumentationTestSuite;
 
 import junit.framework.TestSuite;
 
+import net.callumtaylor.asynchttp.AdaptiveTimeoutTest;
 import net.callumtaylor.asynchttp.AsyncCacheTest;
 import net.callumtaylor.asynchttp.AsyncDeleteTest;
 import net.callumtaylor.asynchttp.AsyncGetTest;
 import net.callumtaylor.asynchttp.AsyncPatchTest;
 import net.callumtaylor.asynchttp.AsyncPostTest;
 import net.callumtaylor.asynchttp.AsyncPutTest;
+import net.callumtaylor.asynchttp.BatchTest;
+import net.callumtaylor.asynchttp.CachePolicyTest;
+import net.callumtaylor.asynchttp.CancelTest;
+import net.callumtaylor.asynchttp.CircuitBreakerTest;
+import net.callumtaylor.asynchttp.CoalesceTest;
+import net.callumtaylor.asynchttp.ConcurrentRequestsTest;
+import net.callumtaylor.asynchttp.ConditionalTest;
+import net.callumtaylor.asynchttp.ContentCacheTest;
+import net.callumtaylor.asynchttp.CountingRequestBodyTest;
+import net.callumtaylor.asynchttp.EngineBenchmarkTest;
+import net.callumtaylor.asynchttp.FutureTest;
+import net.callumtaylor.asynchttp.HedgeTest;
+import net.callumtaylor.asynchttp.Http2BenchmarkTest;
+import net.callumtaylor.asynchttp.KeepAliveTest;
+import net.callumtaylor.asynchttp.MemoryCacheTest;
 import net.callumtaylor.asynchttp.OptionsTest;
+import net.callumtaylor.asynchttp.ProgressAllocationTest;
+import net.callumtaylor.asynchttp.ProgressThrottleTest;
+import net.callumtaylor.asynchttp.PublisherTest;
+import net.callumtaylor.asynchttp.RequestSchedulerTest;
 import net.callumtaylor.asynchttp.ResponseHandlersTest;
+import net.callumtaylor.asynchttp.RetryTest;
+import net.callumtaylor.asynchttp.StaleWhileRevalidateTest;
 import net.callumtaylor.asynchttp.SyncCacheTest;
 import net.callumtaylor.asynchttp.SyncDeleteTest;
 import net.callumtaylor.asynchttp.SyncGetTest;
 import net.callumtaylor.asynchttp.SyncPatchTest;
 import net.callumtaylor.asynchttp.SyncPostTest;
 import net.callumtaylor.asynchttp.SyncPutTest;
+import net.callumtaylor.asynchttp.TagTest;
+import net.callumtaylor.asynchttp.TimeoutTest;
 
 /**
  * Test suite
@@ -38,6 +62,11 @@ public class Runner extends InstrumentationTestRunner
 		suite.addTestSuite(AsyncPatchTest.class);
 
 		suite.addTestSuite(SyncCacheTest.class);
+		suite.addTestSuite(MemoryCacheTest.class);
+		suite.addTestSuite(ContentCacheTest.class);
+		suite.addTestSuite(StaleWhileRevalidateTest.class);
+		suite.addTestSuite(ConditionalTest.class);
+		suite.addTestSuite(CachePolicyTest.class);
 		suite.addTestSuite(SyncGetTest.class);
 		suite.addTestSuite(SyncPostTest.class);
 		suite.addTestSuite(SyncPutTest.class);
@@ -46,6 +75,25 @@ public class Runner extends InstrumentationTestRunner
 
 		suite.addTestSuite(ResponseHandlersTest.class);
 		suite.addTestSuite(OptionsTest.class);
+		suite.addTestSuite(ConcurrentRequestsTest.class);
+		suite.addTestSuite(RequestSchedulerTest.class);
+		suite.addTestSuite(CoalesceTest.class);
+		suite.addTestSuite(CancelTest.class);
+		suite.addTestSuite(TagTest.class);
+		suite.addTestSuite(RetryTest.class);
+		suite.addTestSuite(CircuitBreakerTest.class);
+		suite.addTestSuite(HedgeTest.class);
+		suite.addTestSuite(TimeoutTest.class);
+		suite.addTestSuite(AdaptiveTimeoutTest.class);
+		suite.addTestSuite(BatchTest.class);
+		suite.addTestSuite(FutureTest.class);
+		suite.addTestSuite(PublisherTest.class);
+		suite.addTestSuite(ProgressThrottleTest.class);
+		suite.addTestSuite(ProgressAllocationTest.class);
+		suite.addTestSuite(CountingRequestBodyTest.class);
+		suite.addTestSuite(KeepAliveTest.class);
+		suite.addTestSuite(EngineBenchmarkTest.class);
+		suite.addTestSuite(Http2BenchmarkTest.class);
 
 		return suite;
 	}
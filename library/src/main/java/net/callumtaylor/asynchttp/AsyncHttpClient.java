@@ -4,19 +4,34 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.net.Uri;
 import android.os.AsyncTask;
-import android.os.AsyncTask.Status;
 import android.os.Build;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import net.callumtaylor.asynchttp.obj.AdaptiveTimeoutConfig;
+import net.callumtaylor.asynchttp.obj.BatchRequest;
+import net.callumtaylor.asynchttp.obj.CachePolicy;
+import net.callumtaylor.asynchttp.obj.CircuitOpenException;
 import net.callumtaylor.asynchttp.obj.ConnectionInfo;
+import net.callumtaylor.asynchttp.obj.HedgeConfig;
+import net.callumtaylor.asynchttp.obj.Http2Config;
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
 import net.callumtaylor.asynchttp.obj.NameValuePair;
 import net.callumtaylor.asynchttp.obj.Packet;
 import net.callumtaylor.asynchttp.obj.RequestMode;
+import net.callumtaylor.asynchttp.obj.RequestPriority;
 import net.callumtaylor.asynchttp.obj.RequestUtil;
+import net.callumtaylor.asynchttp.obj.RetryBudget;
+import net.callumtaylor.asynchttp.obj.RetryPolicy;
+import net.callumtaylor.asynchttp.obj.TimeoutConfig;
 import net.callumtaylor.asynchttp.response.ResponseHandler;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.Cache;
 import okhttp3.Headers;
@@ -27,11 +42,11 @@ import okhttp3.RequestBody;
  * follows a RESTful paradigm for the connections with the 7 possible methods,
  * GET, POST, PUT, DELETE, OPTIONS, PATCH, HEAD.
  *
- * <b>Note:</b> Because AsyncHttpClient uses
- * AsyncTask, only one instance can be created at a time. If one client makes 2
- * requests, the first request is canceled for the new request. You can either
- * wait for the first to finish before making the second, or you can create two
- * separate instances.
+ * A single client can make any number of concurrent requests. Each request
+ * method returns a {@link RequestHandle} which can be used to cancel that
+ * request on its own, and {@link #cancel()} cancels every request made by the
+ * client that has not yet finished. The base uri and config are not changed by
+ * making a request, so a client can be kept and re-used.
  *
  * <b>Depends on</b>
  * <ul>
@@ -109,10 +124,45 @@ public class AsyncHttpClient
 	 */
 	public static Cache cache = null;
 
-	private AsyncClientExecutorTask executorTask;
-	private Uri requestUri;
+	/**
+	 * In-memory cache checked before {@link #cache}. Defaults to null (off). Fresh GET responses are
+	 * served from memory without reading the disk or using the network. Share one instance between
+	 * the clients for them to share the cached responses, see {@link MemoryCache}
+	 */
+	public static MemoryCache memoryCache = null;
+
+	/**
+	 * Cache of the content decoded by response handlers. Defaults to null (off). When a handler such as
+	 * {@link net.callumtaylor.asynchttp.response.JsonResponseHandler} has fresh content in it, a GET request is not made and the handler is given
+	 * the cached content without parsing, see {@link ContentCache}
+	 */
+	public static ContentCache contentCache = null;
+
+	/**
+	 * Scheduler used for requests made by clients that do not have their own set with {@link #setScheduler(RequestScheduler)}.
+	 * Defaults to null, which runs requests straight on {@link AsyncTask#THREAD_POOL_EXECUTOR} without any limits
+	 */
+	public static RequestScheduler scheduler = null;
+
+	private final Set<AsyncClientExecutorTask> tasks = Collections.synchronizedSet(new LinkedHashSet<AsyncClientExecutorTask>());
+	private final Set<RequestBatch> batches = Collections.synchronizedSet(new LinkedHashSet<RequestBatch>());
+	private RequestScheduler requestScheduler;
+	private final Uri requestUri;
 	private long requestTimeout = 0L;
 	private boolean allowAllSsl = false;
+	private KeepAliveConfig keepAlive;
+	private Http2Config http2;
+	private boolean coalesce = false;
+	private Object[] tags;
+	private RetryPolicy retryPolicy;
+	private CircuitBreaker circuitBreaker;
+	private HedgeConfig hedge;
+	private TimeoutConfig timeouts;
+	private AdaptiveTimeoutConfig adaptiveTimeout;
+	private boolean staleWhileRevalidate = false;
+	private CachePolicy cachePolicy;
+	private long maxStale = -1;
+	private RequestPriority priority = RequestPriority.NORMAL;
 	private boolean allowRedirect = true;
 
 	/**
@@ -155,43 +205,76 @@ public class AsyncHttpClient
 	}
 
 	/**
-	 * Cancels a request if it's running
+	 * Cancels all of the requests made by this client that have not yet finished. Batches made by this
+	 * client are cancelled too, so the requests in them that have not started are skipped
 	 */
 	public void cancel()
 	{
-		if (executorTask != null && executorTask.getStatus() == Status.RUNNING)
+		List<RequestBatch> batches;
+
+		synchronized (this.batches)
+		{
+			batches = new ArrayList<RequestBatch>(this.batches);
+		}
+
+		// Cancelled first, so the requests cancelled below do not start the next requests of their batch
+		for (RequestBatch batch : batches)
+		{
+			batch.cancel();
+		}
+
+		for (AsyncClientExecutorTask task : getTasks())
+		{
+			task.cancelRequest();
+		}
+	}
+
+	/**
+	 * @return The number of requests made by this client that have not yet finished
+	 */
+	public int getActiveRequestCount()
+	{
+		return tasks.size();
+	}
+
+	private List<AsyncClientExecutorTask> getTasks()
+	{
+		synchronized (tasks)
 		{
-			executorTask.cancel(true);
+			return new ArrayList<AsyncClientExecutorTask>(tasks);
 		}
 	}
 
 	/**
 	 * Performs a GET request on the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void get(@Nullable ResponseHandler response)
+	public RequestHandle get(@Nullable ResponseHandler response)
 	{
-		get("", null, null, response);
+		return get("", null, null, response);
 	}
 
 	/**
 	 * Performs a GET request on the baseUri
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void get(String path, @Nullable ResponseHandler response)
+	public RequestHandle get(String path, @Nullable ResponseHandler response)
 	{
-		get(path, null, null, response);
+		return get(path, null, null, response);
 	}
 
 	/**
 	 * Performs a GET request on the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void get(@Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle get(@Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		get("", null, headers, response);
+		return get("", null, headers, response);
 	}
 
 	/**
@@ -199,20 +282,22 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void get(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle get(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		get("", params, headers, response);
+		return get("", params, headers, response);
 	}
 
 	/**
 	 * Performs a GET request on the baseUri
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void get(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle get(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		get(path, params, null, response);
+		return get(path, params, null, response);
 	}
 
 	/**
@@ -220,10 +305,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void get(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle get(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		get(path, null, headers, response);
+		return get(path, null, headers, response);
 	}
 
 	/**
@@ -232,55 +318,61 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void get(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle get(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		executeTask(RequestMode.GET, requestUri, headers, null, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.GET, uri, headers, null, response);
 	}
 
 	/**
 	 * Performs a OPTIONS request on the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(@Nullable ResponseHandler response)
+	public RequestHandle options(@Nullable ResponseHandler response)
 	{
-		options("", null, null, response);
+		return options("", null, null, response);
 	}
 
 	/**
 	 * Performs a OPTIONS request on the baseUri
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(String path, @Nullable ResponseHandler response)
+	public RequestHandle options(String path, @Nullable ResponseHandler response)
 	{
-		options(path, null, null, response);
+		return options(path, null, null, response);
 	}
 
 	/**
 	 * Performs a OPTIONS request on the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(@Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle options(@Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		options("", null, headers, response);
+		return options("", null, headers, response);
 	}
 
 	/**
 	 * Performs a OPTIONS request on the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle options(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		options("", params, null, response);
+		return options("", params, null, response);
 	}
 
 	/**
@@ -288,20 +380,22 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle options(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		options("", params, headers, response);
+		return options("", params, headers, response);
 	}
 
 	/**
 	 * Performs a OPTIONS request on the baseUri
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle options(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		options(path, params, null, response);
+		return options(path, params, null, response);
 	}
 
 	/**
@@ -309,10 +403,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle options(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		options(path, null, headers, response);
+		return options(path, null, headers, response);
 	}
 
 	/**
@@ -321,55 +416,61 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void options(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle options(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		executeTask(RequestMode.OPTIONS, requestUri, headers, null, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.OPTIONS, uri, headers, null, response);
 	}
 
 	/**
 	 * Performs a HEAD request on the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(@Nullable ResponseHandler response)
+	public RequestHandle head(@Nullable ResponseHandler response)
 	{
-		head("", null, null, response);
+		return head("", null, null, response);
 	}
 
 	/**
 	 * Performs a HEAD request on the baseUri
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(String path, @Nullable ResponseHandler response)
+	public RequestHandle head(String path, @Nullable ResponseHandler response)
 	{
-		head(path, null, null, response);
+		return head(path, null, null, response);
 	}
 
 	/**
 	 * Performs a HEAD request on the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(@Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle head(@Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		head("", null, headers, response);
+		return head("", null, headers, response);
 	}
 
 	/**
 	 * Performs a HEAD request on the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle head(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		head("", params, null, response);
+		return head("", params, null, response);
 	}
 
 	/**
@@ -377,20 +478,22 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle head(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		head("", params, headers, response);
+		return head("", params, headers, response);
 	}
 
 	/**
 	 * Performs a HEAD request on the baseUri
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle head(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		head(path, params, null, response);
+		return head(path, params, null, response);
 	}
 
 	/**
@@ -398,10 +501,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle head(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		head(path, null, headers, response);
+		return head(path, null, headers, response);
 	}
 
 	/**
@@ -410,55 +514,61 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void head(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle head(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		executeTask(RequestMode.HEAD, requestUri, headers, null, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.HEAD, uri, headers, null, response);
 	}
 
 	/**
 	 * Performs a DELETE request on the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(@Nullable ResponseHandler response)
+	public RequestHandle delete(@Nullable ResponseHandler response)
 	{
-		delete("", null, null, null, response);
+		return delete("", null, null, null, response);
 	}
 
 	/**
 	 * Performs a DELETE request on the baseUri
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable ResponseHandler response)
 	{
-		delete(path, null, null, null, response);
+		return delete(path, null, null, null, response);
 	}
 
 	/**
 	 * Performs a DELETE request on the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(@Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle delete(@Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		delete("", null, null, headers, response);
+		return delete("", null, null, headers, response);
 	}
 
 	/**
 	 * Performs a DELETE request on the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle delete(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		delete("", params, null, null, response);
+		return delete("", params, null, null, response);
 	}
 
 	/**
@@ -466,20 +576,22 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle delete(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		delete("", params, null, headers, response);
+		return delete("", params, null, headers, response);
 	}
 
 	/**
 	 * Performs a DELETE request on the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(@Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle delete(@Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		delete("", null, postData, null, response);
+		return delete("", null, postData, null, response);
 	}
 
 	/**
@@ -487,10 +599,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle delete(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		delete("", null, postData, headers, response);
+		return delete("", null, postData, headers, response);
 	}
 
 	/**
@@ -498,10 +611,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle delete(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		delete("", params, postData, null, response);
+		return delete("", params, postData, null, response);
 	}
 
 	/**
@@ -509,10 +623,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		delete(path, params, null, null, response);
+		return delete(path, params, null, null, response);
 	}
 
 	/**
@@ -520,10 +635,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		delete(path, null, null, headers, response);
+		return delete(path, null, null, headers, response);
 	}
 
 	/**
@@ -532,10 +648,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		delete(path, params, null, headers, response);
+		return delete(path, params, null, headers, response);
 	}
 
 	/**
@@ -543,10 +660,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		delete(path, null, postData, null, response);
+		return delete(path, null, postData, null, response);
 	}
 
 	/**
@@ -555,10 +673,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		delete(path, null, postData, headers, response);
+		return delete(path, null, postData, headers, response);
 	}
 
 	/**
@@ -567,10 +686,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		delete(path, params, postData, null, response);
+		return delete(path, params, postData, null, response);
 	}
 
 	/**
@@ -580,55 +700,61 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void delete(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle delete(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		executeTask(RequestMode.DELETE, requestUri, headers, postData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.DELETE, uri, headers, postData, response);
 	}
 
 	/**
 	 * Performs a POST request on the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(@Nullable ResponseHandler response)
+	public RequestHandle post(@Nullable ResponseHandler response)
 	{
-		post("", null, null, null, response);
+		return post("", null, null, null, response);
 	}
 
 	/**
 	 * Performs a POST request on the baseUr
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable ResponseHandler response)
 	{
-		post(path, null, null, null, response);
+		return post(path, null, null, null, response);
 	}
 
 	/**
 	 * Performs a POST request on the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle post(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		post("", params, null, null, response);
+		return post("", params, null, null, response);
 	}
 
 	/**
 	 * Performs a POST request on the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(@Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle post(@Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		post("", null, null, headers, response);
+		return post("", null, null, headers, response);
 	}
 
 	/**
@@ -636,20 +762,22 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle post(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		post("", params, null, headers, response);
+		return post("", params, null, headers, response);
 	}
 
 	/**
 	 * Performs a POST request on the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(@Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle post(@Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		post("", null, postData, null, response);
+		return post("", null, postData, null, response);
 	}
 
 	/**
@@ -657,10 +785,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle post(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		post("", null, postData, headers, response);
+		return post("", null, postData, headers, response);
 	}
 
 	/**
@@ -668,10 +797,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle post(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		post("", params, postData, null, response);
+		return post("", params, postData, null, response);
 	}
 
 	/**
@@ -679,10 +809,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		post(path, params, null, null, response);
+		return post(path, params, null, null, response);
 	}
 
 	/**
@@ -690,10 +821,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		post(path, null, null, headers, response);
+		return post(path, null, null, headers, response);
 	}
 
 	/**
@@ -702,10 +834,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		post(path, params, null, headers, response);
+		return post(path, params, null, headers, response);
 	}
 
 	/**
@@ -713,10 +846,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		post(path, null, postData, null, response);
+		return post(path, null, postData, null, response);
 	}
 
 	/**
@@ -725,10 +859,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		post(path, null, postData, headers, response);
+		return post(path, null, postData, headers, response);
 	}
 
 	/**
@@ -737,10 +872,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		post(path, params, postData, null, response);
+		return post(path, params, postData, null, response);
 	}
 
 	/**
@@ -750,55 +886,61 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void post(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle post(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		executeTask(RequestMode.POST, requestUri, headers, postData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.POST, uri, headers, postData, response);
 	}
 
 	/**
 	 * Performs a PUT request on the baseUr
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(@Nullable ResponseHandler response)
+	public RequestHandle put(@Nullable ResponseHandler response)
 	{
-		put("", null, null, null, response);
+		return put("", null, null, null, response);
 	}
 
 	/**
 	 * Performs a PUT request on the baseUr
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable ResponseHandler response)
 	{
-		put(path, null, null, null, response);
+		return put(path, null, null, null, response);
 	}
 
 	/**
 	 * Performs a PUT request on the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle put(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		put("", params, null, null, response);
+		return put("", params, null, null, response);
 	}
 
 	/**
 	 * Performs a PUT request on the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(@Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle put(@Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		put("", null, null, headers, response);
+		return put("", null, null, headers, response);
 	}
 
 	/**
@@ -806,20 +948,22 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle put(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		put("", params, null, headers, response);
+		return put("", params, null, headers, response);
 	}
 
 	/**
 	 * Performs a PUT request on the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(@Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle put(@Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		put("", null, postData, null, response);
+		return put("", null, postData, null, response);
 	}
 
 	/**
@@ -827,10 +971,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle put(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		put("", null, postData, headers, response);
+		return put("", null, postData, headers, response);
 	}
 
 	/**
@@ -838,10 +983,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle put(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		put("", params, postData, null, response);
+		return put("", params, postData, null, response);
 	}
 
 	/**
@@ -849,10 +995,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		put(path, params, null, null, response);
+		return put(path, params, null, null, response);
 	}
 
 	/**
@@ -860,10 +1007,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		put(path, null, null, headers, response);
+		return put(path, null, null, headers, response);
 	}
 
 	/**
@@ -872,10 +1020,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		put(path, params, null, headers, response);
+		return put(path, params, null, headers, response);
 	}
 
 	/**
@@ -883,10 +1032,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		put(path, null, postData, null, response);
+		return put(path, null, postData, null, response);
 	}
 
 	/**
@@ -895,10 +1045,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		put(path, null, postData, headers, response);
+		return put(path, null, postData, headers, response);
 	}
 
 	/**
@@ -907,10 +1058,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		put(path, params, postData, null, response);
+		return put(path, params, postData, null, response);
 	}
 
 	/**
@@ -920,55 +1072,61 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void put(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle put(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		executeTask(RequestMode.PUT, requestUri, headers, postData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.PUT, uri, headers, postData, response);
 	}
 
 	/**
 	 * Performs a PATCH request on the baseUr
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(@Nullable ResponseHandler response)
+	public RequestHandle patch(@Nullable ResponseHandler response)
 	{
-		patch("", null, null, null, response);
+		return patch("", null, null, null, response);
 	}
 
 	/**
 	 * Performs a PATCH request on the baseUr
 	 * @param path The path extended from the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable ResponseHandler response)
 	{
-		patch(path, null, null, null, response);
+		return patch(path, null, null, null, response);
 	}
 
 	/**
 	 * Performs a PATCH request on the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle patch(@Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		patch("", params, null, null, response);
+		return patch("", params, null, null, response);
 	}
 
 	/**
 	 * Performs a PATCH request on the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(@Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle patch(@Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		patch("", null, null, headers, response);
+		return patch("", null, null, headers, response);
 	}
 
 	/**
@@ -976,20 +1134,22 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle patch(@Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		patch("", params, null, headers, response);
+		return patch("", params, null, headers, response);
 	}
 
 	/**
 	 * Performs a PATCH request on the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(@Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle patch(@Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		patch("", null, postData, null, response);
+		return patch("", null, postData, null, response);
 	}
 
 	/**
@@ -997,10 +1157,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle patch(@Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		patch("", null, postData, headers, response);
+		return patch("", null, postData, headers, response);
 	}
 
 	/**
@@ -1008,10 +1169,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle patch(@Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		patch("", params, postData, null, response);
+		return patch("", params, postData, null, response);
 	}
 
 	/**
@@ -1019,10 +1181,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param params The Query params to append to the baseUri
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable List<NameValuePair> params, @Nullable ResponseHandler response)
 	{
-		patch(path, params, null, null, response);
+		return patch(path, params, null, null, response);
 	}
 
 	/**
@@ -1030,10 +1193,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		patch(path, null, null, headers, response);
+		return patch(path, null, null, headers, response);
 	}
 
 	/**
@@ -1042,10 +1206,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		patch(path, params, null, headers, response);
+		return patch(path, params, null, headers, response);
 	}
 
 	/**
@@ -1053,10 +1218,11 @@ public class AsyncHttpClient
 	 * @param path The path extended from the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		patch(path, null, postData, null, response);
+		return patch(path, null, postData, null, response);
 	}
 
 	/**
@@ -1065,10 +1231,11 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
-		patch(path, null, postData, headers, response);
+		return patch(path, null, postData, headers, response);
 	}
 
 	/**
@@ -1077,10 +1244,11 @@ public class AsyncHttpClient
 	 * @param params The Query params to append to the baseUri
 	 * @param postData The post data entity to post to the server
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable ResponseHandler response)
 	{
-		patch(path, params, postData, null, response);
+		return patch(path, params, postData, null, response);
 	}
 
 	/**
@@ -1090,29 +1258,211 @@ public class AsyncHttpClient
 	 * @param postData The post data entity to post to the server
 	 * @param headers The request headers for the connection
 	 * @param response The response handler for the request
+	 * @return The handle for the request
 	 */
-	public void patch(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
+	public RequestHandle patch(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @Nullable ResponseHandler response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		executeTask(RequestMode.PATCH, requestUri, headers, postData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.PATCH, uri, headers, postData, response);
 	}
 
-	@TargetApi(Build.VERSION_CODES.HONEYCOMB)
-	private void executeTask(RequestMode mode, Uri uri, @Nullable Headers headers, RequestBody sendData, @Nullable ResponseHandler response)
+	/**
+	 * Executes a batch of requests, with at most {@code parallelism} in flight at once. Each request
+	 * receives the usual callbacks on its own response handler, and the listener is called once the
+	 * whole batch has finished, with the results in the same order as the requests.
+	 * <p>
+	 * Example fetching items by id, 4 at a time
+	 * <pre>
+	List&lt;BatchRequest&lt;JsonElement&gt;&gt; requests = new ArrayList&lt;&gt;();
+	for (String id : ids)
+	{
+		requests.add(new BatchRequest&lt;&gt;(RequestMode.GET, &quot;items/&quot; + id, new JsonResponseHandler()));
+	}
+
+	client.batch(requests, 4, false, new RequestBatch.Listener&lt;JsonElement&gt;()
+	{
+		@Override public void onComplete(RequestBatch&lt;JsonElement&gt; batch)
+		{
+			List&lt;JsonElement&gt; items = batch.getResults();
+		}
+	});
+	 * </pre>
+	 * @param requests The requests to execute
+	 * @param parallelism The maximum number of requests in flight at once
+	 * @param failFast True to cancel the rest of the batch when a request fails
+	 * @param listener The listener for the completion of the batch
+	 * @return The batch, which can be used to cancel it
+	 */
+	public <E> RequestBatch<E> batch(List<BatchRequest<E>> requests, int parallelism, boolean failFast, @Nullable RequestBatch.Listener<E> listener)
+	{
+		RequestBatch<E> batch = new RequestBatch<E>(requests, failFast, listener);
+		batches.add(batch);
+
+		for (int index = 0; index < Math.max(1, parallelism); index++)
+		{
+			executeNext(batch);
+		}
+
+		if (batch.complete())
+		{
+			batches.remove(batch);
+		}
+
+		return batch;
+	}
+
+	private <E> void executeNext(final RequestBatch<E> batch)
+	{
+		final int index = batch.next();
+
+		if (index < 0)
+		{
+			return;
+		}
+
+		BatchRequest<E> request = batch.getRequests().get(index);
+		Uri uri = requestUri;
+		if (!TextUtils.isEmpty(request.path))
+		{
+			uri = Uri.withAppendedPath(uri, request.path);
+		}
+
+		uri = RequestUtil.appendParams(uri, request.params);
+
+		AsyncClientExecutorTask executorTask = executeTask(request.mode, uri, request.headers, request.body, request.response, null, new Runnable()
+		{
+			@Override public void run()
+			{
+				if (batch.finish(index))
+				{
+					batches.remove(batch);
+				}
+				else
+				{
+					executeNext(batch);
+				}
+			}
+		});
+
+		batch.setTask(index, executorTask.clientTask);
+	}
+
+	/**
+	 * Makes a request that returns a future instead of calling back on the main thread
+	 * @param mode The request method
+	 * @param path The path extended from the base uri
+	 * @param response The response handler used to generate the content of the future
+	 * @return The future for the content of the request
+	 */
+	public <T> ResponseFuture<T> future(RequestMode mode, String path, ResponseHandler<T> response)
 	{
-		if (executorTask != null || (executorTask != null && (executorTask.getStatus() == Status.RUNNING || executorTask.getStatus() == Status.PENDING)))
+		return future(mode, path, null, null, null, response);
+	}
+
+	/**
+	 * Makes a request that returns a future instead of calling back on the main thread. The future
+	 * completes on the request thread as soon as the content has been generated, and can be chained
+	 * with {@link ResponseFuture#then(ResponseFuture.Continuation, java.util.concurrent.Executor)}.
+	 * Cancelling the future cancels the request.
+	 *
+	 * The response handler still receives its callbacks as normal.
+	 * @param mode The request method
+	 * @param path The path extended from the base uri
+	 * @param params The Query params to append to the url
+	 * @param postData The request body, for POST, PUT, DELETE and PATCH requests
+	 * @param headers The request headers for the connection
+	 * @param response The response handler used to generate the content of the future
+	 * @return The future for the content of the request
+	 */
+	public <T> ResponseFuture<T> future(RequestMode mode, String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, ResponseHandler<T> response)
+	{
+		Uri uri = requestUri;
+		if (!TextUtils.isEmpty(path))
 		{
-			executorTask.cancel(true);
-			executorTask = null;
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		executorTask = new AsyncClientExecutorTask(mode, uri, headers, sendData, response, allowRedirect, allowAllSsl, requestTimeout);
-		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
+		uri = RequestUtil.appendParams(uri, params);
+
+		ResponseFuture<T> future = new ResponseFuture<T>();
+		final AsyncClientExecutorTask executorTask = executeTask(mode, uri, headers, postData, response, future, null);
+		future.setOnCancel(new Runnable()
+		{
+			@Override public void run()
+			{
+				executorTask.cancelRequest();
+			}
+		});
+
+		return future;
+	}
+
+	private RequestHandle executeTask(RequestMode mode, Uri uri, @Nullable Headers headers, RequestBody sendData, @Nullable ResponseHandler response)
+	{
+		return new RequestHandle(executeTask(mode, uri, headers, sendData, response, null, null));
+	}
+
+	/**
+	 * @param future Completed on the request thread once the request has finished
+	 * @param onComplete Called on the main thread after the request has finished or been cancelled
+	 */
+	@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+	private AsyncClientExecutorTask executeTask(RequestMode mode, Uri uri, @Nullable Headers headers, RequestBody sendData, @Nullable ResponseHandler response, @Nullable ResponseFuture future, @Nullable final Runnable onComplete)
+	{
+		AsyncClientExecutorTask executorTask = new AsyncClientExecutorTask(mode, uri, headers, sendData, response, allowRedirect, allowAllSsl, requestTimeout)
+		{
+			@Override protected void onPostExecute(Void aVoid)
+			{
+				tasks.remove(this);
+				super.onPostExecute(aVoid);
+
+				if (onComplete != null)
+				{
+					onComplete.run();
+				}
+			}
+
+			@Override protected void onCancelled()
+			{
+				tasks.remove(this);
+				super.onCancelled();
+
+				if (onComplete != null)
+				{
+					onComplete.run();
+				}
+			}
+		};
+		executorTask.clientTask.setMemoryCache(memoryCache);
+		executorTask.clientTask.setContentCache(contentCache);
+		executorTask.clientTask.setKeepAlive(keepAlive);
+		executorTask.clientTask.setHttp2(http2);
+		executorTask.clientTask.setCoalesce(coalesce);
+		executorTask.clientTask.setTags(tags);
+		executorTask.clientTask.setRetryPolicy(retryPolicy);
+		executorTask.clientTask.setCircuitBreaker(circuitBreaker);
+		executorTask.clientTask.setHedge(hedge);
+		executorTask.clientTask.setTimeouts(timeouts);
+		executorTask.clientTask.setAdaptiveTimeout(adaptiveTimeout);
+		executorTask.clientTask.setStaleWhileRevalidate(staleWhileRevalidate);
+		executorTask.clientTask.setCachePolicy(cachePolicy, maxStale);
+		executorTask.future = future;
+
+		tasks.add(executorTask);
+
+		RequestScheduler scheduler = requestScheduler != null ? requestScheduler : AsyncHttpClient.scheduler;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB && scheduler != null)
+		{
+			executorTask.scheduledRequest = scheduler.newRequest(uri.getHost(), priority);
+			executorTask.executeOnExecutor(executorTask.scheduledRequest);
+		}
+		else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
 		{
 			executorTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
 		}
@@ -1120,14 +1470,35 @@ public class AsyncHttpClient
 		{
 			executorTask.execute();
 		}
+
+		return executorTask;
 	}
 
 	/**
 	 * Delegate wrapper class for ClientExecutorTask inside an AsyncTask
 	 */
-	protected static class AsyncClientExecutorTask extends AsyncTask<Void, Packet, Void>
+	protected static class AsyncClientExecutorTask extends AsyncTask<Void, Void, Void>
 	{
-		private ClientExecutorTask clientTask;
+		protected ClientExecutorTask clientTask;
+		protected final ProgressChannel progress = new ProgressChannel()
+		{
+			@Override protected void onProgress(long length, long total, boolean isDownload)
+			{
+				if (clientTask.response != null && !isCancelled())
+				{
+					if (isDownload)
+					{
+						clientTask.response.onByteChunkReceivedProcessed(length, total);
+					}
+					else
+					{
+						clientTask.response.onByteChunkSentProcessed(length, total);
+					}
+				}
+			}
+		};
+		protected RequestScheduler.ScheduledRequest scheduledRequest;
+		protected ResponseFuture future;
 
 		public AsyncClientExecutorTask(RequestMode mode, Uri request, @Nullable Headers headers, @Nullable RequestBody postData, @Nullable ResponseHandler response, boolean allowRedirect, boolean allowAllSsl, long requestTimeout)
 		{
@@ -1140,16 +1511,41 @@ public class AsyncHttpClient
 
 			clientTask = new ClientExecutorTask(mode, request, headers, postData, response, allowRedirect, allowAllSsl, requestTimeout, cache)
 			{
-				@Override public void transferProgress(Packet packet)
+				@Override public void cancel()
 				{
-					publishProgress(packet);
+					super.cancel();
+
+					// Stops the task from running if it is still queued
+					AsyncClientExecutorTask.this.cancel(true);
+				}
+
+				@Override public void transferProgress(long length, long total, boolean isDownload, boolean isFinal)
+				{
+					if (isProgressDue(length, total, isDownload, isFinal))
+					{
+						progress.publish(length, total, isDownload);
+					}
 				}
 			};
 		}
 
+		/**
+		 * Cancels the task, and flags the request as cancelled straight away rather than waiting
+		 * for {@link #onCancelled()} to be posted back
+		 */
+		public void cancelRequest()
+		{
+			clientTask.cancel();
+		}
+
 		@Override protected void onCancelled()
 		{
 			clientTask.cancel();
+
+			if (future != null)
+			{
+				future.cancel(false);
+			}
 		}
 
 		@Override protected void onPreExecute()
@@ -1160,6 +1556,13 @@ public class AsyncHttpClient
 		@Override protected Void doInBackground(Void... params)
 		{
 			clientTask.executeTask();
+
+			// Completed here rather than in onPostExecute so it does not wait for the main thread
+			if (future != null)
+			{
+				future.complete(clientTask.response, clientTask.isCancelled());
+			}
+
 			return null;
 		}
 
@@ -1167,30 +1570,183 @@ public class AsyncHttpClient
 		{
 			clientTask.postExecute();
 		}
+	}
+
+	/**
+	 * Sets to allow all SSL. This is insecure, avoid using this method.
+	 * @param allow Allow all SSL true/false
+	 */
+	public void setAllowAllSsl(boolean allow)
+	{
+		this.allowAllSsl = allow;
+	}
+
+	/**
+	 * Enables HTTP keep-alive, re-using idle connections from a shared pool instead of sending
+	 * {@code Connection: close} with every request. Off by default.
+	 * @param keepAlive The connection pool config, or null to disable keep-alive
+	 */
+	public void setKeepAlive(@Nullable KeepAliveConfig keepAlive)
+	{
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Enables HTTP/2. Concurrent requests to the same host are multiplexed over a single connection.
+	 * Use {@link Http2Config#priorKnowledge} for cleartext servers that are known to support HTTP/2.
+	 * @param http2 The HTTP/2 config, or null to use the default protocol negotiation
+	 */
+	public void setHttp2(@Nullable Http2Config http2)
+	{
+		this.http2 = http2;
+	}
+
+	/**
+	 * Sets the scheduler used to run requests made by this client, overriding {@link #scheduler}. Use
+	 * this to run requests on your own executor, and to limit how many can be in flight at once.
+	 * @param scheduler The scheduler to use, or null to use the default
+	 */
+	public void setScheduler(@Nullable RequestScheduler scheduler)
+	{
+		this.requestScheduler = scheduler;
+	}
 
-		@Override protected void onProgressUpdate(Packet... values)
+	/**
+	 * Sets the priority of requests made by this client. Requests that are still waiting in the
+	 * {@link RequestScheduler} queue are re-prioritised straight away, so this can be used to promote
+	 * content that has just scrolled on screen, or demote content that has scrolled off. Use
+	 * {@link RequestHandle#setPriority(RequestPriority)} to change a single request.
+	 *
+	 * This only has an effect when a scheduler with limits is in use.
+	 * @param priority The request priority. Defaults to {@link RequestPriority#NORMAL}
+	 */
+	public void setPriority(RequestPriority priority)
+	{
+		this.priority = priority == null ? RequestPriority.NORMAL : priority;
+
+		for (AsyncClientExecutorTask task : getTasks())
 		{
-			if (clientTask.response != null && !isCancelled())
+			if (task.scheduledRequest != null)
 			{
-				if (values[0].isDownload)
-				{
-					clientTask.response.onByteChunkReceivedProcessed(values[0].length, values[0].total);
-				}
-				else
-				{
-					clientTask.response.onByteChunkSentProcessed(values[0].length, values[0].total);
-				}
+				task.scheduledRequest.setPriority(this.priority);
 			}
 		}
 	}
 
 	/**
-	 * Sets to allow all SSL. This is insecure, avoid using this method.
-	 * @param allow Allow all SSL true/false
+	 * Enables coalescing of identical GET and HEAD requests. Requests with the same url, headers and
+	 * client settings that are in flight at the same time share a single network call and
+	 * body, see {@link RequestCoalescer}. Off by default. Not suitable for large downloads.
+	 * @param coalesce True to share calls between identical in-flight requests
 	 */
-	public void setAllowAllSsl(boolean allow)
+	public void setCoalesce(boolean coalesce)
 	{
-		this.allowAllSsl = allow;
+		this.coalesce = coalesce;
+	}
+
+	/**
+	 * Tags requests made by this client after this is called, so they can be cancelled as a group
+	 * with {@link RequestTags#cancel(Object)}, along with requests from any other client with the same tag.
+	 * @param tags The tags, such as the owning screen, or null for none
+	 */
+	public void setTags(@Nullable Object... tags)
+	{
+		this.tags = tags;
+	}
+
+	/**
+	 * Retries requests that fail with a transient error, such as a timeout or a 503 response. Off by default.
+	 * Share a single policy between clients for its {@link RetryBudget} to apply to all of them.
+	 * @param retryPolicy The retry policy, or null to not retry
+	 */
+	public void setRetryPolicy(@Nullable RetryPolicy retryPolicy)
+	{
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Sets the circuit breaker requests made by this client go through. Requests to a host whose breaker
+	 * is open fail straight away, with a {@link CircuitOpenException} in {@link ConnectionInfo#exception}.
+	 * Share a single breaker between clients for them to share the state of each host.
+	 * @param circuitBreaker The circuit breaker, or null to not use one
+	 */
+	public void setCircuitBreaker(@Nullable CircuitBreaker circuitBreaker)
+	{
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Enables hedging for GET and HEAD requests made by this client. When no response has been received
+	 * after the hedge delay, a second identical request is sent, the first response is used and the
+	 * other request is cancelled. {@link ConnectionInfo#hedged} and {@link ConnectionInfo#hedgeWon}
+	 * show if the hedged request was sent and if it won.
+	 * @param hedge The hedge config, or null to not hedge
+	 */
+	public void setHedge(@Nullable HedgeConfig hedge)
+	{
+		this.hedge = hedge;
+	}
+
+	/**
+	 * Sets separate connect, read and write timeouts, and an overall deadline, for the requests made
+	 * by this client after this is called. This replaces the single timeout passed to the constructor.
+	 * The deadline covers the whole request, including reading the response body and any retries or
+	 * hedged requests, so a server that sends the response slowly cannot hold the request open forever.
+	 * Change the timeouts between requests to give each request its own.
+	 * @param timeouts The timeouts to use, or null to use the timeout passed to the constructor
+	 */
+	public void setTimeouts(@Nullable TimeoutConfig timeouts)
+	{
+		this.timeouts = timeouts;
+	}
+
+	/**
+	 * Sets the read timeout of requests made by this client from the recent latency of each endpoint,
+	 * as a multiple of a latency percentile clamped between a minimum and maximum. The read timeout
+	 * that was used is in {@link ConnectionInfo#readTimeout}.
+	 * @param adaptiveTimeout The adaptive timeout config, or null to use a fixed read timeout
+	 */
+	public void setAdaptiveTimeout(@Nullable AdaptiveTimeoutConfig adaptiveTimeout)
+	{
+		this.adaptiveTimeout = adaptiveTimeout;
+	}
+
+	/**
+	 * Sets how GET requests made by this client after this is called use cached responses, see {@link CachePolicy}.
+	 * The policy replaces any {@code Cache-Control} header of the request. Stale responses are used without a limit
+	 * @param cachePolicy The cache policy, or null to follow the normal caching rules
+	 */
+	public void setCachePolicy(@Nullable CachePolicy cachePolicy)
+	{
+		setCachePolicy(cachePolicy, -1, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sets how GET requests made by this client after this is called use cached responses, see {@link CachePolicy}.
+	 * The policy replaces any {@code Cache-Control} header of the request. With {@link CachePolicy#NETWORK_FIRST_FALLBACK_CACHE},
+	 * a cached response within the max-stale is delivered when the connection fails or times out, with
+	 * {@link ConnectionInfo#cacheFallback} set. Change the policy between requests to give each request its own.
+	 * @param cachePolicy The cache policy, or null to follow the normal caching rules
+	 * @param maxStale How long a response can be used after it becomes stale, or -1 for no limit
+	 * @param unit The unit of the max-stale
+	 */
+	public void setCachePolicy(@Nullable CachePolicy cachePolicy, long maxStale, TimeUnit unit)
+	{
+		this.cachePolicy = cachePolicy;
+		this.maxStale = maxStale < 0 ? -1 : unit.toMillis(maxStale);
+	}
+
+	/**
+	 * Serves stale GET responses from {@link #cache}. A response that is stale but within the {@code stale-while-revalidate}
+	 * window of its {@code Cache-Control} is delivered straight away, with {@link ConnectionInfo#stale} set, and is
+	 * revalidated in the background after {@link ResponseHandler#onFinish()}. If the content has changed, the new response
+	 * is decoded into a new handler and passed to {@link ResponseHandler#onContentChanged(ResponseHandler)}. A response within its
+	 * {@code stale-if-error} window is delivered in place of a request that fails or returns a 5xx. Off by default.
+	 * @param staleWhileRevalidate True to serve stale responses
+	 */
+	public void setStaleWhileRevalidate(boolean staleWhileRevalidate)
+	{
+		this.staleWhileRevalidate = staleWhileRevalidate;
 	}
 
 	/**
@@ -0,0 +1,372 @@
+package net.callumtaylor.asynchttp;
+
+import android.support.annotation.Nullable;
+
+import net.callumtaylor.asynchttp.obj.CircuitOpenException;
+import net.callumtaylor.asynchttp.obj.CircuitState;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-host circuit breaker. The outcome of the most recent requests to each host is kept in a sliding
+ * window, and when too many of them failed or were slow, the breaker for that host opens. Whilst
+ * open, requests to the host fail straight away with a {@link CircuitOpenException} instead of
+ * waiting for the full timeout. After {@link #openDuration} a limited number of trial requests are let
+ * through, and the breaker closes again if they all succeed.
+ *
+ * A request fails if it throws an IOException or receives a 5xx response. Share a single breaker
+ * between clients for them to share the state of each host, for example
+ * <pre>
+ 	CircuitBreaker breaker = new CircuitBreaker();
+	breaker.setListener(new CircuitBreaker.Listener()
+	{
+		@Override public void onStateChanged(String host, CircuitState from, CircuitState to)
+		{
+			Log.w("Network", host + " is now " + to);
+		}
+	});
+
+	AsyncHttpClient client = new AsyncHttpClient("http://example.com/");
+	client.setCircuitBreaker(breaker);
+ * </pre>
+ */
+public class CircuitBreaker
+{
+	/**
+	 * Listener for state changes of a host
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called on the thread of the request that caused the change
+		 * @param host The host that changed state
+		 * @param from The previous state
+		 * @param to The new state
+		 */
+		public void onStateChanged(String host, CircuitState from, CircuitState to);
+	}
+
+	/**
+	 * The number of recent requests to each host that are considered
+	 */
+	public final int windowSize;
+
+	/**
+	 * The minimum number of requests in the window before the breaker can open
+	 */
+	public final int minimumRequests;
+
+	/**
+	 * The fraction of failed requests in the window, between 0 and 1, that opens the breaker
+	 */
+	public final float failureRateThreshold;
+
+	/**
+	 * The time in milliseconds after which a request counts as slow
+	 */
+	public final long slowRequestDuration;
+
+	/**
+	 * The fraction of slow requests in the window, between 0 and 1, that opens the breaker
+	 */
+	public final float slowRequestRateThreshold;
+
+	/**
+	 * The time in milliseconds the breaker stays open before letting trial requests through
+	 */
+	public final long openDuration;
+
+	/**
+	 * The number of trial requests let through when half-open
+	 */
+	public final int halfOpenRequests;
+
+	private final Map<String, HostCircuit> circuits = new HashMap<String, HostCircuit>();
+	private volatile Listener listener;
+
+	/**
+	 * Creates a breaker that opens for 30 seconds when half of the last 20 requests failed, or 80% took
+	 * longer than 10 seconds, with 3 trial requests when half-open
+	 */
+	public CircuitBreaker()
+	{
+		this(20, 10, 0.5f, 10000, 0.8f, 30000, TimeUnit.MILLISECONDS, 3);
+	}
+
+	/**
+	 * @param windowSize The number of recent requests to each host that are considered
+	 * @param minimumRequests The minimum number of requests in the window before the breaker can open
+	 * @param failureRateThreshold The fraction of failed requests that opens the breaker
+	 * @param slowRequestDuration The time after which a request counts as slow
+	 * @param slowRequestRateThreshold The fraction of slow requests that opens the breaker
+	 * @param openDuration The time the breaker stays open before letting trial requests through
+	 * @param timeUnit The unit of slowRequestDuration and openDuration
+	 * @param halfOpenRequests The number of trial requests let through when half-open
+	 */
+	public CircuitBreaker(int windowSize, int minimumRequests, float failureRateThreshold, long slowRequestDuration, float slowRequestRateThreshold, long openDuration, TimeUnit timeUnit, int halfOpenRequests)
+	{
+		this.windowSize = Math.max(1, windowSize);
+		this.minimumRequests = Math.max(1, Math.min(minimumRequests, this.windowSize));
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowRequestDuration = timeUnit.toMillis(slowRequestDuration);
+		this.slowRequestRateThreshold = slowRequestRateThreshold;
+		this.openDuration = timeUnit.toMillis(openDuration);
+		this.halfOpenRequests = Math.max(1, halfOpenRequests);
+	}
+
+	/**
+	 * Sets the listener for state changes
+	 * @param listener The listener, or null to remove it
+	 */
+	public void setListener(@Nullable Listener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * @param host The host to look up
+	 * @return The current state of the host
+	 */
+	public CircuitState getState(String host)
+	{
+		synchronized (circuits)
+		{
+			HostCircuit circuit = circuits.get(host);
+
+			if (circuit == null)
+			{
+				return CircuitState.CLOSED;
+			}
+
+			// Moving to half-open only happens when a request is made, so report it here as well
+			if (circuit.state == CircuitState.OPEN && circuit.hasOpenExpired())
+			{
+				return CircuitState.HALF_OPEN;
+			}
+
+			return circuit.state;
+		}
+	}
+
+	/**
+	 * Closes the breaker for every host and clears their history
+	 */
+	public void reset()
+	{
+		synchronized (circuits)
+		{
+			circuits.clear();
+		}
+	}
+
+	/**
+	 * Checks if a request can be made to the host. Every request that is allowed must be followed
+	 * by a call to {@link #onSuccess(String, long)}, {@link #onFailure(String, long)} or {@link #onIgnored(String)}
+	 * @param host The host of the request
+	 * @return True if the request can be made, false if it should fail straight away
+	 */
+	public boolean allowRequest(String host)
+	{
+		CircuitState from = null;
+		boolean allowed;
+
+		synchronized (circuits)
+		{
+			HostCircuit circuit = getCircuit(host);
+
+			if (circuit.state == CircuitState.OPEN && circuit.hasOpenExpired())
+			{
+				from = circuit.state;
+				circuit.halfOpen();
+			}
+
+			if (circuit.state == CircuitState.HALF_OPEN)
+			{
+				allowed = circuit.trialsStarted < halfOpenRequests;
+
+				if (allowed)
+				{
+					circuit.trialsStarted++;
+				}
+			}
+			else
+			{
+				allowed = circuit.state == CircuitState.CLOSED;
+			}
+		}
+
+		if (from != null)
+		{
+			notifyListener(host, from, CircuitState.HALF_OPEN);
+		}
+
+		return allowed;
+	}
+
+	/**
+	 * Records a successful request
+	 * @param host The host of the request
+	 * @param duration The time in milliseconds the request took to respond
+	 */
+	public void onSuccess(String host, long duration)
+	{
+		record(host, false, duration >= slowRequestDuration);
+	}
+
+	/**
+	 * Records a failed request
+	 * @param host The host of the request
+	 * @param duration The time in milliseconds the request took to fail
+	 */
+	public void onFailure(String host, long duration)
+	{
+		record(host, true, duration >= slowRequestDuration);
+	}
+
+	/**
+	 * Records a request that was allowed but did not complete, such as one that was cancelled, so it
+	 * does not count towards the state of the host
+	 * @param host The host of the request
+	 */
+	public void onIgnored(String host)
+	{
+		synchronized (circuits)
+		{
+			HostCircuit circuit = getCircuit(host);
+
+			if (circuit.state == CircuitState.HALF_OPEN && circuit.trialsStarted > 0)
+			{
+				circuit.trialsStarted--;
+			}
+		}
+	}
+
+	private void record(String host, boolean failed, boolean slow)
+	{
+		CircuitState from;
+		CircuitState to;
+
+		synchronized (circuits)
+		{
+			HostCircuit circuit = getCircuit(host);
+			from = circuit.state;
+
+			if (circuit.state == CircuitState.HALF_OPEN)
+			{
+				if (failed || slow)
+				{
+					circuit.open();
+				}
+				else if (++circuit.trialsSucceeded >= halfOpenRequests)
+				{
+					circuit.close();
+				}
+			}
+			else if (circuit.state == CircuitState.CLOSED)
+			{
+				circuit.add(failed, slow);
+
+				if (circuit.count >= minimumRequests
+					&& (circuit.failureCount >= failureRateThreshold * circuit.count || circuit.slowCount >= slowRequestRateThreshold * circuit.count))
+				{
+					circuit.open();
+				}
+			}
+
+			to = circuit.state;
+		}
+
+		if (from != to)
+		{
+			notifyListener(host, from, to);
+		}
+	}
+
+	private HostCircuit getCircuit(String host)
+	{
+		HostCircuit circuit = circuits.get(host);
+
+		if (circuit == null)
+		{
+			circuit = new HostCircuit();
+			circuits.put(host, circuit);
+		}
+
+		return circuit;
+	}
+
+	private void notifyListener(String host, CircuitState from, CircuitState to)
+	{
+		Listener listener = this.listener;
+
+		if (listener != null)
+		{
+			listener.onStateChanged(host, from, to);
+		}
+	}
+
+	/**
+	 * State and sliding window of outcomes for a single host
+	 */
+	private class HostCircuit
+	{
+		private CircuitState state = CircuitState.CLOSED;
+		private final boolean[] failures = new boolean[windowSize];
+		private final boolean[] slows = new boolean[windowSize];
+		private int position = 0;
+		private int count = 0;
+		private int failureCount = 0;
+		private int slowCount = 0;
+		private long openedAt = 0;
+		private int trialsStarted = 0;
+		private int trialsSucceeded = 0;
+
+		private void add(boolean failed, boolean slow)
+		{
+			if (count == windowSize)
+			{
+				failureCount -= failures[position] ? 1 : 0;
+				slowCount -= slows[position] ? 1 : 0;
+			}
+			else
+			{
+				count++;
+			}
+
+			failures[position] = failed;
+			slows[position] = slow;
+			failureCount += failed ? 1 : 0;
+			slowCount += slow ? 1 : 0;
+			position = (position + 1) % windowSize;
+		}
+
+		private boolean hasOpenExpired()
+		{
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAt) >= openDuration;
+		}
+
+		private void open()
+		{
+			state = CircuitState.OPEN;
+			openedAt = System.nanoTime();
+		}
+
+		private void halfOpen()
+		{
+			state = CircuitState.HALF_OPEN;
+			trialsStarted = 0;
+			trialsSucceeded = 0;
+		}
+
+		private void close()
+		{
+			state = CircuitState.CLOSED;
+			position = 0;
+			count = 0;
+			failureCount = 0;
+			slowCount = 0;
+		}
+	}
+}
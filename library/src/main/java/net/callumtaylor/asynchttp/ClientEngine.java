@@ -0,0 +1,575 @@
+package net.callumtaylor.asynchttp;
+
+import android.os.Build;
+
+import net.callumtaylor.asynchttp.obj.HostLimiter;
+import net.callumtaylor.asynchttp.obj.Http2Config;
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
+import net.callumtaylor.asynchttp.obj.TLSSocketFactory;
+import net.callumtaylor.asynchttp.obj.TimeoutConfig;
+
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Process-wide registry of {@link OkHttpClient} instances used by {@link ClientExecutorTask}.
+ *
+ * Every client handed out is derived from a single root client, so they all share the same
+ * connection pool and dispatcher. Clients are keyed by their effective {@link Config}, so two
+ * requests with the same redirect, SSL, timeout and cache settings will use the exact same
+ * client instance.
+ *
+ * Connections are only kept alive when the request has a {@link KeepAliveConfig}. Requests with equal
+ * keep-alive configs share the same idle connection pool. The number of requests that were served by
+ * a pooled connection can be checked with {@link #connectionHitCount()} and {@link #connectionMissCount()}
+ *
+ * When a request has a {@link Http2Config}, concurrent requests to the same host are multiplexed
+ * over a single connection, optionally limited to a maximum number of concurrent streams.
+ *
+ * When a request has a {@link MemoryCache}, it is checked before the disk cache, and fresh responses
+ * are served from memory without touching the disk or the network.
+ *
+ * Timeouts that can change with every request are not part of the config. The {@link TimeoutConfig},
+ * {@link ReadTimeout} and {@link Deadline} of a request are set as request tags, and applied to each
+ * call by {@link #newCall(OkHttpClient, Request)} and an interceptor of the root client.
+ */
+public class ClientEngine
+{
+	private static final AtomicInteger connectionHitCount = new AtomicInteger();
+	private static final AtomicInteger connectionMissCount = new AtomicInteger();
+	private static final Set<Connection> seenConnections = Collections.newSetFromMap(new WeakHashMap<Connection, Boolean>());
+
+	private static final OkHttpClient rootClient = new OkHttpClient.Builder()
+		.dispatcher(createDispatcher())
+		.addInterceptor(new Interceptor()
+		{
+			@Override public Response intercept(Chain chain) throws IOException
+			{
+				TimeoutConfig timeouts = chain.request().tag(TimeoutConfig.class);
+				ReadTimeout readTimeout = chain.request().tag(ReadTimeout.class);
+
+				if (timeouts != null)
+				{
+					chain = chain.withConnectTimeout((int)timeouts.connectTimeout, TimeUnit.MILLISECONDS)
+						.withReadTimeout((int)timeouts.readTimeout, TimeUnit.MILLISECONDS)
+						.withWriteTimeout((int)timeouts.writeTimeout, TimeUnit.MILLISECONDS);
+				}
+
+				if (readTimeout != null)
+				{
+					chain = chain.withReadTimeout((int)readTimeout.timeout, TimeUnit.MILLISECONDS);
+				}
+
+				return chain.proceed(chain.request());
+			}
+		})
+		.addNetworkInterceptor(new Interceptor()
+		{
+			@Override public Response intercept(Chain chain) throws IOException
+			{
+				recordConnection(chain.connection());
+				return chain.proceed(chain.request());
+			}
+		})
+		.build();
+
+	private static final Map<Config, OkHttpClient> clients = new HashMap<Config, OkHttpClient>();
+	private static final Map<KeepAliveConfig, ConnectionPool> connectionPools = new HashMap<KeepAliveConfig, ConnectionPool>();
+	private static final Map<Object, HostLimiter> hostLimiters = new HashMap<Object, HostLimiter>();
+
+	private static SSLSocketFactory tlsSocketFactory;
+	private static X509TrustManager defaultTrustManager;
+	private static SSLSocketFactory allowAllSocketFactory;
+	private static X509TrustManager allowAllTrustManager;
+
+	/**
+	 * Gets the shared client for the given config, creating it if one does not exist yet
+	 * @param config The effective config of the request
+	 * @return The shared client instance
+	 */
+	public static synchronized OkHttpClient getClient(Config config)
+	{
+		OkHttpClient client = clients.get(config);
+
+		if (client == null)
+		{
+			client = createClient(config);
+			clients.put(config.copy(), client);
+		}
+
+		return client;
+	}
+
+	/**
+	 * Creates a call for the request, with a timeout of the time left until the {@link Deadline} of the
+	 * request, if it has one. Every call made for a request should be created with this, so that retries
+	 * and hedged requests all share the one deadline
+	 * @param client The client to make the call with
+	 * @param request The request to make
+	 * @return The new call
+	 */
+	public static Call newCall(OkHttpClient client, Request request)
+	{
+		Call call = client.newCall(request);
+		Deadline deadline = request.tag(Deadline.class);
+
+		if (deadline != null)
+		{
+			// A timeout of 0 is no timeout, so a deadline that has already passed times out straight away
+			call.timeout().timeout(Math.max(1, deadline.remaining()), TimeUnit.MILLISECONDS);
+		}
+
+		return call;
+	}
+
+	/**
+	 * Gets the per-host limiter for the given config. The HTTP/2 stream limit takes precedence over
+	 * the keep-alive connection limit, as HTTP/2 requests share a single connection per host.
+	 * @param config The effective config of the request
+	 * @return The shared limiter, or null if the config has no per-host limit
+	 */
+	public static synchronized HostLimiter getHostLimiter(Config config)
+	{
+		if (config.http2 != null && config.http2.maxConcurrentStreams > 0)
+		{
+			return getHostLimiter(config.http2, config.http2.maxConcurrentStreams);
+		}
+
+		if (config.keepAlive != null && config.keepAlive.maxConnectionsPerHost > 0)
+		{
+			return getHostLimiter(config.keepAlive, config.keepAlive.maxConnectionsPerHost);
+		}
+
+		return null;
+	}
+
+	private static HostLimiter getHostLimiter(Object key, int maxPerHost)
+	{
+		HostLimiter limiter = hostLimiters.get(key);
+
+		if (limiter == null)
+		{
+			limiter = new HostLimiter(maxPerHost);
+			hostLimiters.put(key, limiter);
+		}
+
+		return limiter;
+	}
+
+	/**
+	 * Removes all of the cached client instances and evicts all idle pooled connections
+	 */
+	public static synchronized void reset()
+	{
+		for (ConnectionPool pool : connectionPools.values())
+		{
+			pool.evictAll();
+		}
+
+		clients.clear();
+		connectionPools.clear();
+		hostLimiters.clear();
+	}
+
+	/**
+	 * @return The number of network requests that were made on a connection re-used from the pool
+	 */
+	public static int connectionHitCount()
+	{
+		return connectionHitCount.get();
+	}
+
+	/**
+	 * @return The number of network requests that had to open a new connection
+	 */
+	public static int connectionMissCount()
+	{
+		return connectionMissCount.get();
+	}
+
+	/**
+	 * Resets the connection hit and miss counts back to 0
+	 */
+	public static void resetConnectionCounts()
+	{
+		connectionHitCount.set(0);
+		connectionMissCount.set(0);
+	}
+
+	private static void recordConnection(Connection connection)
+	{
+		synchronized (seenConnections)
+		{
+			if (seenConnections.add(connection))
+			{
+				connectionMissCount.incrementAndGet();
+			}
+			else
+			{
+				connectionHitCount.incrementAndGet();
+			}
+		}
+	}
+
+	private static ConnectionPool getConnectionPool(KeepAliveConfig keepAlive)
+	{
+		ConnectionPool pool = connectionPools.get(keepAlive);
+
+		if (pool == null)
+		{
+			pool = new ConnectionPool(keepAlive.maxIdleConnections, keepAlive.keepAliveDuration, TimeUnit.MILLISECONDS);
+			connectionPools.put(keepAlive, pool);
+		}
+
+		return pool;
+	}
+
+	/**
+	 * Only hedged requests are enqueued on the dispatcher. A hedge is sent alongside a primary request that is
+	 * already running, so the default limit of 5 requests per host is raised to not delay it. Hedges share the
+	 * {@link HostLimiter} slot of their primary request, and there is only a host limiter when keep-alive or
+	 * HTTP/2 sets a per-host limit.
+	 *
+	 * Background revalidations run on the executor of the dispatcher without being enqueued, so these limits
+	 * do not apply to them
+	 */
+	private static Dispatcher createDispatcher()
+	{
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(256);
+		dispatcher.setMaxRequestsPerHost(256);
+
+		return dispatcher;
+	}
+
+	private static OkHttpClient createClient(Config config)
+	{
+		OkHttpClient.Builder builder = rootClient.newBuilder()
+			.followRedirects(config.allowRedirect)
+			.followSslRedirects(config.allowRedirect)
+			.cache(config.cache);
+
+		if (config.memoryCache != null)
+		{
+			final MemoryCache memoryCache = config.memoryCache;
+
+			// Added after the root interceptors, but still in front of the disk cache
+			builder.addInterceptor(new Interceptor()
+			{
+				@Override public Response intercept(Chain chain) throws IOException
+				{
+					Response cached = memoryCache.get(chain.request());
+
+					if (cached != null)
+					{
+						return cached;
+					}
+
+					return memoryCache.put(chain.proceed(chain.request()));
+				}
+			});
+		}
+
+		builder.connectTimeout(config.timeout, TimeUnit.MILLISECONDS)
+			.writeTimeout(config.timeout, TimeUnit.MILLISECONDS)
+			.readTimeout(config.timeout, TimeUnit.MILLISECONDS);
+
+		if (config.keepAlive != null)
+		{
+			builder.connectionPool(getConnectionPool(config.keepAlive));
+		}
+
+		if (config.http2 != null)
+		{
+			if (config.http2.priorKnowledge)
+			{
+				builder.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+			}
+			else
+			{
+				builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+			}
+		}
+
+		if (config.allowAllSsl)
+		{
+			SSLSocketFactory sslSocketFactory = getAllowAllSocketFactory();
+
+			if (sslSocketFactory != null)
+			{
+				builder.sslSocketFactory(sslSocketFactory, allowAllTrustManager)
+					.hostnameVerifier(new HostnameVerifier()
+					{
+						@Override public boolean verify(String hostname, SSLSession session)
+						{
+							return true;
+						}
+					});
+			}
+		}
+		else if (Build.VERSION.SDK_INT >= 16 && Build.VERSION.SDK_INT < 22)
+		{
+			SSLSocketFactory sslSocketFactory = getTlsSocketFactory();
+
+			if (sslSocketFactory != null)
+			{
+				builder.sslSocketFactory(sslSocketFactory, defaultTrustManager);
+			}
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Socket factory used to enable TLS v1.1 and v1.2 on devices that support it, but do not enable it by default.
+	 * The same factory is shared between clients so the SSL session cache can be re-used.
+	 */
+	private static SSLSocketFactory getTlsSocketFactory()
+	{
+		if (tlsSocketFactory == null)
+		{
+			try
+			{
+				TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+				trustManagerFactory.init((KeyStore)null);
+
+				defaultTrustManager = (X509TrustManager)trustManagerFactory.getTrustManagers()[0];
+				tlsSocketFactory = new TLSSocketFactory();
+			}
+			catch (KeyManagementException e)
+			{
+				e.printStackTrace();
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				e.printStackTrace();
+			}
+			catch (KeyStoreException e)
+			{
+				e.printStackTrace();
+			}
+		}
+
+		return tlsSocketFactory;
+	}
+
+	private static SSLSocketFactory getAllowAllSocketFactory()
+	{
+		if (allowAllSocketFactory == null)
+		{
+			try
+			{
+				// Create a trust manager that does not validate certificate chains
+				final X509TrustManager trustAllCerts = new X509TrustManager()
+				{
+					@Override public void checkClientTrusted(X509Certificate[] chain, String authType) throws java.security.cert.CertificateException{}
+					@Override public void checkServerTrusted(X509Certificate[] chain, String authType) throws java.security.cert.CertificateException{}
+
+					@Override public java.security.cert.X509Certificate[] getAcceptedIssuers()
+					{
+						return new java.security.cert.X509Certificate[]{};
+					}
+				};
+
+				final SSLContext sslContext = SSLContext.getInstance("SSL");
+				sslContext.init(null, new TrustManager[]{trustAllCerts}, new java.security.SecureRandom());
+				allowAllSocketFactory = sslContext.getSocketFactory();
+				allowAllTrustManager = trustAllCerts;
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				e.printStackTrace();
+			}
+			catch (KeyManagementException e)
+			{
+				e.printStackTrace();
+			}
+		}
+
+		return allowAllSocketFactory;
+	}
+
+	/**
+	 * Request tag that overrides the read timeout of the client for a single request, so timeouts
+	 * that change with every request do not each need their own client
+	 */
+	public static class ReadTimeout
+	{
+		/**
+		 * The read timeout in milliseconds
+		 */
+		public final long timeout;
+
+		public ReadTimeout(long timeout)
+		{
+			this.timeout = timeout;
+		}
+
+		@Override public boolean equals(Object o)
+		{
+			if (this == o)
+			{
+				return true;
+			}
+
+			if (!(o instanceof ReadTimeout))
+			{
+				return false;
+			}
+
+			return timeout == ((ReadTimeout)o).timeout;
+		}
+
+		@Override public int hashCode()
+		{
+			return (int)(timeout ^ (timeout >>> 32));
+		}
+	}
+
+	/**
+	 * Request tag for the overall deadline of a request, from {@link TimeoutConfig#callTimeout}. It is
+	 * set once when the request starts, so it covers every retry and hedged call made for the request
+	 */
+	public static class Deadline
+	{
+		private final long deadline;
+
+		/**
+		 * @param timeout The time in milliseconds from now that the request must finish by
+		 */
+		public Deadline(long timeout)
+		{
+			this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		}
+
+		/**
+		 * @return The time left until the deadline in milliseconds, which is 0 or less once it has passed
+		 */
+		public long remaining()
+		{
+			return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+		}
+	}
+
+	/**
+	 * The settings that affect how a client is built. Two requests with equal configs will share
+	 * the same {@link OkHttpClient}
+	 */
+	public static class Config
+	{
+		/**
+		 * Follow http and https redirects
+		 */
+		public boolean allowRedirect = true;
+
+		/**
+		 * Trust all SSL certificates and host names
+		 */
+		public boolean allowAllSsl = false;
+
+		/**
+		 * The connect, read and write timeout in milliseconds
+		 */
+		public long timeout = 0L;
+
+		/**
+		 * The disk cache to use, or null for no caching
+		 */
+		public Cache cache;
+
+		/**
+		 * The in-memory cache in front of {@link #cache}, or null for none
+		 */
+		public MemoryCache memoryCache;
+
+		/**
+		 * The idle connection pool config, or null to close connections after each request
+		 */
+		public KeepAliveConfig keepAlive;
+
+		/**
+		 * The HTTP/2 config, or null to use the default protocol negotiation
+		 */
+		public Http2Config http2;
+
+		public Config copy()
+		{
+			Config config = new Config();
+			config.allowRedirect = allowRedirect;
+			config.allowAllSsl = allowAllSsl;
+			config.timeout = timeout;
+			config.cache = cache;
+			config.memoryCache = memoryCache;
+			config.keepAlive = keepAlive;
+			config.http2 = http2;
+
+			return config;
+		}
+
+		@Override public boolean equals(Object o)
+		{
+			if (this == o)
+			{
+				return true;
+			}
+
+			if (!(o instanceof Config))
+			{
+				return false;
+			}
+
+			Config config = (Config)o;
+			return allowRedirect == config.allowRedirect
+				&& allowAllSsl == config.allowAllSsl
+				&& timeout == config.timeout
+				&& cache == config.cache
+				&& memoryCache == config.memoryCache
+				&& (keepAlive == null ? config.keepAlive == null : keepAlive.equals(config.keepAlive))
+				&& (http2 == null ? config.http2 == null : http2.equals(config.http2));
+		}
+
+		@Override public int hashCode()
+		{
+			int result = (allowRedirect ? 1 : 0);
+			result = 31 * result + (allowAllSsl ? 1 : 0);
+			result = 31 * result + (int)(timeout ^ (timeout >>> 32));
+			result = 31 * result + (cache != null ? System.identityHashCode(cache) : 0);
+			result = 31 * result + (memoryCache != null ? System.identityHashCode(memoryCache) : 0);
+			result = 31 * result + (keepAlive != null ? keepAlive.hashCode() : 0);
+			result = 31 * result + (http2 != null ? http2.hashCode() : 0);
+
+			return result;
+		}
+	}
+}
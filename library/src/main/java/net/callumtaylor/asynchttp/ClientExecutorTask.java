@@ -1,33 +1,38 @@
 package net.callumtaylor.asynchttp;
 
 import android.net.Uri;
-import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 
+import net.callumtaylor.asynchttp.obj.AdaptiveTimeoutConfig;
+import net.callumtaylor.asynchttp.obj.CachePolicy;
+import net.callumtaylor.asynchttp.obj.CacheUtil;
+import net.callumtaylor.asynchttp.obj.CacheableContent;
+import net.callumtaylor.asynchttp.obj.CircuitOpenException;
 import net.callumtaylor.asynchttp.obj.ClientTaskImpl;
 import net.callumtaylor.asynchttp.obj.CountingRequestBody;
+import net.callumtaylor.asynchttp.obj.HedgeConfig;
+import net.callumtaylor.asynchttp.obj.HostLimiter;
+import net.callumtaylor.asynchttp.obj.Http2Config;
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
 import net.callumtaylor.asynchttp.obj.Packet;
 import net.callumtaylor.asynchttp.obj.RequestMode;
-import net.callumtaylor.asynchttp.obj.TLSSocketFactory;
+import net.callumtaylor.asynchttp.obj.RetryPolicy;
+import net.callumtaylor.asynchttp.obj.TimeoutConfig;
 import net.callumtaylor.asynchttp.response.ResponseHandler;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.X509Certificate;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.GZIPInputStream;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSession;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
-
 import okhttp3.Cache;
+import okhttp3.CacheControl;
 import okhttp3.Call;
 import okhttp3.Headers;
 import okhttp3.OkHttpClient;
@@ -50,8 +55,30 @@ public class ClientExecutorTask<F> implements ClientTaskImpl<F>
 	protected boolean allowRedirect = true;
 	protected boolean allowAllSsl = false;
 	protected long requestTimeout = 0L;
+	protected TimeoutConfig timeouts;
+	protected ClientEngine.Deadline deadline;
+	protected AdaptiveTimeoutConfig adaptiveTimeout;
 	protected Cache cache;
+	protected MemoryCache memoryCache;
+	protected ContentCache contentCache;
+	protected boolean staleWhileRevalidate = false;
+	protected CachePolicy cachePolicy;
+	protected long maxStale = -1;
+	protected Request revalidateRequest;
+	protected Headers revalidateHeaders;
+	protected volatile boolean revalidating = false;
+	protected KeepAliveConfig keepAlive;
+	protected Http2Config http2;
+	protected boolean coalesce = false;
+	protected Object[] tags;
+	protected RetryPolicy retryPolicy;
+	protected CircuitBreaker circuitBreaker;
+	protected HedgeConfig hedge;
 	protected AtomicBoolean cancelled = new AtomicBoolean(false);
+	protected volatile Call call;
+	protected volatile HedgedCall hedgedCall;
+	protected boolean shared = false;
+	protected final CountDownLatch retrySignal = new CountDownLatch(1);
 
 	public ClientExecutorTask(RequestMode mode, Uri request, Headers headers, RequestBody postData, ResponseHandler response, boolean allowRedirect, boolean allowAllSsl, long requestTimeout, Cache cache)
 	{
@@ -66,18 +93,195 @@ public class ClientExecutorTask<F> implements ClientTaskImpl<F>
 		this.cache = cache;
 	}
 
+	/**
+	 * Creates the config used to look up the shared {@link OkHttpClient} from {@link ClientEngine}
+	 * @return The engine config for this request
+	 */
+	protected ClientEngine.Config getEngineConfig()
+	{
+		ClientEngine.Config config = new ClientEngine.Config();
+		config.allowRedirect = allowRedirect;
+		config.allowAllSsl = allowAllSsl;
+		config.timeout = requestTimeout;
+		config.cache = cache;
+		config.memoryCache = memoryCache;
+		config.keepAlive = keepAlive;
+		config.http2 = http2;
+
+		return config;
+	}
+
+	/**
+	 * Sets separate connect, read and write timeouts and an overall deadline for the request, replacing
+	 * the single timeout the task was created with. The deadline starts when the request is executed and
+	 * covers every retry and hedged call made for it
+	 * @param timeouts The timeouts to use, or null to use the single timeout
+	 */
+	public void setTimeouts(TimeoutConfig timeouts)
+	{
+		this.timeouts = timeouts;
+	}
+
+	/**
+	 * Sets the read timeout of the request from the recent latency of its endpoint, see {@link AdaptiveTimeoutConfig}.
+	 * This replaces the read timeout of the single timeout or {@link #setTimeouts(TimeoutConfig)}
+	 * @param adaptiveTimeout The adaptive timeout config, or null to use a fixed read timeout
+	 */
+	public void setAdaptiveTimeout(AdaptiveTimeoutConfig adaptiveTimeout)
+	{
+		this.adaptiveTimeout = adaptiveTimeout;
+	}
+
+	/**
+	 * Sets the in-memory cache checked before the disk cache. A fresh response in it is used without
+	 * touching the disk or the network
+	 * @param memoryCache The memory cache, or null to not use one
+	 */
+	public void setMemoryCache(MemoryCache memoryCache)
+	{
+		this.memoryCache = memoryCache;
+	}
+
+	/**
+	 * Sets the cache of decoded content checked before making the request. When the response handler has
+	 * fresh content in it, the handler is given the content without a request being made or the response being parsed
+	 * @param contentCache The content cache, or null to not use one
+	 */
+	public void setContentCache(ContentCache contentCache)
+	{
+		this.contentCache = contentCache;
+	}
+
+	/**
+	 * Enables serving stale responses from the disk cache. A response that is stale but within its
+	 * {@code stale-while-revalidate} window is delivered straight away and revalidated in the background
+	 * after {@link ResponseHandler#onFinish()}. A response within its {@code stale-if-error} window is
+	 * delivered in place of a failed request
+	 * @param staleWhileRevalidate True to serve stale responses
+	 */
+	public void setStaleWhileRevalidate(boolean staleWhileRevalidate)
+	{
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	/**
+	 * Sets how the request uses cached responses, see {@link CachePolicy}
+	 * @param cachePolicy The cache policy, or null to follow the normal caching rules
+	 * @param maxStale The time in milliseconds a response can be used after it becomes stale, or -1 for no limit
+	 */
+	public void setCachePolicy(CachePolicy cachePolicy, long maxStale)
+	{
+		this.cachePolicy = cachePolicy;
+		this.maxStale = maxStale;
+	}
+
+	/**
+	 * Enables keep-alive for the request, re-using idle pooled connections. When null,
+	 * a {@code Connection: close} header is sent and the connection is not re-used.
+	 * @param keepAlive The pool config to use, or null to disable keep-alive
+	 */
+	public void setKeepAlive(KeepAliveConfig keepAlive)
+	{
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Enables HTTP/2 for the request. Concurrent requests to the same host share one multiplexed connection.
+	 * @param http2 The HTTP/2 config to use, or null to use the default protocol negotiation
+	 */
+	public void setHttp2(Http2Config http2)
+	{
+		this.http2 = http2;
+	}
+
+	/**
+	 * Enables coalescing for the request. Identical GET and HEAD requests that are in flight at the
+	 * same time share a single network call, see {@link RequestCoalescer}
+	 * @param coalesce True to share the call with identical in-flight requests
+	 */
+	public void setCoalesce(boolean coalesce)
+	{
+		this.coalesce = coalesce;
+	}
+
+	/**
+	 * Sets how the request is retried when it fails with a transient error
+	 * @param retryPolicy The retry policy, or null to not retry
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy)
+	{
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Sets the circuit breaker the request goes through. When the breaker for the host is open, the
+	 * request fails straight away with a {@link CircuitOpenException}
+	 * @param circuitBreaker The circuit breaker, or null to not use one
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker)
+	{
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Enables hedging for the request. When a GET or HEAD request has not received a response after
+	 * the hedge delay, a second identical request is sent and the first response is used, see {@link HedgedCall}
+	 * @param hedge The hedge config, or null to not hedge
+	 */
+	public void setHedge(HedgeConfig hedge)
+	{
+		this.hedge = hedge;
+	}
+
+	/**
+	 * Tags the request so it can be cancelled with {@link RequestTags#cancel(Object)}
+	 * @param tags The tags for the request, or null for none
+	 */
+	public void setTags(Object... tags)
+	{
+		this.tags = tags;
+	}
+
 	@Override public boolean isCancelled()
 	{
 		return cancelled.get();
 	}
 
+	/**
+	 * Cancels the request. If the call is in flight it is aborted straight away, closing its socket
+	 * whether it is connecting, uploading or downloading, which frees up the thread and connection.
+	 *
+	 * Coalesced requests stop waiting for the shared call straight away, but only abort it once every
+	 * request waiting on it has been cancelled.
+	 */
 	@Override public void cancel()
 	{
 		cancelled.set(true);
+		RequestTags.unregister(this, tags);
+		retrySignal.countDown();
+
+		if (coalesce)
+		{
+			RequestCoalescer.cancel(this);
+		}
+
+		Call call = this.call;
+		if (call != null)
+		{
+			call.cancel();
+		}
+
+		HedgedCall hedgedCall = this.hedgedCall;
+		if (hedgedCall != null)
+		{
+			hedgedCall.cancel();
+		}
 	}
 
 	@Override public void preExecute()
 	{
+		RequestTags.register(this, tags);
+
 		if (this.response != null)
 		{
 			this.response.getConnectionInfo().connectionUrl = requestUri.toString();
@@ -90,81 +294,11 @@ public class ClientExecutorTask<F> implements ClientTaskImpl<F>
 
 	@Override public F executeTask()
 	{
-		OkHttpClient httpClient = new OkHttpClient()
-			.newBuilder()
-			.followRedirects(allowRedirect)
-			.followSslRedirects(allowRedirect)
-			.connectTimeout(requestTimeout, TimeUnit.MILLISECONDS)
-			.writeTimeout(requestTimeout, TimeUnit.MILLISECONDS)
-			.readTimeout(requestTimeout, TimeUnit.MILLISECONDS)
-			.cache(cache)
-			.build();
-
-		if (Build.VERSION.SDK_INT >= 16 && Build.VERSION.SDK_INT < 22)
-		{
-			try
-			{
-				httpClient = httpClient.newBuilder()
-					.sslSocketFactory(new TLSSocketFactory())
-					.build();
-			}
-			catch (KeyManagementException e)
-			{
-				e.printStackTrace();
-			}
-			catch (NoSuchAlgorithmException e)
-			{
-				e.printStackTrace();
-			}
-		}
-
-		if (allowAllSsl)
-		{
-			try
-			{
-				// Create a trust manager that does not validate certificate chains
-				final TrustManager[] trustAllCerts = new TrustManager[]
-				{
-					new X509TrustManager()
-					{
-						@Override public void checkClientTrusted(X509Certificate[] chain, String authType) throws java.security.cert.CertificateException{}
-						@Override public void checkServerTrusted(X509Certificate[] chain, String authType) throws java.security.cert.CertificateException{}
-
-						@Override public java.security.cert.X509Certificate[] getAcceptedIssuers()
-						{
-							return new java.security.cert.X509Certificate[]{};
-						}
-					}
-				};
-
-				final SSLContext sslContext = SSLContext.getInstance("SSL");
-				sslContext.init(null, trustAllCerts, new java.security.SecureRandom());
-				final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
-
-				httpClient = httpClient.newBuilder()
-					.sslSocketFactory(sslSocketFactory)
-					.hostnameVerifier(new HostnameVerifier()
-					{
-						@Override public boolean verify(String hostname, SSLSession session)
-						{
-							return true;
-						}
-					})
-					.build();
-			}
-			catch (NoSuchAlgorithmException e)
-			{
-				e.printStackTrace();
-			}
-			catch (KeyManagementException e)
-			{
-				e.printStackTrace();
-			}
-		}
+		ClientEngine.Config engineConfig = getEngineConfig();
+		OkHttpClient httpClient = ClientEngine.getClient(engineConfig);
 
 		try
 		{
-			System.setProperty("http.keepAlive", "false");
 			Request.Builder request = new Request.Builder()
 				.url(requestUri.toString());
 
@@ -181,10 +315,19 @@ public class ClientExecutorTask<F> implements ClientTaskImpl<F>
 					{
 						response.onByteChunkSent(buffer, bufferCount, bytesWritten, contentLength);
 
-						transferProgress(new Packet(bytesWritten, contentLength, false));
+						transferProgress(bytesWritten, contentLength, false, false);
 					}
 				}
-			});
+
+				@Override public void onRequestComplete(long bytesWritten, long contentLength)
+				{
+					// The last chunk was already final if it reached the content length, otherwise it may have been throttled
+					if (response != null && bytesWritten > 0 && (contentLength <= 0 || bytesWritten < contentLength))
+					{
+						transferProgress(bytesWritten, contentLength, false, true);
+					}
+				}
+			}, response != null && response.isSentChunksEnabled());
 
 			if (requestMode == RequestMode.GET)
 			{
@@ -215,13 +358,29 @@ public class ClientExecutorTask<F> implements ClientTaskImpl<F>
 				request = request.method("OPTIONS", null);
 			}
 
-			request.header("Connection", "close");
-
 			if (requestHeaders != null)
 			{
 				request.headers(requestHeaders);
 			}
 
+			if (keepAlive == null && http2 == null)
+			{
+				request.header("Connection", "close");
+			}
+
+			if (cachePolicy == CachePolicy.NETWORK_ONLY && requestMode == RequestMode.GET)
+			{
+				request.cacheControl(CacheControl.FORCE_NETWORK);
+			}
+			else if (cachePolicy == CachePolicy.CACHE_FIRST && requestMode == RequestMode.GET)
+			{
+				request.cacheControl(getMaxStaleControl(false));
+			}
+			else if (cachePolicy == CachePolicy.CACHE_ONLY && requestMode == RequestMode.GET)
+			{
+				request.cacheControl(getMaxStaleControl(true));
+			}
+
 			if ((requestMode == RequestMode.POST || requestMode == RequestMode.PUT || requestMode == RequestMode.DELETE || requestMode == RequestMode.PATCH) && postData != null)
 			{
 				final long contentLength = postData.contentLength();
@@ -231,71 +390,264 @@ public class ClientExecutorTask<F> implements ClientTaskImpl<F>
 				}
 			}
 
-			// Get the response
-			Call call = httpClient.newCall(request.build());
-			Response response = call.execute();
+			if (timeouts != null)
+			{
+				request.tag(TimeoutConfig.class, timeouts);
 
-			int responseCode = response.code();
+				if (timeouts.callTimeout > 0)
+				{
+					deadline = new ClientEngine.Deadline(timeouts.callTimeout);
+					request.tag(ClientEngine.Deadline.class, deadline);
+				}
+			}
 
-			if (response.headers() != null && this.response != null)
+			if (adaptiveTimeout != null)
 			{
-				this.response.getConnectionInfo().responseHeaders = response.headers();
+				long latency = LatencyTracker.getPercentile(LatencyTracker.getEndpoint(request.build()), adaptiveTimeout.percentile);
+				long readTimeout = adaptiveTimeout.getReadTimeout(latency);
+				request.tag(ClientEngine.ReadTimeout.class, new ClientEngine.ReadTimeout(readTimeout));
+
+				if (this.response != null)
+				{
+					this.response.getConnectionInfo().readTimeout = readTimeout;
+				}
 			}
 
-			if (response.body() != null)
+			Object contentKey = getContentCacheKey();
+			ContentCache.Entry conditionalEntry = null;
+
+			if (contentKey != null && requestMode == RequestMode.GET)
 			{
-				String encoding = response.header("Content-Encoding", "");
-				long contentLength = response.body().contentLength();
-				InputStream responseStream;
-				InputStream stream = response.body().byteStream();
+				ContentCache.Entry cached = contentCache.get(request.build(), contentKey);
 
-				if ("gzip".equalsIgnoreCase(encoding))
+				if (cached != null)
 				{
-					responseStream = new GZIPInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+					this.response.getConnectionInfo().contentCached = true;
+					this.response.getConnectionInfo().responseHeaders = cached.headers;
+					this.response.getConnectionInfo().protocol = cached.protocol;
+					this.response.getConnectionInfo().responseCode = cached.code;
+					setCachedContent(cached.content);
+
+					return deliverResponse();
 				}
-				else
+
+				conditionalEntry = contentCache.getForRevalidation(request.build(), contentKey);
+
+				// The disk cache sends its own conditional request, otherwise send one with the validators of the content
+				if (conditionalEntry != null && cache == null)
 				{
-					responseStream = new BufferedInputStream(stream, BUFFER_SIZE);
+					conditionalEntry = addConditions(request, conditionalEntry);
 				}
+			}
 
-				if (this.response != null && !isCancelled())
+			HostLimiter hostLimiter = ClientEngine.getHostLimiter(engineConfig);
+			String host = requestUri.getHost();
+			boolean coalesced = coalesce && (requestMode == RequestMode.GET || requestMode == RequestMode.HEAD);
+			Response response = null;
+			Response staleResponse = null;
+			boolean fallback = false;
+			boolean limited = false;
+
+			if (staleWhileRevalidate && cache != null && requestMode == RequestMode.GET)
+			{
+				Response cached = getCachedResponse(httpClient, request.build(), CacheControl.FORCE_CACHE);
+
+				if (cached != null)
 				{
-					this.response.getConnectionInfo().responseCode = responseCode;
+					long staleness = CacheUtil.getStaleness(cached.headers(), cached.sentRequestAtMillis(), cached.receivedResponseAtMillis(), System.currentTimeMillis());
+
+					if (staleness < getStaleWindow(cached.headers(), "stale-while-revalidate"))
+					{
+						response = cached;
+
+						if (staleness >= 0)
+						{
+							revalidateRequest = request.build();
+							revalidateHeaders = cached.headers();
+						}
+					}
+					else if (staleness < getStaleWindow(cached.headers(), "stale-if-error"))
+					{
+						staleResponse = cached;
+					}
+					else
+					{
+						cached.close();
+					}
 				}
+			}
 
+			if (response == null)
+			{
 				try
 				{
-					if (this.response != null && !isCancelled())
+					response = executeWithRetries(httpClient, request.build(), hostLimiter, host, coalesced);
+					limited = hostLimiter != null && !coalesced;
+				}
+				catch (IOException e)
+				{
+					// The connection failed or timed out, so fall back to the cache
+					if (staleResponse == null && cachePolicy == CachePolicy.NETWORK_FIRST_FALLBACK_CACHE && requestMode == RequestMode.GET && !isCancelled())
+					{
+						staleResponse = getCachedResponse(httpClient, request.build(), getMaxStaleControl(true));
+						fallback = staleResponse != null;
+					}
+
+					if (staleResponse == null)
 					{
-						this.response.onReceiveStream(responseStream, this, contentLength);
-						this.response.generateContent();
+						throw e;
 					}
 				}
-				catch (SocketTimeoutException timeout)
+
+				// Deliver the stale response in place of a failed request
+				if (staleResponse != null && (response == null || response.code() >= 500))
 				{
-					responseCode = 0;
-					timeout.printStackTrace();
+					if (response != null)
+					{
+						response.close();
+					}
+
+					if (limited)
+					{
+						hostLimiter.release(host);
+						limited = false;
+					}
+
+					response = staleResponse;
 				}
-				catch (Exception e)
+				else if (staleResponse != null)
 				{
-					e.printStackTrace();
+					staleResponse.close();
+					staleResponse = null;
 				}
-				finally
+			}
+
+			if (this.response != null)
+			{
+				this.response.getConnectionInfo().stale = revalidateRequest != null || (staleResponse != null && !fallback);
+				this.response.getConnectionInfo().cacheFallback = fallback;
+			}
+
+			try
+			{
+				int responseCode = response.code();
+
+				if (response.headers() != null && this.response != null)
 				{
-					responseStream.close();
+					this.response.getConnectionInfo().responseHeaders = response.headers();
+				}
+
+				if (this.response != null)
+				{
+					this.response.getConnectionInfo().protocol = response.protocol().toString();
+				}
+
+				ContentCache.Entry notModified = conditionalEntry != null && !isCancelled() ? contentCache.revalidate(conditionalEntry, response, contentKey) : null;
+
+				if (notModified != null)
+				{
+					// Use the content decoded from the cached response, without reading or parsing the body
+					response.close();
+					responseCode = notModified.code;
+
+					this.response.getConnectionInfo().notModified = true;
+					this.response.getConnectionInfo().responseHeaders = notModified.headers;
+					setCachedContent(notModified.content);
+				}
+				else if (response.body() != null)
+				{
+					long contentLength = response.body().contentLength();
+					InputStream responseStream = openStream(response);
+
+					if (this.response != null && !isCancelled())
+					{
+						this.response.getConnectionInfo().responseCode = responseCode;
+					}
+
+					try
+					{
+						if (this.response != null && !isCancelled())
+						{
+							this.response.onReceiveStream(responseStream, this, contentLength);
+							this.response.generateContent();
+
+							// The key is checked again, as handlers can opt out once they have seen the response
+							contentKey = getContentCacheKey();
+
+							if (contentKey != null && !isCancelled())
+							{
+								contentCache.put(response, contentKey, this.response.getContent());
+							}
+						}
+					}
+					catch (IOException e)
+					{
+						// A read timed out, or the call deadline passed and closed the socket whilst reading the body
+						responseCode = 0;
+						this.response.getConnectionInfo().exception = e;
+						e.printStackTrace();
+					}
+					catch (Exception e)
+					{
+						e.printStackTrace();
+					}
+					finally
+					{
+						responseStream.close();
+					}
 				}
-			}
 
-			if (this.response != null && !isCancelled())
+				if (this.response != null && !isCancelled())
+				{
+					this.response.getConnectionInfo().responseCode = responseCode;
+				}
+
+				if (contentCache != null && CacheUtil.invalidatesCache(response.request().method()))
+				{
+					contentCache.remove(response.request().url());
+				}
+			}
+			finally
 			{
-				this.response.getConnectionInfo().responseCode = responseCode;
+				if (limited)
+				{
+					hostLimiter.release(host);
+				}
 			}
 		}
 		catch (Exception e)
 		{
+			if (this.response != null)
+			{
+				this.response.getConnectionInfo().exception = e;
+			}
+
 			e.printStackTrace();
 		}
 
+		return deliverResponse();
+	}
+
+	/**
+	 * @return The key of the content of the response handler, or null if there is no content cache or the handler does not implement {@link CacheableContent}
+	 */
+	private Object getContentCacheKey()
+	{
+		return contentCache != null && this.response instanceof CacheableContent ? ((CacheableContent)this.response).getContentCacheKey() : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void setCachedContent(Object content)
+	{
+		((CacheableContent<Object>)this.response).setCachedContent(content);
+	}
+
+	/**
+	 * Calls the success or failure callback of the response handler for the response code of the request
+	 * @return The content of the response handler
+	 */
+	private F deliverResponse()
+	{
 		if (this.response != null && !isCancelled())
 		{
 			this.response.getConnectionInfo().responseTime = System.currentTimeMillis();
@@ -321,26 +673,591 @@ public class ClientExecutorTask<F> implements ClientTaskImpl<F>
 		}
 	}
 
+	/**
+	 * Gets the response from the network, retrying transient failures. For requests that are not coalesced,
+	 * the host limiter is held from when the response is returned until its body has been read
+	 */
+	private Response executeWithRetries(OkHttpClient httpClient, Request request, HostLimiter hostLimiter, String host, boolean coalesced) throws IOException, InterruptedException
+	{
+		Response response;
+		int retryCount = 0;
+
+		while (true)
+		{
+			long retryDelay;
+
+			try
+			{
+				response = execute(httpClient, request, hostLimiter, host, coalesced);
+			}
+			catch (IOException e)
+			{
+				retryDelay = retryPolicy != null && retryPolicy.isRetryable(e) ? getRetryDelay(retryCount, null) : -1;
+
+				if (retryDelay < 0)
+				{
+					throw e;
+				}
+
+				waitForRetry(++retryCount, retryDelay);
+				continue;
+			}
+
+			retryDelay = retryPolicy != null && retryPolicy.isRetryable(response.code()) ? getRetryDelay(retryCount, response.headers()) : -1;
+
+			if (retryDelay < 0)
+			{
+				break;
+			}
+
+			response.close();
+
+			if (hostLimiter != null && !coalesced)
+			{
+				hostLimiter.release(host);
+			}
+
+			waitForRetry(++retryCount, retryDelay);
+		}
+
+		return response;
+	}
+
+	/**
+	 * Makes the request conditional on the validators of cached content, unless it already has conditions of its own
+	 * @return The entry the request is conditional on, or null if the request was not changed
+	 */
+	private static ContentCache.Entry addConditions(Request.Builder request, ContentCache.Entry entry)
+	{
+		Request built = request.build();
+
+		if (built.header("If-None-Match") != null || built.header("If-Modified-Since") != null)
+		{
+			return null;
+		}
+
+		if (entry.getETag() != null)
+		{
+			request.header("If-None-Match", entry.getETag());
+		}
+
+		if (entry.getLastModified() != null)
+		{
+			request.header("If-Modified-Since", entry.getLastModified());
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Gets the response for the request from the cache without making the request
+	 * @param cacheControl The cache control to look the response up with, which must be {@code only-if-cached}
+	 * @return The cached response, or null if there is no usable response in the cache
+	 */
+	private Response getCachedResponse(OkHttpClient httpClient, Request request, CacheControl cacheControl) throws IOException
+	{
+		Response cached = httpClient.newCall(request.newBuilder().cacheControl(cacheControl).build()).execute();
+
+		// The cache returns a 504 when it has nothing it can use
+		if (cached.code() == HttpURLConnection.HTTP_GATEWAY_TIMEOUT)
+		{
+			cached.close();
+			return null;
+		}
+
+		return cached;
+	}
+
+	/**
+	 * @return The cache control that allows responses up to the max-stale of the cache policy
+	 */
+	private CacheControl getMaxStaleControl(boolean onlyIfCached)
+	{
+		CacheControl.Builder cacheControl = new CacheControl.Builder()
+			.maxStale(maxStale < 0 ? Integer.MAX_VALUE : (int)Math.min(Integer.MAX_VALUE, TimeUnit.MILLISECONDS.toSeconds(maxStale)), TimeUnit.SECONDS);
+
+		if (onlyIfCached)
+		{
+			cacheControl.onlyIfCached();
+		}
+
+		return cacheControl.build();
+	}
+
+	/**
+	 * @return The time in milliseconds a response can be used after it becomes stale, from a directive of its {@code Cache-Control}
+	 */
+	private static long getStaleWindow(Headers headers, String directive)
+	{
+		return TimeUnit.SECONDS.toMillis(Math.max(0, CacheUtil.getDirectiveSeconds(headers, directive)));
+	}
+
+	/**
+	 * Opens the body of a response, decompressing it if it was gzipped
+	 */
+	private static InputStream openStream(Response response) throws IOException
+	{
+		String encoding = response.header("Content-Encoding", "");
+		InputStream stream = response.body().byteStream();
+
+		if ("gzip".equalsIgnoreCase(encoding))
+		{
+			return new GZIPInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+		}
+
+		return new BufferedInputStream(stream, BUFFER_SIZE);
+	}
+
+	/**
+	 * Makes a single attempt at the request through the circuit breaker, recording its outcome and
+	 * the latency of the endpoint in {@link LatencyTracker}. Responses served from a cache are not recorded
+	 */
+	private Response execute(OkHttpClient httpClient, Request request, HostLimiter hostLimiter, String host, boolean coalesced) throws IOException, InterruptedException
+	{
+		if (circuitBreaker != null && !circuitBreaker.allowRequest(host))
+		{
+			throw new CircuitOpenException(host);
+		}
+
+		long start = System.nanoTime();
+		Response response;
+
+		try
+		{
+			response = executeCall(httpClient, request, hostLimiter, host, coalesced);
+		}
+		catch (IOException e)
+		{
+			// Record timeouts as well, so adaptive timeouts grow again when the endpoint slows down
+			if (e instanceof SocketTimeoutException)
+			{
+				LatencyTracker.record(LatencyTracker.getEndpoint(request), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			}
+
+			// The request that made a shared call records its outcome, so one call is not recorded for every request waiting on it
+			if (circuitBreaker != null && (isCancelled() || e instanceof RequestCoalescer.SharedCallException))
+			{
+				circuitBreaker.onIgnored(host);
+			}
+			else if (circuitBreaker != null)
+			{
+				circuitBreaker.onFailure(host, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			}
+
+			throw e;
+		}
+		catch (InterruptedException e)
+		{
+			if (circuitBreaker != null)
+			{
+				circuitBreaker.onIgnored(host);
+			}
+
+			throw e;
+		}
+
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// Responses from the memory or disk cache say nothing about the latency or health of the host. Conditional
+		// requests have a cache response whatever the server returns, but did go to the network. A response shared
+		// from another request's call was already recorded by that request
+		boolean fromNetwork = response.networkResponse() != null && !shared;
+
+		if (fromNetwork)
+		{
+			LatencyTracker.record(LatencyTracker.getEndpoint(request), duration);
+		}
+
+		if (circuitBreaker != null && !fromNetwork)
+		{
+			circuitBreaker.onIgnored(host);
+		}
+		else if (circuitBreaker != null && response.code() >= 500)
+		{
+			circuitBreaker.onFailure(host, duration);
+		}
+		else if (circuitBreaker != null)
+		{
+			circuitBreaker.onSuccess(host, duration);
+		}
+
+		return response;
+	}
+
+	/**
+	 * Makes a single attempt at the request. For requests that are not coalesced, the host limiter is
+	 * acquired before the call and is still held when this returns. It is released if the attempt fails
+	 * in any way, including being interrupted when the request is cancelled
+	 */
+	private Response executeCall(OkHttpClient httpClient, Request request, HostLimiter hostLimiter, String host, boolean coalesced) throws IOException, InterruptedException
+	{
+		shared = false;
+
+		if (coalesced)
+		{
+			RequestCoalescer.Result result = RequestCoalescer.execute(httpClient, request, hostLimiter, this);
+			shared = result.coalesced;
+
+			if (this.response != null)
+			{
+				this.response.getConnectionInfo().coalesced = result.coalesced;
+			}
+
+			return result.response;
+		}
+
+		if (hostLimiter != null)
+		{
+			hostLimiter.acquire(host);
+		}
+
+		boolean returned = false;
+
+		try
+		{
+			Response response;
+
+			if (hedge != null && (requestMode == RequestMode.GET || requestMode == RequestMode.HEAD))
+			{
+				response = executeHedged(httpClient, request);
+			}
+			else
+			{
+				call = ClientEngine.newCall(httpClient, request);
+
+				// Cancelled before the call was assigned
+				if (isCancelled())
+				{
+					call.cancel();
+				}
+
+				response = call.execute();
+			}
+
+			returned = true;
+			return response;
+		}
+		finally
+		{
+			if (!returned && hostLimiter != null)
+			{
+				hostLimiter.release(host);
+			}
+		}
+	}
+
+	/**
+	 * Makes a single hedged attempt at the request, recording if the hedged request was sent and won
+	 */
+	private Response executeHedged(OkHttpClient httpClient, Request request) throws IOException, InterruptedException
+	{
+		long delay = hedge.delay;
+
+		if (hedge.percentile > 0)
+		{
+			long percentile = LatencyTracker.getPercentile(LatencyTracker.getEndpoint(request), hedge.percentile);
+			delay = percentile < 0 ? delay : percentile;
+		}
+
+		HedgedCall hedgedCall = new HedgedCall(httpClient, request);
+		this.hedgedCall = hedgedCall;
+
+		// Cancelled before the call was assigned
+		if (isCancelled())
+		{
+			hedgedCall.cancel();
+		}
+
+		try
+		{
+			return hedgedCall.execute(delay);
+		}
+		finally
+		{
+			if (this.response != null && !revalidating)
+			{
+				this.response.getConnectionInfo().hedged = hedgedCall.isHedged();
+				this.response.getConnectionInfo().hedgeWon = hedgedCall.isHedgeWon();
+			}
+		}
+	}
+
+	/**
+	 * Works out if a failed attempt should be retried, taking a token from the retry budget if it should
+	 * @param retryCount The number of retries already made
+	 * @param headers The headers of the failed response, or null if there was no response
+	 * @return The delay in milliseconds before retrying, or -1 to not retry
+	 */
+	private long getRetryDelay(int retryCount, Headers headers)
+	{
+		if (retryPolicy == null || isCancelled() || retryCount >= retryPolicy.maxRetries || !retryPolicy.isRetryable(requestMode))
+		{
+			return -1;
+		}
+
+		long delay = retryPolicy.getDelay(retryCount, headers);
+
+		// The retry could not finish before the deadline of the request
+		if (deadline != null && delay >= deadline.remaining())
+		{
+			return -1;
+		}
+
+		if (delay < 0 || (retryPolicy.budget != null && !retryPolicy.budget.tryAcquire()))
+		{
+			return -1;
+		}
+
+		return delay;
+	}
+
+	/**
+	 * Waits before the next retry, returning early if the request is cancelled
+	 */
+	private void waitForRetry(int retryCount, long delay) throws InterruptedException
+	{
+		if (this.response != null && !revalidating)
+		{
+			this.response.getConnectionInfo().retryCount = retryCount;
+			this.response.getConnectionInfo().retryDelays.add(delay);
+		}
+
+		retrySignal.await(delay, TimeUnit.MILLISECONDS);
+	}
+
 	@Override public void postExecute()
 	{
+		boolean revalidate = revalidateRequest != null && !isCancelled();
+
+		// A revalidating task stays registered until the revalidation has finished, so its tags can still cancel it
+		if (!revalidate)
+		{
+			RequestTags.unregister(this, tags);
+		}
+
 		if (this.response != null && !isCancelled())
 		{
 			this.response.beforeFinish();
 			this.response.onFinish();
 		}
+
+		if (revalidate)
+		{
+			revalidate();
+		}
+	}
+
+	/**
+	 * Refreshes the cache in the background after a stale response was delivered. The request goes through the
+	 * circuit breaker, retries and host limiter, if there is one, like any other, and the cache sends it as a
+	 * conditional request when the stale response has a validator. It runs on a thread of the OkHttp dispatcher,
+	 * which is not bounded, so it is not queued or prioritised by the executor or {@link RequestScheduler} of the client. If the content has changed, the new response is decoded into a
+	 * handler from {@link ResponseHandler#newContentHandler()}, so the delivered handler is left as it is, and
+	 * {@link ResponseHandler#onContentChanged(ResponseHandler)} is called on the thread that finished the request
+	 * when it has a looper
+	 */
+	private void revalidate()
+	{
+		final Looper looper = Looper.myLooper();
+		ClientEngine.Config engineConfig = getEngineConfig();
+		final OkHttpClient httpClient = ClientEngine.getClient(engineConfig);
+		final HostLimiter hostLimiter = ClientEngine.getHostLimiter(engineConfig);
+		revalidating = true;
+
+		httpClient.dispatcher().executorService().execute(new Runnable()
+		{
+			@Override public void run()
+			{
+				final ResponseHandler changed = revalidate(httpClient, hostLimiter);
+
+				Runnable finish = new Runnable()
+				{
+					@Override public void run()
+					{
+						try
+						{
+							if (changed != null && !isCancelled())
+							{
+								response.onContentChanged(changed);
+							}
+						}
+						finally
+						{
+							RequestTags.unregister(ClientExecutorTask.this, tags);
+						}
+					}
+				};
+
+				if (changed != null && looper != null)
+				{
+					new Handler(looper).post(finish);
+				}
+				else
+				{
+					finish.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Makes the revalidation request, decoding the response if the content has changed
+	 * @return The handler the changed content was decoded into, or null if the content has not changed or could not be decoded
+	 */
+	private ResponseHandler revalidate(OkHttpClient httpClient, HostLimiter hostLimiter)
+	{
+		String host = requestUri.getHost();
+		Request.Builder request = revalidateRequest.newBuilder();
+
+		// The deadline of the stale request has already been used up
+		if (timeouts != null && timeouts.callTimeout > 0)
+		{
+			deadline = new ClientEngine.Deadline(timeouts.callTimeout);
+			request.tag(ClientEngine.Deadline.class, deadline);
+		}
+
+		Response response;
+
+		try
+		{
+			response = executeWithRetries(httpClient, request.build(), hostLimiter, host, false);
+		}
+		catch (Exception e)
+		{
+			// The stale response was already delivered, so it is kept
+			return null;
+		}
+
+		try
+		{
+			if (this.response != null && !isCancelled() && isChanged(response, revalidateHeaders))
+			{
+				return decodeChanged(response);
+			}
+
+			// A new response with the same content still has to be read, or the cache keeps the stale response
+			if (response.networkResponse() != null && response.networkResponse().code() == HttpURLConnection.HTTP_OK && response.body() != null)
+			{
+				discard(response.body().byteStream());
+			}
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			response.close();
+
+			if (hostLimiter != null)
+			{
+				hostLimiter.release(host);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Reads the rest of a body without keeping it. The cache only stores a response once its body has been read
+	 */
+	private void discard(InputStream stream) throws IOException
+	{
+		byte[] buffer = new byte[BUFFER_SIZE];
+		while (stream.read(buffer) > -1 && !isCancelled()){}
+	}
+
+	/**
+	 * @return True if the revalidated response has different content to the stale response
+	 */
+	private static boolean isChanged(Response response, Headers staleHeaders)
+	{
+		Response networkResponse = response.networkResponse();
+
+		if (response.code() != HttpURLConnection.HTTP_OK || networkResponse == null || networkResponse.code() == HttpURLConnection.HTTP_NOT_MODIFIED)
+		{
+			return false;
+		}
+
+		String etag = response.header("ETag");
+		return etag == null || !etag.equals(staleHeaders.get("ETag"));
+	}
+
+	/**
+	 * Decodes the revalidated response into a new handler, storing the content in the content cache
+	 * @return The new handler, or null if the response handler can not create one
+	 */
+	private ResponseHandler decodeChanged(Response response) throws Exception
+	{
+		ResponseHandler handler = this.response.newContentHandler();
+		InputStream responseStream = openStream(response);
+
+		try
+		{
+			if (handler == null)
+			{
+				discard(responseStream);
+				return null;
+			}
+
+			handler.getConnectionInfo().connectionUrl = requestUri.toString();
+			handler.getConnectionInfo().connectionTime = System.currentTimeMillis();
+			handler.getConnectionInfo().requestMethod = requestMode;
+			handler.getConnectionInfo().requestHeaders = requestHeaders;
+			handler.getConnectionInfo().responseHeaders = response.headers();
+			handler.getConnectionInfo().protocol = response.protocol().toString();
+			handler.getConnectionInfo().responseCode = response.code();
+			handler.onReceiveStream(responseStream, this, response.body().contentLength());
+			handler.generateContent();
+
+			Object contentKey = contentCache != null && handler instanceof CacheableContent ? ((CacheableContent)handler).getContentCacheKey() : null;
+
+			if (contentKey != null && !isCancelled())
+			{
+				contentCache.put(response, contentKey, handler.getContent());
+			}
+
+			handler.getConnectionInfo().responseTime = System.currentTimeMillis();
+			return handler;
+		}
+		finally
+		{
+			responseStream.close();
+		}
+	}
+
+	/**
+	 * @return True if the update should be dispatched, according to the {@link net.callumtaylor.asynchttp.obj.ProgressThrottle} of the response handler
+	 */
+	public boolean isProgressDue(long length, long total, boolean isDownload, boolean isFinal)
+	{
+		// The download of a background revalidation is not reported to the handler that was already delivered
+		return this.response != null && !isCancelled() && !revalidating && this.response.isProgressDue(length, total, isDownload, isFinal);
 	}
 
 	@Override public void transferProgress(Packet packet)
 	{
-		if (this.response != null && !isCancelled())
+		transferProgress(packet.length, packet.total, packet.isDownload, packet.isFinal);
+	}
+
+	/**
+	 * Called when a packet transfer has been made, without allocating a packet for the update
+	 * @param length The size of the data that was transferred in bytes
+	 * @param total The total size to be transferred in bytes
+	 * @param isDownload True for the response, false for the request body
+	 * @param isFinal True if this is the last update of the transfer
+	 */
+	public void transferProgress(long length, long total, boolean isDownload, boolean isFinal)
+	{
+		if (isProgressDue(length, total, isDownload, isFinal))
 		{
-			if (packet.isDownload)
+			if (isDownload)
 			{
-				this.response.onByteChunkReceivedProcessed(packet.length, packet.total);
+				this.response.onByteChunkReceivedProcessed(length, total);
 			}
 			else
 			{
-				this.response.onByteChunkSentProcessed(packet.length, packet.total);
+				this.response.onByteChunkSentProcessed(length, total);
 			}
 		}
 	}
@@ -0,0 +1,466 @@
+package net.callumtaylor.asynchttp;
+
+import android.graphics.Bitmap;
+
+import net.callumtaylor.asynchttp.obj.CacheUtil;
+import net.callumtaylor.asynchttp.obj.CacheableContent;
+
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.HttpUrl;
+import okhttp3.Headers;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Cache of the content decoded by response handlers, such as the parsed Json of a response. A request
+ * with fresh content in the cache skips the network, the disk cache and parsing, and its handler is given
+ * the cached content straight away.
+ *
+ * Only handlers that implement {@link CacheableContent} and return a key are cached. Entries
+ * are keyed by the URL of the GET request and that key, and only match requests with the same values
+ * for the headers named in the response's {@code Vary} header. Content is served while the response
+ * it was decoded from is fresh, by the same rules as {@link MemoryCache}.
+ *
+ * Content decoded from a response with an {@code ETag} or {@code Last-Modified} header is also kept after it
+ * goes stale. The next request for it is sent as a conditional request, and if the server returns a 304 the
+ * content is used again without reading or parsing the body, see {@link #getForRevalidation(Request, Object)}.
+ *
+ * Cached content is shared between every request that hits it, so handlers must not modify it.
+ * The cache holds a maximum number of entries and a maximum total weight, as measured by its {@link Weigher},
+ * evicting the least recently used entries first. Content that weighs more than the maximum is not cached.
+ */
+public class ContentCache
+{
+	/**
+	 * Weighs bitmaps by the number of bytes of their pixels, and any other content as 0.
+	 * Use it with a maximum number of entries, so the other content is still bounded
+	 */
+	public static final Weigher BITMAP_WEIGHER = new Weigher()
+	{
+		@Override public long weigh(Object content)
+		{
+			return content instanceof Bitmap ? ((Bitmap)content).getByteCount() : 0;
+		}
+	};
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final Weigher weigher;
+	private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true);
+	private long weight = 0;
+	private int hitCount = 0;
+	private int missCount = 0;
+	private int evictionCount = 0;
+	private int notModifiedCount = 0;
+
+	/**
+	 * @param maxEntries The maximum number of decoded objects to keep
+	 */
+	public ContentCache(int maxEntries)
+	{
+		this(maxEntries, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * @param maxWeight The maximum total weight of the decoded objects to keep
+	 * @param weigher The weigher of the decoded objects, such as {@link #BITMAP_WEIGHER}
+	 */
+	public ContentCache(long maxWeight, Weigher weigher)
+	{
+		this(Integer.MAX_VALUE, maxWeight, weigher);
+	}
+
+	/**
+	 * @param maxEntries The maximum number of decoded objects to keep
+	 * @param maxWeight The maximum total weight of the decoded objects to keep
+	 * @param weigher The weigher of the decoded objects, or null to weigh every object as 0
+	 */
+	public ContentCache(int maxEntries, long maxWeight, Weigher weigher)
+	{
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Gets fresh content for the request from the cache, counting a hit or a miss
+	 * @param request The request to look up
+	 * @param contentKey The key of the handler, from {@link CacheableContent#getContentCacheKey()}
+	 * @return The cached entry, or null if there is no fresh content for the request
+	 */
+	public synchronized Entry get(Request request, Object contentKey)
+	{
+		if (!"GET".equals(request.method()))
+		{
+			return null;
+		}
+
+		Entry entry = entries.get(getKey(request.url(), contentKey));
+
+		if (entry == null || !entry.matches(request) || !entry.isFresh(request, System.currentTimeMillis()))
+		{
+			missCount++;
+			return null;
+		}
+
+		hitCount++;
+		return entry;
+	}
+
+	/**
+	 * Gets content for the request that can be revalidated with a conditional request, whether it is fresh or stale
+	 * @param request The request to look up
+	 * @param contentKey The key of the handler, from {@link CacheableContent#getContentCacheKey()}
+	 * @return The cached entry, or null if there is no content with an {@code ETag} or {@code Last-Modified} for the request
+	 */
+	public synchronized Entry getForRevalidation(Request request, Object contentKey)
+	{
+		if (!"GET".equals(request.method()))
+		{
+			return null;
+		}
+
+		Entry entry = entries.get(getKey(request.url(), contentKey));
+
+		if (entry == null || !entry.matches(request) || !entry.hasValidator())
+		{
+			return null;
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Updates an entry after its conditional request returned a 304, so it is fresh again
+	 * @param entry The entry from {@link #getForRevalidation(Request, Object)}
+	 * @param response The response to the conditional request. This is either the 304 itself, or the response
+	 * combined with the disk cache, whose network response is the 304
+	 * @param contentKey The key of the handler, from {@link CacheableContent#getContentCacheKey()}
+	 * @return The updated entry, or null if the response is not a 304 or does not validate the content of the entry
+	 */
+	public synchronized Entry revalidate(Entry entry, Response response, Object contentKey)
+	{
+		Response networkResponse = response.networkResponse() != null ? response.networkResponse() : response;
+
+		if (networkResponse.code() != HttpURLConnection.HTTP_NOT_MODIFIED)
+		{
+			return null;
+		}
+
+		Headers headers = response.code() == HttpURLConnection.HTTP_NOT_MODIFIED ? CacheUtil.combine(entry.headers, response.headers()) : response.headers();
+
+		if (!entry.isValidatedBy(headers))
+		{
+			return null;
+		}
+
+		Entry updated = new Entry(entry, headers, response.sentRequestAtMillis(), response.receivedResponseAtMillis());
+
+		if (!response.cacheControl().noStore())
+		{
+			store(getKey(response.request().url(), contentKey), updated);
+			trimToSize();
+		}
+
+		notModifiedCount++;
+		return updated;
+	}
+
+	/**
+	 * Stores the content decoded from a response, if the response can be cached and is either fresh or can be revalidated
+	 * @param response The response the content was decoded from
+	 * @param contentKey The key of the handler, from {@link CacheableContent#getContentCacheKey()}
+	 * @param content The decoded content
+	 */
+	public synchronized void put(Response response, Object contentKey, Object content)
+	{
+		Request request = response.request();
+
+		if (content == null || !isCacheable(response))
+		{
+			return;
+		}
+
+		Entry entry = new Entry(response, content, weigher != null ? weigher.weigh(content) : 0);
+
+		if (!entry.hasValidator() && !entry.isFresh(request, System.currentTimeMillis()))
+		{
+			return;
+		}
+
+		List<Object> key = getKey(request.url(), contentKey);
+
+		if (entry.weight > maxWeight)
+		{
+			// Too heavy to keep, but any older content for the request is out of date now
+			discard(entries.remove(key));
+			return;
+		}
+
+		store(key, entry);
+		trimToSize();
+	}
+
+	/**
+	 * Removes the content of every handler for a URL, such as after it was changed by a POST
+	 * @param url The URL to remove the content of
+	 */
+	public synchronized void remove(HttpUrl url)
+	{
+		Iterator<Map.Entry<List<Object>, Entry>> iterator = entries.entrySet().iterator();
+
+		while (iterator.hasNext())
+		{
+			Map.Entry<List<Object>, Entry> next = iterator.next();
+
+			if (url.equals(next.getKey().get(0)))
+			{
+				discard(next.getValue());
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all of the entries
+	 */
+	public synchronized void evictAll()
+	{
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * @return The number of entries in the cache
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @return The maximum number of entries in the cache
+	 */
+	public int maxEntries()
+	{
+		return maxEntries;
+	}
+
+	/**
+	 * @return The total weight of the entries in the cache
+	 */
+	public synchronized long weight()
+	{
+		return weight;
+	}
+
+	/**
+	 * @return The maximum total weight of the entries in the cache
+	 */
+	public long maxWeight()
+	{
+		return maxWeight;
+	}
+
+	/**
+	 * @return The number of requests that were served from the cache
+	 */
+	public synchronized int hitCount()
+	{
+		return hitCount;
+	}
+
+	/**
+	 * @return The number of requests that were looked up but had no fresh content
+	 */
+	public synchronized int missCount()
+	{
+		return missCount;
+	}
+
+	/**
+	 * @return The number of entries that were removed to make room for others
+	 */
+	public synchronized int evictionCount()
+	{
+		return evictionCount;
+	}
+
+	/**
+	 * @return The number of conditional requests that returned a 304, so the cached content was used again
+	 */
+	public synchronized int notModifiedCount()
+	{
+		return notModifiedCount;
+	}
+
+	/**
+	 * Resets the hit, miss, eviction and not modified counts back to 0
+	 */
+	public synchronized void resetCounts()
+	{
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+		notModifiedCount = 0;
+	}
+
+	private void store(List<Object> key, Entry entry)
+	{
+		discard(entries.put(key, entry));
+		weight += entry.weight;
+	}
+
+	private void discard(Entry entry)
+	{
+		if (entry != null)
+		{
+			weight -= entry.weight;
+		}
+	}
+
+	private void trimToSize()
+	{
+		Iterator<Entry> iterator = entries.values().iterator();
+
+		while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext())
+		{
+			discard(iterator.next());
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+
+	private static List<Object> getKey(HttpUrl url, Object contentKey)
+	{
+		return Arrays.asList(url, contentKey);
+	}
+
+	private static boolean isCacheable(Response response)
+	{
+		return "GET".equals(response.request().method())
+			&& response.code() == 200
+			&& !response.cacheControl().noStore()
+			&& !response.request().cacheControl().noStore()
+			&& !CacheUtil.getVaryFields(response.headers()).contains("*");
+	}
+
+	/**
+	 * Measures the content kept by the cache, such as in bytes
+	 */
+	public interface Weigher
+	{
+		/**
+		 * @param content The decoded content
+		 * @return The weight of the content, 0 or more. This must not change while the content is cached
+		 */
+		public long weigh(Object content);
+	}
+
+	/**
+	 * Decoded content and the details of the response it was decoded from
+	 */
+	public static class Entry
+	{
+		private final Headers varyHeaders;
+		private final long sentRequestAtMillis;
+		private final long receivedResponseAtMillis;
+		private final long weight;
+
+		/**
+		 * The response code of the cached response
+		 */
+		public final int code;
+
+		/**
+		 * The headers of the cached response
+		 */
+		public final Headers headers;
+
+		/**
+		 * The protocol the cached response was received with
+		 */
+		public final String protocol;
+
+		/**
+		 * The decoded content. This is shared, so must not be modified
+		 */
+		public final Object content;
+
+		private Entry(Response response, Object content, long weight)
+		{
+			this.varyHeaders = CacheUtil.getVaryHeaders(response.headers(), response.request().headers());
+			this.sentRequestAtMillis = response.sentRequestAtMillis();
+			this.receivedResponseAtMillis = response.receivedResponseAtMillis();
+			this.code = response.code();
+			this.headers = response.headers();
+			this.protocol = response.protocol().toString();
+			this.content = content;
+			this.weight = weight;
+		}
+
+		private Entry(Entry entry, Headers headers, long sentRequestAtMillis, long receivedResponseAtMillis)
+		{
+			this.varyHeaders = entry.varyHeaders;
+			this.sentRequestAtMillis = sentRequestAtMillis;
+			this.receivedResponseAtMillis = receivedResponseAtMillis;
+			this.code = entry.code;
+			this.headers = headers;
+			this.protocol = entry.protocol;
+			this.content = entry.content;
+			this.weight = entry.weight;
+		}
+
+		/**
+		 * @return The {@code ETag} of the cached response, or null
+		 */
+		public String getETag()
+		{
+			return headers.get("ETag");
+		}
+
+		/**
+		 * @return The {@code Last-Modified} date of the cached response, or null
+		 */
+		public String getLastModified()
+		{
+			return headers.get("Last-Modified");
+		}
+
+		private boolean hasValidator()
+		{
+			return getETag() != null || getLastModified() != null;
+		}
+
+		/**
+		 * @return True if the headers of a 304 response have the same validator as the cached response
+		 */
+		private boolean isValidatedBy(Headers headers)
+		{
+			String etag = getETag();
+
+			if (etag != null)
+			{
+				return etag.equals(headers.get("ETag"));
+			}
+
+			return getLastModified().equals(headers.get("Last-Modified"));
+		}
+
+		private boolean matches(Request request)
+		{
+			return CacheUtil.varyMatches(headers, varyHeaders, request.headers());
+		}
+
+		private boolean isFresh(Request request, long now)
+		{
+			return CacheUtil.isFresh(headers, request.cacheControl(), sentRequestAtMillis, receivedResponseAtMillis, now);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package net.callumtaylor.asynchttp;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * A call that sends a second identical request when the first has not responded after a delay. The
+ * first successful response is returned and the other call is cancelled. Responses that arrive after
+ * a winner has been picked are closed.
+ *
+ * Both calls are enqueued on the dispatcher of the client, and the calling thread waits for the result.
+ */
+public class HedgedCall
+{
+	private final OkHttpClient httpClient;
+	private final Request request;
+	private final BlockingQueue<Result> results = new LinkedBlockingQueue<Result>();
+	private volatile Call primary;
+	private volatile Call hedge;
+	private volatile boolean cancelled = false;
+	private boolean done = false;
+	private boolean hedgeWon = false;
+
+	public HedgedCall(OkHttpClient httpClient, Request request)
+	{
+		this.httpClient = httpClient;
+		this.request = request;
+	}
+
+	/**
+	 * Executes the request, blocking until a response is received or both calls have failed
+	 * @param delay The time in milliseconds to wait for a response before sending the hedged request
+	 * @return The first successful response
+	 * @throws IOException The exception of the primary call if both calls failed, or if the primary
+	 * call failed before the hedged request was sent
+	 */
+	public Response execute(long delay) throws IOException, InterruptedException
+	{
+		primary = enqueue(false);
+		int pending = 1;
+		IOException failure = null;
+
+		try
+		{
+			while (pending > 0)
+			{
+				Result result = hedge == null ? results.poll(delay, TimeUnit.MILLISECONDS) : results.take();
+
+				if (result == null)
+				{
+					hedge = enqueue(true);
+					pending++;
+					continue;
+				}
+
+				pending--;
+
+				if (result.response != null)
+				{
+					hedgeWon = result.hedge;
+					finish();
+
+					return result.response;
+				}
+
+				if (failure == null || !result.hedge)
+				{
+					failure = result.exception;
+				}
+
+				// The primary failed before the delay, so leave retrying to the retry policy
+				if (hedge == null)
+				{
+					break;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			cancel();
+			throw e;
+		}
+
+		finish();
+		throw failure;
+	}
+
+	/**
+	 * Cancels both calls
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+		cancel(primary);
+		cancel(hedge);
+	}
+
+	/**
+	 * @return True if the hedged request was sent
+	 */
+	public boolean isHedged()
+	{
+		return hedge != null;
+	}
+
+	/**
+	 * @return True if the response came from the hedged request
+	 */
+	public boolean isHedgeWon()
+	{
+		return hedgeWon;
+	}
+
+	private Call enqueue(final boolean isHedge)
+	{
+		Call call = ClientEngine.newCall(httpClient, request);
+
+		// Cancelled before the call was assigned
+		if (cancelled)
+		{
+			call.cancel();
+		}
+
+		call.enqueue(new Callback()
+		{
+			@Override public void onFailure(Call call, IOException e)
+			{
+				offer(new Result(isHedge, null, e));
+			}
+
+			@Override public void onResponse(Call call, Response response)
+			{
+				offer(new Result(isHedge, response, null));
+			}
+		});
+
+		return call;
+	}
+
+	private void offer(Result result)
+	{
+		synchronized (results)
+		{
+			if (!done)
+			{
+				results.add(result);
+				return;
+			}
+		}
+
+		if (result.response != null)
+		{
+			result.response.close();
+		}
+	}
+
+	/**
+	 * Cancels the calls still in flight and closes any responses that arrived after the winner
+	 */
+	private void finish()
+	{
+		synchronized (results)
+		{
+			done = true;
+		}
+
+		cancel(hedgeWon ? primary : hedge);
+
+		Result result;
+		while ((result = results.poll()) != null)
+		{
+			if (result.response != null)
+			{
+				result.response.close();
+			}
+		}
+	}
+
+	private static void cancel(Call call)
+	{
+		if (call != null)
+		{
+			call.cancel();
+		}
+	}
+
+	private static class Result
+	{
+		private final boolean hedge;
+		private final Response response;
+		private final IOException exception;
+
+		private Result(boolean hedge, Response response, IOException exception)
+		{
+			this.hedge = hedge;
+			this.response = response;
+			this.exception = exception;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package net.callumtaylor.asynchttp;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+/**
+ * Keeps the response latency of the most recent requests to each endpoint, recorded by
+ * {@link ClientExecutorTask} for every response from the network, so percentiles can be used to tune hedging and timeouts.
+ *
+ * An endpoint is the method, scheme, host, port and path of a request. The query is ignored.
+ */
+public class LatencyTracker
+{
+	/**
+	 * The number of recent samples kept for each endpoint
+	 */
+	public static final int WINDOW_SIZE = 100;
+
+	/**
+	 * The number of samples needed before a percentile is reported for an endpoint
+	 */
+	public static final int MIN_SAMPLES = 20;
+
+	/**
+	 * The number of endpoints tracked. The least recently used endpoint is dropped when there are more
+	 */
+	public static final int MAX_ENDPOINTS = 256;
+
+	private static final Map<String, Window> endpoints = new LinkedHashMap<String, Window>(16, 0.75f, true)
+	{
+		@Override protected boolean removeEldestEntry(Map.Entry<String, Window> eldest)
+		{
+			return size() > MAX_ENDPOINTS;
+		}
+	};
+
+	/**
+	 * @param request The request
+	 * @return The endpoint key for the request
+	 */
+	public static String getEndpoint(Request request)
+	{
+		HttpUrl url = request.url();
+		return request.method() + " " + url.scheme() + "://" + url.host() + ":" + url.port() + url.encodedPath();
+	}
+
+	/**
+	 * Records the latency of a response
+	 * @param endpoint The endpoint from {@link #getEndpoint(Request)}
+	 * @param latency The time in milliseconds until the response headers were received
+	 */
+	public static void record(String endpoint, long latency)
+	{
+		synchronized (endpoints)
+		{
+			Window window = endpoints.get(endpoint);
+
+			if (window == null)
+			{
+				window = new Window();
+				endpoints.put(endpoint, window);
+			}
+
+			window.add(latency);
+		}
+	}
+
+	/**
+	 * Gets a percentile of the recent latency of an endpoint
+	 * @param endpoint The endpoint from {@link #getEndpoint(Request)}
+	 * @param percentile The percentile, between 0 and 1, such as 0.95 for p95
+	 * @return The latency in milliseconds, or -1 if there are fewer than {@link #MIN_SAMPLES} samples
+	 */
+	public static long getPercentile(String endpoint, double percentile)
+	{
+		long[] samples;
+
+		synchronized (endpoints)
+		{
+			Window window = endpoints.get(endpoint);
+
+			if (window == null || window.count < MIN_SAMPLES)
+			{
+				return -1;
+			}
+
+			samples = Arrays.copyOf(window.samples, window.count);
+		}
+
+		Arrays.sort(samples);
+
+		int index = (int)Math.ceil(Math.max(0, Math.min(1, percentile)) * samples.length) - 1;
+		return samples[Math.max(0, index)];
+	}
+
+	/**
+	 * Clears the samples of every endpoint
+	 */
+	public static void reset()
+	{
+		synchronized (endpoints)
+		{
+			endpoints.clear();
+		}
+	}
+
+	private static class Window
+	{
+		private final long[] samples = new long[WINDOW_SIZE];
+		private int position = 0;
+		private int count = 0;
+
+		private void add(long latency)
+		{
+			samples[position] = latency;
+			position = (position + 1) % WINDOW_SIZE;
+			count = Math.min(WINDOW_SIZE, count + 1);
+		}
+	}
+}
@@ -0,0 +1,360 @@
+package net.callumtaylor.asynchttp;
+
+import net.callumtaylor.asynchttp.obj.CacheUtil;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * In-memory tier in front of the disk {@link okhttp3.Cache}. Responses to GET requests are kept in
+ * memory, and a request with a fresh response in the cache is served from it without touching the
+ * disk or the network.
+ *
+ * Entries are keyed by method and URL, and only match requests with the same values for the headers
+ * named in the response's {@code Vary} header. Freshness follows the {@code Cache-Control}, {@code Expires}
+ * and {@code Age} headers of the response, and the {@code Cache-Control} of the request, as a private cache.
+ * Responses without an explicit freshness lifetime are never served fresh.
+ *
+ * When the disk cache revalidates a response with a 304, the entry is refreshed without reading the body again.
+ *
+ * The cache is bounded by the total size of the bodies it holds, evicting the least recently used
+ * entries first. A single body is only stored if it is at most a quarter of the maximum size.
+ */
+public class MemoryCache
+{
+	private final long maxSize;
+	private final long maxEntrySize;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long size = 0;
+	private int hitCount = 0;
+	private int missCount = 0;
+	private int evictionCount = 0;
+
+	/**
+	 * @param maxSize The maximum total size of the cached bodies in bytes
+	 */
+	public MemoryCache(long maxSize)
+	{
+		this.maxSize = maxSize;
+		this.maxEntrySize = maxSize / 4;
+	}
+
+	/**
+	 * Gets a fresh response for the request from the cache, counting a hit or a miss
+	 * @param request The request to look up
+	 * @return A response built from the cached entry, or null if there is no fresh entry for the request
+	 */
+	public synchronized Response get(Request request)
+	{
+		if (!"GET".equals(request.method()))
+		{
+			return null;
+		}
+
+		CacheControl requestCaching = request.cacheControl();
+		Entry entry = entries.get(getKey(request));
+
+		if (entry == null || !entry.matches(request) || !entry.isFresh(requestCaching, System.currentTimeMillis()))
+		{
+			missCount++;
+			return null;
+		}
+
+		hitCount++;
+		return entry.toResponse(request);
+	}
+
+	/**
+	 * Stores a network response in the cache if it can be. The body of a stored response is read into memory
+	 * @param response The response to store
+	 * @return The response to use in place of the one given, as its body may have been read
+	 * @throws IOException If reading the body failed
+	 */
+	public Response put(Response response) throws IOException
+	{
+		Request request = response.request();
+
+		if (!isCacheable(response))
+		{
+			// A changed resource replaces what was cached for it, even if the new response can not be cached
+			if (CacheUtil.invalidatesCache(request.method()) || ("GET".equals(request.method()) && response.code() < 300))
+			{
+				remove(request.newBuilder().get().build());
+			}
+
+			return response;
+		}
+
+		// The disk cache revalidated the response, so refresh the entry without reading the body again
+		if (response.networkResponse() != null && response.networkResponse().code() == HttpURLConnection.HTTP_NOT_MODIFIED)
+		{
+			synchronized (this)
+			{
+				Entry previous = entries.get(getKey(request));
+
+				if (previous != null && previous.isValidatedBy(response.headers()))
+				{
+					entries.put(getKey(request), new Entry(previous, response));
+					return response;
+				}
+			}
+		}
+
+		ResponseBody body = response.body();
+		long contentLength = body.contentLength();
+
+		if (contentLength > maxEntrySize)
+		{
+			return response;
+		}
+
+		BufferedSource source = body.source();
+
+		// More than the limit, leave what was read in the buffer for the response handler
+		if (source.request(maxEntrySize + 1))
+		{
+			return response;
+		}
+
+		byte[] bytes = source.readByteArray();
+		Entry entry = new Entry(response, bytes);
+
+		synchronized (this)
+		{
+			Entry previous = entries.put(getKey(request), entry);
+
+			if (previous != null)
+			{
+				size -= previous.body.length;
+			}
+
+			size += bytes.length;
+			trimToSize();
+		}
+
+		body.close();
+		return response.newBuilder()
+			.body(ResponseBody.create(body.contentType(), bytes))
+			.build();
+	}
+
+	/**
+	 * Removes the entry for a request
+	 * @param request The request to remove the entry of
+	 */
+	public synchronized void remove(Request request)
+	{
+		Entry entry = entries.remove(getKey(request));
+
+		if (entry != null)
+		{
+			size -= entry.body.length;
+		}
+	}
+
+	/**
+	 * Removes all of the entries
+	 */
+	public synchronized void evictAll()
+	{
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return The total size of the cached bodies in bytes
+	 */
+	public synchronized long size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return The maximum total size of the cached bodies in bytes
+	 */
+	public long maxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * @return The number of requests that were served from the cache
+	 */
+	public synchronized int hitCount()
+	{
+		return hitCount;
+	}
+
+	/**
+	 * @return The number of requests that were looked up but had no fresh entry
+	 */
+	public synchronized int missCount()
+	{
+		return missCount;
+	}
+
+	/**
+	 * @return The number of entries that were removed to make room for others
+	 */
+	public synchronized int evictionCount()
+	{
+		return evictionCount;
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counts back to 0
+	 */
+	public synchronized void resetCounts()
+	{
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+	}
+
+	private void trimToSize()
+	{
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+		while (size > maxSize && iterator.hasNext())
+		{
+			size -= iterator.next().getValue().body.length;
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+
+	private static String getKey(Request request)
+	{
+		return request.method() + " " + request.url();
+	}
+
+	/**
+	 * Checks if a response can be stored, following the same rules as the disk cache
+	 */
+	private static boolean isCacheable(Response response)
+	{
+		if (!"GET".equals(response.request().method()) || response.body() == null)
+		{
+			return false;
+		}
+
+		switch (response.code())
+		{
+			case 200:
+			case 203:
+			case 204:
+			case 300:
+			case 301:
+			case 308:
+			case 404:
+			case 405:
+			case 410:
+			case 414:
+			case 501:
+				break;
+
+			default:
+				return false;
+		}
+
+		return !response.cacheControl().noStore()
+			&& !response.request().cacheControl().noStore()
+			&& !CacheUtil.getVaryFields(response.headers()).contains("*");
+	}
+
+	/**
+	 * A cached response
+	 */
+	private static class Entry
+	{
+		private final Headers varyHeaders;
+		private final Protocol protocol;
+		private final int code;
+		private final String message;
+		private final Headers headers;
+		private final byte[] body;
+		private final long sentRequestAtMillis;
+		private final long receivedResponseAtMillis;
+
+		private Entry(Response response, byte[] body)
+		{
+			this.varyHeaders = CacheUtil.getVaryHeaders(response.headers(), response.request().headers());
+			this.protocol = response.protocol();
+			this.code = response.code();
+			this.message = response.message();
+			this.headers = response.headers();
+			this.body = body;
+			this.sentRequestAtMillis = response.sentRequestAtMillis();
+			this.receivedResponseAtMillis = response.receivedResponseAtMillis();
+		}
+
+		private Entry(Entry previous, Response response)
+		{
+			this.varyHeaders = previous.varyHeaders;
+			this.protocol = response.protocol();
+			this.code = previous.code;
+			this.message = previous.message;
+			this.headers = response.headers();
+			this.body = previous.body;
+			this.sentRequestAtMillis = response.sentRequestAtMillis();
+			this.receivedResponseAtMillis = response.receivedResponseAtMillis();
+		}
+
+		/**
+		 * @return True if the headers of a revalidated response have the same {@code ETag} or {@code Last-Modified} as the cached response
+		 */
+		private boolean isValidatedBy(Headers headers)
+		{
+			String etag = this.headers.get("ETag");
+			String lastModified = this.headers.get("Last-Modified");
+
+			if (etag != null)
+			{
+				return etag.equals(headers.get("ETag"));
+			}
+
+			return lastModified != null && lastModified.equals(headers.get("Last-Modified"));
+		}
+
+		/**
+		 * @return True if the request has the same values as the cached request for the headers the response varies by
+		 */
+		private boolean matches(Request request)
+		{
+			return CacheUtil.varyMatches(headers, varyHeaders, request.headers());
+		}
+
+		private boolean isFresh(CacheControl requestCaching, long now)
+		{
+			return CacheUtil.isFresh(headers, requestCaching, sentRequestAtMillis, receivedResponseAtMillis, now);
+		}
+
+		private Response toResponse(Request request)
+		{
+			String contentType = headers.get("Content-Type");
+
+			return new Response.Builder()
+				.request(request)
+				.protocol(protocol)
+				.code(code)
+				.message(message)
+				.headers(headers)
+				.body(ResponseBody.create(contentType != null ? MediaType.parse(contentType) : null, body))
+				.sentRequestAtMillis(sentRequestAtMillis)
+				.receivedResponseAtMillis(receivedResponseAtMillis)
+				.build();
+		}
+	}
+}
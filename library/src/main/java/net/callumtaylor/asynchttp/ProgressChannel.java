@@ -0,0 +1,118 @@
+package net.callumtaylor.asynchttp;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Passes progress from the request thread to the main thread without allocating per update. The
+ * latest upload and download counters are kept in fields, and a single reused runnable is posted to
+ * the main thread to read them. Whilst that runnable is waiting to run, further updates only
+ * overwrite the counters, so the main thread always sees the latest snapshot and never a backlog.
+ *
+ * Updates posted before the request finishes are delivered before {@link android.os.AsyncTask#onPostExecute(Object)},
+ * as both go through the main looper in order.
+ */
+public abstract class ProgressChannel
+{
+	private final Handler handler;
+	private final Object lock = new Object();
+	private long downloadLength;
+	private long downloadTotal;
+	private boolean downloadChanged = false;
+	private long uploadLength;
+	private long uploadTotal;
+	private boolean uploadChanged = false;
+	private boolean posted = false;
+
+	private final Runnable dispatch = new Runnable()
+	{
+		@Override public void run()
+		{
+			long downloadLength, downloadTotal, uploadLength, uploadTotal;
+			boolean downloadChanged, uploadChanged;
+
+			synchronized (lock)
+			{
+				downloadLength = ProgressChannel.this.downloadLength;
+				downloadTotal = ProgressChannel.this.downloadTotal;
+				downloadChanged = ProgressChannel.this.downloadChanged;
+				uploadLength = ProgressChannel.this.uploadLength;
+				uploadTotal = ProgressChannel.this.uploadTotal;
+				uploadChanged = ProgressChannel.this.uploadChanged;
+
+				ProgressChannel.this.downloadChanged = false;
+				ProgressChannel.this.uploadChanged = false;
+				posted = false;
+			}
+
+			// The request body is sent before the response is read
+			if (uploadChanged)
+			{
+				onProgress(uploadLength, uploadTotal, false);
+			}
+
+			if (downloadChanged)
+			{
+				onProgress(downloadLength, downloadTotal, true);
+			}
+		}
+	};
+
+	/**
+	 * Creates a channel that delivers progress on the main thread
+	 */
+	public ProgressChannel()
+	{
+		this(new Handler(Looper.getMainLooper()));
+	}
+
+	/**
+	 * @param handler The handler of the thread to deliver progress on
+	 */
+	public ProgressChannel(Handler handler)
+	{
+		this.handler = handler;
+	}
+
+	/**
+	 * Records the latest progress of a transfer, and posts it to be delivered if a delivery is not already waiting
+	 * @param length The number of bytes transferred
+	 * @param total The total number of bytes to transfer
+	 * @param isDownload True for the response, false for the request body
+	 */
+	public void publish(long length, long total, boolean isDownload)
+	{
+		synchronized (lock)
+		{
+			if (isDownload)
+			{
+				downloadLength = length;
+				downloadTotal = total;
+				downloadChanged = true;
+			}
+			else
+			{
+				uploadLength = length;
+				uploadTotal = total;
+				uploadChanged = true;
+			}
+
+			if (posted)
+			{
+				return;
+			}
+
+			posted = true;
+		}
+
+		handler.post(dispatch);
+	}
+
+	/**
+	 * Called on the thread of the handler with the latest progress of a transfer
+	 * @param length The number of bytes transferred
+	 * @param total The total number of bytes to transfer
+	 * @param isDownload True for the response, false for the request body
+	 */
+	protected abstract void onProgress(long length, long total, boolean isDownload);
+}
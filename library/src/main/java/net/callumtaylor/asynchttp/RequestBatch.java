@@ -0,0 +1,234 @@
+package net.callumtaylor.asynchttp;
+
+import android.support.annotation.Nullable;
+
+import net.callumtaylor.asynchttp.obj.BatchRequest;
+import net.callumtaylor.asynchttp.obj.ClientTaskImpl;
+import net.callumtaylor.asynchttp.obj.ConnectionInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of requests made with {@link AsyncHttpClient#batch(List, int, boolean, Listener)} or
+ * {@link SyncHttpClient#batch(List, int, boolean)}. At most the given number of requests are in flight
+ * at once, and the next request is started as each one finishes. Results are kept in the same order
+ * as the requests.
+ *
+ * With fail-fast, the first request that fails cancels the requests still in flight, and the requests
+ * that have not started yet are skipped.
+ */
+public class RequestBatch<E>
+{
+	/**
+	 * Listener for the completion of a batch
+	 */
+	public interface Listener<E>
+	{
+		/**
+		 * Called once every request has finished, been cancelled or been skipped. For
+		 * {@link AsyncHttpClient} this is called on the main thread, after the response handler of the last request
+		 * @param batch The batch that completed
+		 */
+		public void onComplete(RequestBatch<E> batch);
+	}
+
+	private final List<BatchRequest<E>> requests;
+	private final boolean failFast;
+	private final Listener<E> listener;
+	private final ClientTaskImpl[] tasks;
+	private final boolean[] finished;
+	private int nextIndex = 0;
+	private int startedCount = 0;
+	private int finishedCount = 0;
+	private int failureCount = 0;
+	private boolean stopped = false;
+	private boolean cancelled = false;
+	private boolean completed = false;
+
+	protected RequestBatch(List<BatchRequest<E>> requests, boolean failFast, @Nullable Listener<E> listener)
+	{
+		this.requests = new ArrayList<BatchRequest<E>>(requests);
+		this.failFast = failFast;
+		this.listener = listener;
+		this.tasks = new ClientTaskImpl[requests.size()];
+		this.finished = new boolean[requests.size()];
+	}
+
+	/**
+	 * @return The requests in the batch
+	 */
+	public List<BatchRequest<E>> getRequests()
+	{
+		return Collections.unmodifiableList(requests);
+	}
+
+	/**
+	 * Gets the content of each request, in the same order as the requests. Requests that failed, were
+	 * cancelled or were skipped have a null result, use {@link #isSuccessful(int)} to tell them apart
+	 * @return The results of the batch
+	 */
+	public List<E> getResults()
+	{
+		List<E> results = new ArrayList<E>(requests.size());
+
+		for (int index = 0; index < requests.size(); index++)
+		{
+			results.add(isSuccessful(index) ? requests.get(index).response.getContent() : null);
+		}
+
+		return results;
+	}
+
+	/**
+	 * @param index The index of the request
+	 * @return True if the request has finished with a successful response
+	 */
+	public synchronized boolean isSuccessful(int index)
+	{
+		return finished[index] && tasks[index] != null && !tasks[index].isCancelled() && isSuccess(requests.get(index).response.getConnectionInfo());
+	}
+
+	/**
+	 * @return The number of requests that finished with a failure, not counting cancelled or skipped requests
+	 */
+	public synchronized int getFailureCount()
+	{
+		return failureCount;
+	}
+
+	/**
+	 * @return True if every request has finished, been cancelled or been skipped
+	 */
+	public synchronized boolean isFinished()
+	{
+		return (stopped || nextIndex == requests.size()) && finishedCount == startedCount;
+	}
+
+	/**
+	 * @return True if the batch was cancelled, either with {@link #cancel()} or by a failure with fail-fast
+	 */
+	public synchronized boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Cancels the requests in flight and skips the requests that have not started
+	 */
+	public void cancel()
+	{
+		List<ClientTaskImpl> running = new ArrayList<ClientTaskImpl>();
+
+		synchronized (this)
+		{
+			stopped = true;
+			cancelled = true;
+
+			for (int index = 0; index < tasks.length; index++)
+			{
+				if (tasks[index] != null && !finished[index])
+				{
+					running.add(tasks[index]);
+				}
+			}
+		}
+
+		for (ClientTaskImpl task : running)
+		{
+			task.cancel();
+		}
+	}
+
+	/**
+	 * Takes the next request to start
+	 * @return The index of the request, or -1 if there are none left or the batch has stopped
+	 */
+	protected synchronized int next()
+	{
+		if (stopped || nextIndex == requests.size())
+		{
+			return -1;
+		}
+
+		startedCount++;
+		return nextIndex++;
+	}
+
+	/**
+	 * Sets the task running a request, so it can be cancelled with the batch
+	 */
+	protected void setTask(int index, ClientTaskImpl task)
+	{
+		boolean cancel;
+
+		synchronized (this)
+		{
+			tasks[index] = task;
+			cancel = cancelled;
+		}
+
+		if (cancel)
+		{
+			task.cancel();
+		}
+	}
+
+	/**
+	 * Records a request as finished, cancelling the batch if it failed and fail-fast is on
+	 * @return True if this was the last request of the batch, in which case the listener has been called
+	 */
+	protected boolean finish(int index)
+	{
+		boolean failed;
+
+		synchronized (this)
+		{
+			finished[index] = true;
+			finishedCount++;
+			failed = tasks[index] != null && !tasks[index].isCancelled() && !isSuccess(requests.get(index).response.getConnectionInfo());
+
+			if (failed)
+			{
+				failureCount++;
+			}
+		}
+
+		if (failed && failFast)
+		{
+			cancel();
+		}
+
+		return complete();
+	}
+
+	/**
+	 * Calls the listener if every request has finished and it has not been called yet
+	 * @return True if the listener was called
+	 */
+	protected boolean complete()
+	{
+		synchronized (this)
+		{
+			if (completed || !isFinished())
+			{
+				return false;
+			}
+
+			completed = true;
+		}
+
+		if (listener != null)
+		{
+			listener.onComplete(this);
+		}
+
+		return true;
+	}
+
+	private static boolean isSuccess(ConnectionInfo connectionInfo)
+	{
+		return connectionInfo.responseCode < 400 && connectionInfo.responseCode > 100;
+	}
+}
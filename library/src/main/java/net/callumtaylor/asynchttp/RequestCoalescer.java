@@ -0,0 +1,323 @@
+package net.callumtaylor.asynchttp;
+
+import net.callumtaylor.asynchttp.obj.ClientTaskImpl;
+import net.callumtaylor.asynchttp.obj.HostLimiter;
+import net.callumtaylor.asynchttp.obj.TimeoutConfig;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Shares a single network call between identical GET and HEAD requests that are in flight at the
+ * same time. The first request makes the call and reads the body in to memory, and any identical
+ * requests made before it completes wait for it and receive their own copy of the response.
+ *
+ * Requests are identical when they are made with the same client, and have the same method, url and headers.
+ * Every header is compared, as any of them could change the response, such as an api key or a user id.
+ *
+ * Every request sharing a call is a waiter on it. A waiter that is cancelled, or passes its deadline, stops
+ * waiting straight away, and the call itself is only cancelled once every waiter has been cancelled.
+ *
+ * Because the body is held in memory, this should not be used for large downloads.
+ */
+public class RequestCoalescer
+{
+	/**
+	 * How often a waiting request checks if it has been cancelled
+	 */
+	private static final long CANCEL_CHECK_INTERVAL = 100;
+
+	private static final Map<List<Object>, SharedCall> inFlight = new HashMap<List<Object>, SharedCall>();
+
+	/**
+	 * Executes the request, or waits for an identical request that is already in flight
+	 * @param client The client to make the call with
+	 * @param request The request to make
+	 * @param hostLimiter The limiter to acquire before making the call, or null for no limit
+	 * @param task The task making the request, which is cancelled with {@link #cancel(ClientTaskImpl)}
+	 * @return The response, and whether it was shared with another request
+	 * @throws IOException If the call failed. Requests that waited for another request's call fail with a {@link SharedCallException}
+	 */
+	public static Result execute(OkHttpClient client, Request request, HostLimiter hostLimiter, ClientTaskImpl task) throws IOException
+	{
+		List<Object> key = getKey(client, request);
+		SharedCall sharedCall;
+		boolean leader = false;
+
+		synchronized (inFlight)
+		{
+			sharedCall = inFlight.get(key);
+
+			if (sharedCall == null)
+			{
+				sharedCall = new SharedCall();
+				inFlight.put(key, sharedCall);
+				leader = true;
+			}
+
+			sharedCall.waiters.add(task);
+		}
+
+		if (leader)
+		{
+			try
+			{
+				sharedCall.response = call(client, request, hostLimiter, sharedCall);
+			}
+			catch (IOException e)
+			{
+				sharedCall.exception = e;
+				throw e;
+			}
+			catch (RuntimeException e)
+			{
+				sharedCall.exception = new IOException(e);
+				throw e;
+			}
+			finally
+			{
+				synchronized (inFlight)
+				{
+					inFlight.remove(key);
+					sharedCall.waiters.clear();
+				}
+
+				sharedCall.signal.countDown();
+			}
+
+			return new Result(sharedCall.copy(request), false);
+		}
+
+		await(sharedCall, request, task);
+
+		if (sharedCall.exception != null)
+		{
+			throw new SharedCallException("Shared request failed", sharedCall.exception);
+		}
+
+		return new Result(sharedCall.copy(request), true);
+	}
+
+	/**
+	 * Stops a task waiting for a shared call. The call is cancelled if no other task is waiting for it
+	 * @param task The task that was cancelled
+	 */
+	public static void cancel(ClientTaskImpl task)
+	{
+		synchronized (inFlight)
+		{
+			for (SharedCall sharedCall : inFlight.values())
+			{
+				if (sharedCall.waiters.remove(task))
+				{
+					sharedCall.cancelIfUnused();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for the leader of a shared call to finish, until the task is cancelled or its deadline passes
+	 */
+	private static void await(SharedCall sharedCall, Request request, ClientTaskImpl task) throws IOException
+	{
+		ClientEngine.Deadline deadline = request.tag(ClientEngine.Deadline.class);
+
+		try
+		{
+			while (true)
+			{
+				long wait = deadline == null ? CANCEL_CHECK_INTERVAL : Math.min(CANCEL_CHECK_INTERVAL, deadline.remaining());
+
+				if (task.isCancelled())
+				{
+					throw new SharedCallException("Canceled", null);
+				}
+				else if (wait <= 0)
+				{
+					throw new SharedCallException("timeout", null);
+				}
+				else if (sharedCall.signal.await(wait, TimeUnit.MILLISECONDS))
+				{
+					return;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			throw new SharedCallException("Interrupted whilst waiting for shared request", e);
+		}
+		finally
+		{
+			synchronized (inFlight)
+			{
+				if (sharedCall.waiters.remove(task))
+				{
+					sharedCall.cancelIfUnused();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of distinct requests currently in flight through the coalescer
+	 */
+	public static int getInFlightCount()
+	{
+		synchronized (inFlight)
+		{
+			return inFlight.size();
+		}
+	}
+
+	private static Response call(OkHttpClient client, Request request, HostLimiter hostLimiter, SharedCall sharedCall) throws IOException
+	{
+		String host = request.url().host();
+
+		if (hostLimiter != null)
+		{
+			try
+			{
+				hostLimiter.acquire(host);
+			}
+			catch (InterruptedException e)
+			{
+				throw new InterruptedIOException("Interrupted whilst waiting for host limit");
+			}
+		}
+
+		try
+		{
+			Call call = ClientEngine.newCall(client, request);
+
+			synchronized (inFlight)
+			{
+				sharedCall.call = call;
+
+				// Every waiter was cancelled before the call was assigned
+				if (sharedCall.cancelled)
+				{
+					call.cancel();
+				}
+			}
+
+			Response response = call.execute();
+			ResponseBody body = response.body();
+
+			if (body != null)
+			{
+				sharedCall.contentType = body.contentType();
+				sharedCall.body = body.bytes();
+			}
+
+			return response.newBuilder().body(null).build();
+		}
+		finally
+		{
+			if (hostLimiter != null)
+			{
+				hostLimiter.release(host);
+			}
+		}
+	}
+
+	/**
+	 * Clients are shared by {@link ClientEngine} for each config, so requests made with a different config,
+	 * such as different SSL settings, never share a call. Nor do requests with different timeouts
+	 */
+	private static List<Object> getKey(OkHttpClient client, Request request)
+	{
+		return Arrays.<Object>asList(client, request.method(), request.url(), request.headers(), request.tag(TimeoutConfig.class), request.tag(ClientEngine.ReadTimeout.class));
+	}
+
+	/**
+	 * The response from {@link #execute(OkHttpClient, Request, HostLimiter)}
+	 */
+	public static class Result
+	{
+		/**
+		 * The response. Its body is held in memory and has not been read
+		 */
+		public final Response response;
+
+		/**
+		 * True if the response came from another identical request that was already in flight
+		 */
+		public final boolean coalesced;
+
+		public Result(Response response, boolean coalesced)
+		{
+			this.response = response;
+			this.coalesced = coalesced;
+		}
+	}
+
+	/**
+	 * Thrown to a request that waited for the call of another request, when the shared call failed, or the
+	 * request was cancelled or passed its deadline whilst waiting. The outcome of the call is only recorded
+	 * by the request that made it
+	 */
+	public static class SharedCallException extends IOException
+	{
+		public SharedCallException(String message, Throwable cause)
+		{
+			super(message, cause);
+		}
+	}
+
+	/**
+	 * A call in flight. The waiters and call are guarded by the lock of {@link #inFlight}
+	 */
+	private static class SharedCall
+	{
+		private final CountDownLatch signal = new CountDownLatch(1);
+		private final Set<ClientTaskImpl> waiters = new HashSet<ClientTaskImpl>();
+		private Call call;
+		private boolean cancelled = false;
+		private volatile Response response;
+		private volatile MediaType contentType;
+		private volatile byte[] body;
+		private volatile IOException exception;
+
+		private void cancelIfUnused()
+		{
+			if (waiters.isEmpty() && signal.getCount() > 0)
+			{
+				cancelled = true;
+
+				if (call != null)
+				{
+					call.cancel();
+				}
+			}
+		}
+
+		private Response copy(Request request)
+		{
+			Response.Builder builder = response.newBuilder().request(request);
+
+			if (body != null)
+			{
+				builder.body(ResponseBody.create(contentType, body));
+			}
+
+			return builder.build();
+		}
+	}
+}
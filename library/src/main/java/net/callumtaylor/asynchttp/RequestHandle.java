@@ -0,0 +1,67 @@
+package net.callumtaylor.asynchttp;
+
+import android.os.AsyncTask;
+import android.support.annotation.Nullable;
+
+import net.callumtaylor.asynchttp.obj.ConnectionInfo;
+import net.callumtaylor.asynchttp.obj.RequestPriority;
+
+/**
+ * Handle for a single request made by {@link AsyncHttpClient}. Use this to cancel or re-prioritise
+ * the request without affecting any other requests made by the same client.
+ */
+public class RequestHandle
+{
+	private final AsyncHttpClient.AsyncClientExecutorTask task;
+
+	protected RequestHandle(AsyncHttpClient.AsyncClientExecutorTask task)
+	{
+		this.task = task;
+	}
+
+	/**
+	 * Cancels the request. The response handler will not receive any more callbacks.
+	 */
+	public void cancel()
+	{
+		task.cancelRequest();
+	}
+
+	/**
+	 * @return True if the request has been cancelled
+	 */
+	public boolean isCancelled()
+	{
+		return task.clientTask.isCancelled();
+	}
+
+	/**
+	 * @return True if the request has finished and its response handler has been called
+	 */
+	public boolean isFinished()
+	{
+		return task.getStatus() == AsyncTask.Status.FINISHED;
+	}
+
+	/**
+	 * Changes the priority of the request. This only has an effect if the request is still waiting
+	 * in a {@link RequestScheduler} queue.
+	 * @param priority The new priority
+	 */
+	public void setPriority(RequestPriority priority)
+	{
+		if (task.scheduledRequest != null)
+		{
+			task.scheduledRequest.setPriority(priority);
+		}
+	}
+
+	/**
+	 * @return The connection info of the request, or null if the request was made without a response handler
+	 */
+	@Nullable
+	public ConnectionInfo getConnectionInfo()
+	{
+		return task.clientTask.response == null ? null : task.clientTask.response.getConnectionInfo();
+	}
+}
@@ -0,0 +1,325 @@
+package net.callumtaylor.asynchttp;
+
+import net.callumtaylor.asynchttp.obj.RequestPriority;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Schedules requests made by {@link AsyncHttpClient} on to an executor, limiting the number of
+ * requests that can be in flight at once, both globally and per host.
+ *
+ * Requests over the limit wait in a queue. Higher {@link RequestPriority} requests are always started
+ * first, and requests of the same priority are started in the order they were made. A request for a
+ * host that is at its limit does not hold up queued requests for other hosts. {@link RequestPriority#IMMEDIATE}
+ * requests are started straight away, ignoring the limits.
+ *
+ * If the executor rejects a request, for example because it has been shut down, the request's slot is
+ * freed and its task is cancelled if it is a {@link Future}, otherwise it is dropped.
+ *
+ * Share a single scheduler between clients for the limits to apply to all of them, for example
+ * <pre>
+ 	RequestScheduler scheduler = new RequestScheduler(Executors.newFixedThreadPool(8), 8, 4);
+
+	AsyncHttpClient client = new AsyncHttpClient("http://example.com/");
+	client.setScheduler(scheduler);
+ * </pre>
+ */
+public class RequestScheduler
+{
+	private final Executor executor;
+	private final int maxRequests;
+	private final int maxRequestsPerHost;
+
+	private final TreeSet<ScheduledRequest> queue = new TreeSet<ScheduledRequest>(new Comparator<ScheduledRequest>()
+	{
+		@Override public int compare(ScheduledRequest lhs, ScheduledRequest rhs)
+		{
+			int priority = lhs.priority.compareTo(rhs.priority);
+
+			if (priority != 0)
+			{
+				return priority;
+			}
+
+			return lhs.sequence < rhs.sequence ? -1 : (lhs.sequence == rhs.sequence ? 0 : 1);
+		}
+	});
+
+	private final Map<String, Integer> runningPerHost = new HashMap<String, Integer>();
+	private int runningCount = 0;
+	private long sequence = 0;
+
+	/**
+	 * @param executor The executor to run the requests on
+	 * @param maxRequests The maximum number of requests in flight at once. 0 for no limit
+	 * @param maxRequestsPerHost The maximum number of requests in flight to a single host at once. 0 for no limit
+	 */
+	public RequestScheduler(Executor executor, int maxRequests, int maxRequestsPerHost)
+	{
+		this.executor = executor;
+		this.maxRequests = maxRequests;
+		this.maxRequestsPerHost = maxRequestsPerHost;
+	}
+
+	/**
+	 * Creates a request that is queued when its task is executed. The returned request can be passed
+	 * to {@link android.os.AsyncTask#executeOnExecutor}, and re-prioritised whilst it is still queued.
+	 * @param host The host of the request
+	 * @param priority The priority of the request
+	 * @return The request to execute the task with
+	 */
+	public ScheduledRequest newRequest(String host, RequestPriority priority)
+	{
+		return new ScheduledRequest(host == null ? "" : host, priority == null ? RequestPriority.NORMAL : priority);
+	}
+
+	/**
+	 * Queues a task to run as a request to the given host with {@link RequestPriority#NORMAL} priority
+	 * @param host The host of the request
+	 * @param runnable The task to run
+	 */
+	public ScheduledRequest schedule(String host, Runnable runnable)
+	{
+		return schedule(host, RequestPriority.NORMAL, runnable);
+	}
+
+	/**
+	 * Queues a task to run as a request to the given host
+	 * @param host The host of the request
+	 * @param priority The priority of the request
+	 * @param runnable The task to run
+	 */
+	public ScheduledRequest schedule(String host, RequestPriority priority, Runnable runnable)
+	{
+		ScheduledRequest request = newRequest(host, priority);
+		request.execute(runnable);
+
+		return request;
+	}
+
+	/**
+	 * @return The number of requests waiting to be started
+	 */
+	public synchronized int getQueuedCount()
+	{
+		return queue.size();
+	}
+
+	/**
+	 * @return The number of requests currently in flight
+	 */
+	public synchronized int getRunningCount()
+	{
+		return runningCount;
+	}
+
+	private void enqueue(ScheduledRequest request)
+	{
+		synchronized (this)
+		{
+			request.sequence = sequence++;
+			queue.add(request);
+		}
+
+		promote();
+	}
+
+	/**
+	 * Starts as many queued requests as the limits allow
+	 */
+	private void promote()
+	{
+		LinkedList<ScheduledRequest> ready = new LinkedList<ScheduledRequest>();
+
+		synchronized (this)
+		{
+			Iterator<ScheduledRequest> iterator = queue.iterator();
+			while (iterator.hasNext())
+			{
+				ScheduledRequest request = iterator.next();
+				boolean immediate = request.priority == RequestPriority.IMMEDIATE;
+
+				if (!immediate && maxRequests > 0 && runningCount >= maxRequests)
+				{
+					break;
+				}
+
+				int hostCount = getRunningCount(request.host);
+				if (immediate || maxRequestsPerHost <= 0 || hostCount < maxRequestsPerHost)
+				{
+					iterator.remove();
+					request.queued = false;
+					runningPerHost.put(request.host, hostCount + 1);
+					runningCount++;
+					ready.add(request);
+				}
+			}
+		}
+
+		boolean rejected = false;
+		for (ScheduledRequest request : ready)
+		{
+			try
+			{
+				executor.execute(request);
+			}
+			catch (RejectedExecutionException e)
+			{
+				release(request);
+				reject(request);
+				rejected = true;
+			}
+		}
+
+		// The rejected requests' slots can go to whatever is still queued
+		if (rejected)
+		{
+			promote();
+		}
+	}
+
+	private void finished(ScheduledRequest request)
+	{
+		release(request);
+		promote();
+	}
+
+	private synchronized void release(ScheduledRequest request)
+	{
+		int hostCount = getRunningCount(request.host) - 1;
+
+		if (hostCount > 0)
+		{
+			runningPerHost.put(request.host, hostCount);
+		}
+		else
+		{
+			runningPerHost.remove(request.host);
+		}
+
+		runningCount--;
+	}
+
+	/**
+	 * Fails a request the executor would not run. An {@link android.os.AsyncTask}'s task is a {@link Future},
+	 * so cancelling it delivers its {@code onCancelled} callback
+	 */
+	private void reject(ScheduledRequest request)
+	{
+		if (request.runnable instanceof Future)
+		{
+			((Future<?>)request.runnable).cancel(false);
+		}
+	}
+
+	private void setPriority(ScheduledRequest request, RequestPriority priority)
+	{
+		synchronized (this)
+		{
+			if (request.queued)
+			{
+				queue.remove(request);
+				request.priority = priority;
+				queue.add(request);
+			}
+			else
+			{
+				request.priority = priority;
+			}
+		}
+
+		promote();
+	}
+
+	private int getRunningCount(String host)
+	{
+		Integer count = runningPerHost.get(host);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * A single request in the scheduler. Executing a task on it queues the task to be ran.
+	 */
+	public class ScheduledRequest implements Executor, Runnable
+	{
+		private final String host;
+		private RequestPriority priority;
+		private Runnable runnable;
+		private long sequence;
+		private boolean queued = false;
+
+		private ScheduledRequest(String host, RequestPriority priority)
+		{
+			this.host = host;
+			this.priority = priority;
+		}
+
+		/**
+		 * Queues the task for this request. Can only be called once.
+		 * @param runnable The task to run
+		 */
+		@Override public void execute(Runnable runnable)
+		{
+			synchronized (RequestScheduler.this)
+			{
+				if (this.runnable != null)
+				{
+					throw new IllegalStateException("Request has already been executed");
+				}
+
+				this.runnable = runnable;
+				this.queued = true;
+			}
+
+			enqueue(this);
+		}
+
+		@Override public void run()
+		{
+			try
+			{
+				runnable.run();
+			}
+			finally
+			{
+				finished(this);
+			}
+		}
+
+		/**
+		 * Changes the priority of the request. This only has an effect if the request is still queued.
+		 * @param priority The new priority
+		 */
+		public void setPriority(RequestPriority priority)
+		{
+			RequestScheduler.this.setPriority(this, priority == null ? RequestPriority.NORMAL : priority);
+		}
+
+		public RequestPriority getPriority()
+		{
+			synchronized (RequestScheduler.this)
+			{
+				return priority;
+			}
+		}
+
+		/**
+		 * @return True if the request is waiting to be started
+		 */
+		public boolean isQueued()
+		{
+			synchronized (RequestScheduler.this)
+			{
+				return queued;
+			}
+		}
+	}
+}
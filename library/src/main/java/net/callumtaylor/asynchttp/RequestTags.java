@@ -0,0 +1,122 @@
+package net.callumtaylor.asynchttp;
+
+import net.callumtaylor.asynchttp.obj.ClientTaskImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry of requests that have been tagged with {@code setTags()} on {@link AsyncHttpClient} or
+ * {@link SyncHttpClient}. Requests are registered from when they are made, including whilst they are
+ * queued, until they finish or are cancelled.
+ *
+ * Use this to cancel every request started by a screen when the user leaves it, for example
+ * <pre>
+ 	AsyncHttpClient client = new AsyncHttpClient("http://example.com/");
+	client.setTags(this);
+	client.get("feed", handler);
+
+	// In onDestroy()
+	RequestTags.cancel(this);
+ * </pre>
+ */
+public class RequestTags
+{
+	private static final Map<Object, Set<ClientTaskImpl>> requests = new HashMap<Object, Set<ClientTaskImpl>>();
+
+	/**
+	 * Cancels every queued or running request with the given tag, across all clients
+	 * @param tag The tag to cancel
+	 * @return The number of requests that were cancelled
+	 */
+	public static int cancel(Object tag)
+	{
+		List<ClientTaskImpl> tasks;
+
+		synchronized (requests)
+		{
+			Set<ClientTaskImpl> tagged = requests.remove(tag);
+
+			if (tagged == null)
+			{
+				return 0;
+			}
+
+			tasks = new ArrayList<ClientTaskImpl>(tagged);
+		}
+
+		for (ClientTaskImpl task : tasks)
+		{
+			task.cancel();
+		}
+
+		return tasks.size();
+	}
+
+	/**
+	 * @param tag The tag to look up
+	 * @return The number of queued or running requests with the given tag
+	 */
+	public static int getCount(Object tag)
+	{
+		synchronized (requests)
+		{
+			Set<ClientTaskImpl> tagged = requests.get(tag);
+			return tagged == null ? 0 : tagged.size();
+		}
+	}
+
+	protected static void register(ClientTaskImpl task, Object[] tags)
+	{
+		if (tags == null)
+		{
+			return;
+		}
+
+		synchronized (requests)
+		{
+			for (Object tag : tags)
+			{
+				Set<ClientTaskImpl> tagged = requests.get(tag);
+
+				if (tagged == null)
+				{
+					tagged = new LinkedHashSet<ClientTaskImpl>();
+					requests.put(tag, tagged);
+				}
+
+				tagged.add(task);
+			}
+		}
+	}
+
+	protected static void unregister(ClientTaskImpl task, Object[] tags)
+	{
+		if (tags == null)
+		{
+			return;
+		}
+
+		synchronized (requests)
+		{
+			for (Object tag : tags)
+			{
+				Set<ClientTaskImpl> tagged = requests.get(tag);
+
+				if (tagged != null)
+				{
+					tagged.remove(task);
+
+					if (tagged.isEmpty())
+					{
+						requests.remove(tag);
+					}
+				}
+			}
+		}
+	}
+}
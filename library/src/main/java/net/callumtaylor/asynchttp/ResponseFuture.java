@@ -0,0 +1,382 @@
+package net.callumtaylor.asynchttp;
+
+import android.support.annotation.Nullable;
+
+import net.callumtaylor.asynchttp.obj.ConnectionInfo;
+import net.callumtaylor.asynchttp.obj.ResponseException;
+import net.callumtaylor.asynchttp.response.ResponseHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending result of a request made with {@link AsyncHttpClient#future(net.callumtaylor.asynchttp.obj.RequestMode, String, ResponseHandler)}.
+ *
+ * The future completes on the thread that ran the request, as soon as the content has been
+ * generated, without waiting for the main thread. Listeners are run on the executor they were added
+ * with. A request that did not receive a successful response fails with a {@link ResponseException}.
+ *
+ * Cancelling the future cancels the request. Futures created with {@link #then(Continuation, Executor)}
+ * cancel whichever request of the chain is in flight.
+ * <p>
+ * Example loading a user, then their posts, without blocking a thread
+ * <pre>
+	client.future(RequestMode.GET, "user", new GsonResponseHandler&lt;User&gt;(User.class))
+		.then(new ResponseFuture.Continuation&lt;User, Post[]&gt;()
+		{
+			&#064;Override public ResponseFuture&lt;Post[]&gt; then(User user)
+			{
+				return client.future(RequestMode.GET, "posts/" + user.id, new GsonResponseHandler&lt;Post[]&gt;(Post[].class));
+			}
+		}, executor)
+		.addListener(new ResponseFuture.Listener&lt;Post[]&gt;()
+		{
+			&#064;Override public void onComplete(ResponseFuture&lt;Post[]&gt; future)
+			{
+			}
+		}, executor);
+ * </pre>
+ */
+public class ResponseFuture<T> implements Future<T>
+{
+	/**
+	 * Listener for the completion of a future
+	 */
+	public interface Listener<T>
+	{
+		/**
+		 * Called once the future has succeeded, failed or been cancelled
+		 * @param future The completed future
+		 */
+		public void onComplete(ResponseFuture<T> future);
+	}
+
+	/**
+	 * Starts the next request of a chain from the content of the previous one
+	 */
+	public interface Continuation<T, R>
+	{
+		/**
+		 * @param content The content of the previous request
+		 * @return The future of the next request
+		 */
+		public ResponseFuture<R> then(T content) throws Exception;
+	}
+
+	private final CountDownLatch done = new CountDownLatch(1);
+	private final List<Runnable> listeners = new ArrayList<Runnable>();
+	private boolean completed = false;
+	private boolean cancelled = false;
+	private T content;
+	private Throwable failure;
+	private ConnectionInfo connectionInfo;
+	private Runnable onCancel;
+
+	protected ResponseFuture()
+	{
+	}
+
+	/**
+	 * Sets what cancelling the future cancels, such as the request or the current future of a chain
+	 */
+	protected void setOnCancel(Runnable onCancel)
+	{
+		boolean cancel;
+
+		synchronized (this)
+		{
+			this.onCancel = onCancel;
+			cancel = cancelled;
+		}
+
+		if (cancel)
+		{
+			onCancel.run();
+		}
+	}
+
+	/**
+	 * Completes the future from the response handler of a finished request
+	 */
+	protected void complete(ResponseHandler<T> response, boolean requestCancelled)
+	{
+		if (requestCancelled)
+		{
+			cancel(false);
+		}
+		else if (response.getConnectionInfo().responseCode > 100 && response.getConnectionInfo().responseCode < 400)
+		{
+			setResult(response.getContent(), null, response.getConnectionInfo());
+		}
+		else
+		{
+			setResult(null, new ResponseException(response.getConnectionInfo()), response.getConnectionInfo());
+		}
+	}
+
+	private void setResult(T content, Throwable failure, ConnectionInfo connectionInfo)
+	{
+		synchronized (this)
+		{
+			if (completed)
+			{
+				return;
+			}
+
+			this.content = content;
+			this.failure = failure;
+			this.connectionInfo = connectionInfo;
+			this.completed = true;
+		}
+
+		finish();
+	}
+
+	/**
+	 * Cancels the future and the request it is waiting on
+	 * @param mayInterruptIfRunning Unused, the request is always aborted
+	 * @return False if the future had already completed
+	 */
+	@Override public boolean cancel(boolean mayInterruptIfRunning)
+	{
+		Runnable onCancel;
+
+		synchronized (this)
+		{
+			if (completed)
+			{
+				return false;
+			}
+
+			completed = true;
+			cancelled = true;
+			onCancel = this.onCancel;
+		}
+
+		if (onCancel != null)
+		{
+			onCancel.run();
+		}
+
+		finish();
+		return true;
+	}
+
+	@Override public synchronized boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	@Override public synchronized boolean isDone()
+	{
+		return completed;
+	}
+
+	/**
+	 * @return True if the future completed with a successful response
+	 */
+	public synchronized boolean isSuccessful()
+	{
+		return completed && !cancelled && failure == null;
+	}
+
+	/**
+	 * @return The connection info of the request, or null if the future was cancelled or has not completed.
+	 * For a chain, this is the connection info of the last request
+	 */
+	@Nullable
+	public synchronized ConnectionInfo getConnectionInfo()
+	{
+		return connectionInfo;
+	}
+
+	/**
+	 * @return The exception the future failed with, or null if it succeeded, was cancelled or has not completed
+	 */
+	@Nullable
+	public synchronized Throwable getFailure()
+	{
+		return failure;
+	}
+
+	@Override public T get() throws InterruptedException, ExecutionException
+	{
+		done.await();
+		return getResult();
+	}
+
+	@Override public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+	{
+		if (!done.await(timeout, unit))
+		{
+			throw new TimeoutException();
+		}
+
+		return getResult();
+	}
+
+	private synchronized T getResult() throws ExecutionException
+	{
+		if (cancelled)
+		{
+			throw new CancellationException();
+		}
+
+		if (failure != null)
+		{
+			throw new ExecutionException(failure);
+		}
+
+		return content;
+	}
+
+	/**
+	 * Adds a listener that is called on the thread that completes the future, or straight away if it has already completed
+	 * @param listener The listener to add
+	 * @return This future
+	 */
+	public ResponseFuture<T> addListener(Listener<T> listener)
+	{
+		return addListener(listener, null);
+	}
+
+	/**
+	 * Adds a listener that is called on an executor once the future has completed
+	 * @param listener The listener to add
+	 * @param executor The executor to call the listener on, or null to call it on the thread that completes the future
+	 * @return This future
+	 */
+	public ResponseFuture<T> addListener(final Listener<T> listener, @Nullable final Executor executor)
+	{
+		Runnable runnable = new Runnable()
+		{
+			@Override public void run()
+			{
+				if (executor == null)
+				{
+					listener.onComplete(ResponseFuture.this);
+					return;
+				}
+
+				executor.execute(new Runnable()
+				{
+					@Override public void run()
+					{
+						listener.onComplete(ResponseFuture.this);
+					}
+				});
+			}
+		};
+
+		synchronized (this)
+		{
+			if (!completed)
+			{
+				listeners.add(runnable);
+				return this;
+			}
+		}
+
+		runnable.run();
+		return this;
+	}
+
+	/**
+	 * Chains another request that starts once this one succeeds. If this future fails or is cancelled,
+	 * so is the returned future, and the continuation is not called
+	 * @param continuation Starts the next request from the content of this one
+	 * @param executor The executor to call the continuation on, or null to call it on the thread that completes this future
+	 * @return The future of the next request
+	 */
+	public <R> ResponseFuture<R> then(final Continuation<T, R> continuation, @Nullable Executor executor)
+	{
+		final ResponseFuture<R> next = new ResponseFuture<R>();
+		next.setOnCancel(new Runnable()
+		{
+			@Override public void run()
+			{
+				cancel(false);
+			}
+		});
+
+		addListener(new Listener<T>()
+		{
+			@Override public void onComplete(ResponseFuture<T> future)
+			{
+				if (future.isCancelled())
+				{
+					next.cancel(false);
+					return;
+				}
+
+				if (!future.isSuccessful())
+				{
+					next.setResult(null, future.getFailure(), future.getConnectionInfo());
+					return;
+				}
+
+				final ResponseFuture<R> step;
+
+				try
+				{
+					step = continuation.then(future.content);
+				}
+				catch (Exception e)
+				{
+					next.setResult(null, e, future.getConnectionInfo());
+					return;
+				}
+
+				next.setOnCancel(new Runnable()
+				{
+					@Override public void run()
+					{
+						step.cancel(false);
+					}
+				});
+
+				step.addListener(new Listener<R>()
+				{
+					@Override public void onComplete(ResponseFuture<R> future)
+					{
+						if (future.isCancelled())
+						{
+							next.cancel(false);
+						}
+						else
+						{
+							next.setResult(future.content, future.getFailure(), future.getConnectionInfo());
+						}
+					}
+				});
+			}
+		}, executor);
+
+		return next;
+	}
+
+	private void finish()
+	{
+		List<Runnable> listeners;
+
+		synchronized (this)
+		{
+			listeners = new ArrayList<Runnable>(this.listeners);
+			this.listeners.clear();
+		}
+
+		done.countDown();
+
+		for (Runnable listener : listeners)
+		{
+			listener.run();
+		}
+	}
+}
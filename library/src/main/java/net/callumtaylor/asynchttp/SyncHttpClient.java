@@ -6,14 +6,31 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import net.callumtaylor.asynchttp.obj.AdaptiveTimeoutConfig;
+import net.callumtaylor.asynchttp.obj.BatchRequest;
+import net.callumtaylor.asynchttp.obj.CachePolicy;
+import net.callumtaylor.asynchttp.obj.CircuitOpenException;
 import net.callumtaylor.asynchttp.obj.ConnectionInfo;
+import net.callumtaylor.asynchttp.obj.HedgeConfig;
+import net.callumtaylor.asynchttp.obj.Http2Config;
+import net.callumtaylor.asynchttp.obj.KeepAliveConfig;
 import net.callumtaylor.asynchttp.obj.NameValuePair;
 import net.callumtaylor.asynchttp.obj.RequestMode;
 import net.callumtaylor.asynchttp.obj.RequestUtil;
+import net.callumtaylor.asynchttp.obj.RetryBudget;
+import net.callumtaylor.asynchttp.obj.RetryPolicy;
+import net.callumtaylor.asynchttp.obj.TimeoutConfig;
 import net.callumtaylor.asynchttp.response.ByteArrayResponseHandler;
 import net.callumtaylor.asynchttp.response.ResponseHandler;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.Cache;
 import okhttp3.Headers;
@@ -80,11 +97,38 @@ public class SyncHttpClient<E>
 	 */
 	public static Cache cache = null;
 
-	private Uri requestUri;
+	/**
+	 * In-memory cache checked before {@link #cache}. Defaults to null (off). Fresh GET responses are
+	 * served from memory without reading the disk or using the network. Share one instance between
+	 * the clients for them to share the cached responses, see {@link MemoryCache}
+	 */
+	public static MemoryCache memoryCache = null;
+
+	/**
+	 * Cache of the content decoded by response handlers. Defaults to null (off). When a handler such as
+	 * {@link net.callumtaylor.asynchttp.response.JsonResponseHandler} has fresh content in it, a GET request is not made and the handler is given
+	 * the cached content without parsing, see {@link ContentCache}
+	 */
+	public static ContentCache contentCache = null;
+
+	private final Uri requestUri;
 	private long requestTimeout = 0L;
 	private boolean allowAllSsl = false;
+	private KeepAliveConfig keepAlive;
+	private Http2Config http2;
+	private boolean coalesce = false;
+	private Object[] tags;
+	private RetryPolicy retryPolicy;
+	private CircuitBreaker circuitBreaker;
+	private HedgeConfig hedge;
+	private TimeoutConfig timeouts;
+	private AdaptiveTimeoutConfig adaptiveTimeout;
+	private boolean staleWhileRevalidate = false;
+	private CachePolicy cachePolicy;
+	private long maxStale = -1;
 	private boolean allowRedirect = false;
-	private ClientExecutorTask<E> executor;
+	private volatile ClientExecutorTask<E> executor;
+	private final Set<RequestBatch> batches = Collections.synchronizedSet(new LinkedHashSet<RequestBatch>());
 
 	/**
 	 * Creates a new client using a base Url without a timeout
@@ -126,10 +170,23 @@ public class SyncHttpClient<E>
 	}
 
 	/**
-	 * Cancels the current executor task
+	 * Cancels the current executor task, and any batches made by this client that are still running, so
+	 * the requests in them that have not started are skipped
 	 */
 	public void cancel()
 	{
+		List<RequestBatch> batches;
+
+		synchronized (this.batches)
+		{
+			batches = new ArrayList<RequestBatch>(this.batches);
+		}
+
+		for (RequestBatch batch : batches)
+		{
+			batch.cancel();
+		}
+
 		if (executor != null)
 		{
 			executor.cancel();
@@ -253,13 +310,14 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E get(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.GET, requestUri, headers, null, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.GET, uri, headers, null, response);
 	}
 
 	/**
@@ -359,13 +417,14 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E options(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.OPTIONS, requestUri, headers, null, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.OPTIONS, uri, headers, null, response);
 	}
 
 	/**
@@ -485,13 +544,14 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E head(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.HEAD, requestUri, headers, null, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.HEAD, uri, headers, null, response);
 	}
 
 	/**
@@ -608,13 +668,14 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E delete(String path, @Nullable List<NameValuePair> params, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.DELETE, requestUri, headers, null, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.DELETE, uri, headers, null, response);
 	}
 
 	/**
@@ -702,13 +763,14 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E delete(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody deleteData, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.DELETE, requestUri, headers, deleteData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.DELETE, uri, headers, deleteData, response);
 	}
 
 	/**
@@ -944,13 +1006,14 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E post(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.POST, requestUri, headers, postData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.POST, uri, headers, postData, response);
 	}
 
 	/**
@@ -1171,13 +1234,14 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E put(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.PUT, requestUri, headers, postData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.PUT, uri, headers, postData, response);
 	}
 
 	/**
@@ -1398,25 +1462,94 @@ public class SyncHttpClient<E>
 	@Nullable
 	public E patch(String path, @Nullable List<NameValuePair> params, @Nullable RequestBody postData, @Nullable Headers headers, @NonNull ResponseHandler<?> response)
 	{
+		Uri uri = requestUri;
 		if (!TextUtils.isEmpty(path))
 		{
-			requestUri = Uri.withAppendedPath(requestUri, path);
+			uri = Uri.withAppendedPath(uri, path);
 		}
 
-		requestUri = RequestUtil.appendParams(requestUri, params);
-		return executeTask(RequestMode.PATCH, requestUri, headers, postData, response);
+		uri = RequestUtil.appendParams(uri, params);
+		return executeTask(RequestMode.PATCH, uri, headers, postData, response);
 	}
 
-	private E executeTask(RequestMode mode, Uri uri, @Nullable Headers headers, @Nullable RequestBody sendData, ResponseHandler<?> requestProcessor)
+	/**
+	 * Executes a batch of requests on a pool of {@code parallelism} threads, blocking until every
+	 * request has finished. Each request receives the usual callbacks on its own response handler, on
+	 * the thread that ran it. The results are in the same order as the requests.
+	 *
+	 * Requests in the batch do not change {@link #getConnectionInfo()}, use the connection info of each
+	 * response handler instead. If the calling thread is interrupted, the batch is cancelled.
+	 * @param requests The requests to execute
+	 * @param parallelism The maximum number of requests in flight at once
+	 * @param failFast True to cancel the rest of the batch when a request fails
+	 * @return The finished batch
+	 */
+	public <T> RequestBatch<T> batch(List<BatchRequest<T>> requests, int parallelism, boolean failFast)
 	{
-		if (headers == null)
+		final RequestBatch<T> batch = new RequestBatch<T>(requests, failFast, null);
+		int threads = Math.max(1, Math.min(parallelism, requests.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		batches.add(batch);
+
+		for (int thread = 0; thread < threads; thread++)
 		{
-			headers = new Headers.Builder().build();
+			pool.execute(new Runnable()
+			{
+				@Override public void run()
+				{
+					int index;
+					while ((index = batch.next()) >= 0)
+					{
+						BatchRequest<T> request = batch.getRequests().get(index);
+						Uri uri = requestUri;
+						if (!TextUtils.isEmpty(request.path))
+						{
+							uri = Uri.withAppendedPath(uri, request.path);
+						}
+
+						uri = RequestUtil.appendParams(uri, request.params);
+
+						ClientExecutorTask<T> task = createTask(request.mode, uri, request.headers, request.body, request.response);
+						batch.setTask(index, task);
+
+						try
+						{
+							task.preExecute();
+							task.executeTask();
+							task.postExecute();
+						}
+						finally
+						{
+							batch.finish(index);
+						}
+					}
+				}
+			});
 		}
 
-		headers = headers.newBuilder().add("User-Agent", userAgent).build();
+		pool.shutdown();
+
+		try
+		{
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			batch.cancel();
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			batches.remove(batch);
+		}
+
+		return batch;
+	}
 
-		executor = new ClientExecutorTask<E>(mode, uri, headers, sendData, requestProcessor, allowRedirect, allowAllSsl, requestTimeout, cache);
+	private E executeTask(RequestMode mode, Uri uri, @Nullable Headers headers, @Nullable RequestBody sendData, ResponseHandler<?> requestProcessor)
+	{
+		executor = createTask(mode, uri, headers, sendData, requestProcessor);
 		executor.preExecute();
 		E response = executor.executeTask();
 		executor.postExecute();
@@ -1424,6 +1557,33 @@ public class SyncHttpClient<E>
 		return response;
 	}
 
+	private <T> ClientExecutorTask<T> createTask(RequestMode mode, Uri uri, @Nullable Headers headers, @Nullable RequestBody sendData, ResponseHandler<?> requestProcessor)
+	{
+		if (headers == null)
+		{
+			headers = new Headers.Builder().build();
+		}
+
+		headers = headers.newBuilder().add("User-Agent", userAgent).build();
+
+		ClientExecutorTask<T> executor = new ClientExecutorTask<T>(mode, uri, headers, sendData, requestProcessor, allowRedirect, allowAllSsl, requestTimeout, cache);
+		executor.setMemoryCache(memoryCache);
+		executor.setContentCache(contentCache);
+		executor.setKeepAlive(keepAlive);
+		executor.setHttp2(http2);
+		executor.setCoalesce(coalesce);
+		executor.setTags(tags);
+		executor.setRetryPolicy(retryPolicy);
+		executor.setCircuitBreaker(circuitBreaker);
+		executor.setHedge(hedge);
+		executor.setTimeouts(timeouts);
+		executor.setAdaptiveTimeout(adaptiveTimeout);
+		executor.setStaleWhileRevalidate(staleWhileRevalidate);
+		executor.setCachePolicy(cachePolicy, maxStale);
+
+		return executor;
+	}
+
 	/**
 	 * Sets to allow all SSL. This is insecure, avoid using this method.
 	 * @param allow Allow all SSL true/false
@@ -1433,6 +1593,142 @@ public class SyncHttpClient<E>
 		this.allowAllSsl = allow;
 	}
 
+	/**
+	 * Enables HTTP keep-alive, re-using idle connections from a shared pool instead of sending
+	 * {@code Connection: close} with every request. Off by default.
+	 * @param keepAlive The connection pool config, or null to disable keep-alive
+	 */
+	public void setKeepAlive(@Nullable KeepAliveConfig keepAlive)
+	{
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Enables HTTP/2. Concurrent requests to the same host are multiplexed over a single connection.
+	 * Use {@link Http2Config#priorKnowledge} for cleartext servers that are known to support HTTP/2.
+	 * @param http2 The HTTP/2 config, or null to use the default protocol negotiation
+	 */
+	public void setHttp2(@Nullable Http2Config http2)
+	{
+		this.http2 = http2;
+	}
+
+	/**
+	 * Enables coalescing of identical GET and HEAD requests. Requests with the same url, headers and
+	 * client settings that are in flight at the same time share a single network call and
+	 * body, see {@link RequestCoalescer}. Off by default. Not suitable for large downloads.
+	 * @param coalesce True to share calls between identical in-flight requests
+	 */
+	public void setCoalesce(boolean coalesce)
+	{
+		this.coalesce = coalesce;
+	}
+
+	/**
+	 * Tags requests made by this client after this is called, so they can be cancelled as a group
+	 * with {@link RequestTags#cancel(Object)}, along with requests from any other client with the same tag.
+	 * @param tags The tags, such as the owning screen, or null for none
+	 */
+	public void setTags(@Nullable Object... tags)
+	{
+		this.tags = tags;
+	}
+
+	/**
+	 * Retries requests that fail with a transient error, such as a timeout or a 503 response. Off by default.
+	 * Share a single policy between clients for its {@link RetryBudget} to apply to all of them.
+	 * @param retryPolicy The retry policy, or null to not retry
+	 */
+	public void setRetryPolicy(@Nullable RetryPolicy retryPolicy)
+	{
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Sets the circuit breaker requests made by this client go through. Requests to a host whose breaker
+	 * is open fail straight away, with a {@link CircuitOpenException} in {@link ConnectionInfo#exception}.
+	 * Share a single breaker between clients for them to share the state of each host.
+	 * @param circuitBreaker The circuit breaker, or null to not use one
+	 */
+	public void setCircuitBreaker(@Nullable CircuitBreaker circuitBreaker)
+	{
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Enables hedging for GET and HEAD requests made by this client. When no response has been received
+	 * after the hedge delay, a second identical request is sent, the first response is used and the
+	 * other request is cancelled. {@link ConnectionInfo#hedged} and {@link ConnectionInfo#hedgeWon}
+	 * show if the hedged request was sent and if it won.
+	 * @param hedge The hedge config, or null to not hedge
+	 */
+	public void setHedge(@Nullable HedgeConfig hedge)
+	{
+		this.hedge = hedge;
+	}
+
+	/**
+	 * Sets separate connect, read and write timeouts, and an overall deadline, for the requests made
+	 * by this client after this is called. This replaces the single timeout passed to the constructor.
+	 * The deadline covers the whole request, including reading the response body and any retries or
+	 * hedged requests, so a server that sends the response slowly cannot hold the request open forever.
+	 * Change the timeouts between requests to give each request its own.
+	 * @param timeouts The timeouts to use, or null to use the timeout passed to the constructor
+	 */
+	public void setTimeouts(@Nullable TimeoutConfig timeouts)
+	{
+		this.timeouts = timeouts;
+	}
+
+	/**
+	 * Sets the read timeout of requests made by this client from the recent latency of each endpoint,
+	 * as a multiple of a latency percentile clamped between a minimum and maximum. The read timeout
+	 * that was used is in {@link ConnectionInfo#readTimeout}.
+	 * @param adaptiveTimeout The adaptive timeout config, or null to use a fixed read timeout
+	 */
+	public void setAdaptiveTimeout(@Nullable AdaptiveTimeoutConfig adaptiveTimeout)
+	{
+		this.adaptiveTimeout = adaptiveTimeout;
+	}
+
+	/**
+	 * Sets how GET requests made by this client after this is called use cached responses, see {@link CachePolicy}.
+	 * The policy replaces any {@code Cache-Control} header of the request. Stale responses are used without a limit
+	 * @param cachePolicy The cache policy, or null to follow the normal caching rules
+	 */
+	public void setCachePolicy(@Nullable CachePolicy cachePolicy)
+	{
+		setCachePolicy(cachePolicy, -1, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sets how GET requests made by this client after this is called use cached responses, see {@link CachePolicy}.
+	 * The policy replaces any {@code Cache-Control} header of the request. With {@link CachePolicy#NETWORK_FIRST_FALLBACK_CACHE},
+	 * a cached response within the max-stale is delivered when the connection fails or times out, with
+	 * {@link ConnectionInfo#cacheFallback} set. Change the policy between requests to give each request its own.
+	 * @param cachePolicy The cache policy, or null to follow the normal caching rules
+	 * @param maxStale How long a response can be used after it becomes stale, or -1 for no limit
+	 * @param unit The unit of the max-stale
+	 */
+	public void setCachePolicy(@Nullable CachePolicy cachePolicy, long maxStale, TimeUnit unit)
+	{
+		this.cachePolicy = cachePolicy;
+		this.maxStale = maxStale < 0 ? -1 : unit.toMillis(maxStale);
+	}
+
+	/**
+	 * Serves stale GET responses from {@link #cache}. A response that is stale but within the {@code stale-while-revalidate}
+	 * window of its {@code Cache-Control} is delivered straight away, with {@link ConnectionInfo#stale} set, and is
+	 * revalidated in the background after {@link ResponseHandler#onFinish()}. If the content has changed, the new response
+	 * is decoded into a new handler and passed to {@link ResponseHandler#onContentChanged(ResponseHandler)}. A response within its
+	 * {@code stale-if-error} window is delivered in place of a request that fails or returns a 5xx. Off by default.
+	 * @param staleWhileRevalidate True to serve stale responses
+	 */
+	public void setStaleWhileRevalidate(boolean staleWhileRevalidate)
+	{
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
 	/**
 	 * Sets to auto redirect on 302 responses
 	 * @param allow Allow redirect true/false
@@ -0,0 +1,111 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes an adaptive read timeout. Instead of a fixed value, the read timeout of a request is a
+ * multiple of a recent latency percentile of its endpoint, as recorded by
+ * {@link net.callumtaylor.asynchttp.LatencyTracker}, clamped between a minimum and maximum. Until the
+ * endpoint has enough samples, the maximum is used.
+ *
+ * Requests that time out are recorded at the time they took, so the timeout grows again when an
+ * endpoint slows down.
+ */
+public class AdaptiveTimeoutConfig
+{
+	/**
+	 * The latency percentile of the endpoint to use, between 0 and 1, such as 0.99 for p99
+	 */
+	public final double percentile;
+
+	/**
+	 * The amount the latency percentile is multiplied by
+	 */
+	public final double multiplier;
+
+	/**
+	 * The shortest read timeout in milliseconds
+	 */
+	public final long minTimeout;
+
+	/**
+	 * The longest read timeout in milliseconds, also used until the endpoint has enough samples
+	 */
+	public final long maxTimeout;
+
+	/**
+	 * Creates a config that uses 3 times the p99 latency of the endpoint
+	 * @param minTimeout The shortest read timeout
+	 * @param maxTimeout The longest read timeout
+	 * @param timeUnit The unit of the timeouts
+	 */
+	public AdaptiveTimeoutConfig(long minTimeout, long maxTimeout, TimeUnit timeUnit)
+	{
+		this(0.99, 3, minTimeout, maxTimeout, timeUnit);
+	}
+
+	/**
+	 * @param percentile The latency percentile of the endpoint to use
+	 * @param multiplier The amount the latency percentile is multiplied by
+	 * @param minTimeout The shortest read timeout
+	 * @param maxTimeout The longest read timeout
+	 * @param timeUnit The unit of the timeouts
+	 */
+	public AdaptiveTimeoutConfig(double percentile, double multiplier, long minTimeout, long maxTimeout, TimeUnit timeUnit)
+	{
+		this.percentile = percentile;
+		this.multiplier = multiplier;
+		this.minTimeout = timeUnit.toMillis(minTimeout);
+		this.maxTimeout = Math.max(this.minTimeout, timeUnit.toMillis(maxTimeout));
+	}
+
+	/**
+	 * @param latency The latency percentile of the endpoint in milliseconds, or -1 if there are not enough samples
+	 * @return The read timeout in milliseconds
+	 */
+	public long getReadTimeout(long latency)
+	{
+		if (latency < 0)
+		{
+			return maxTimeout;
+		}
+
+		return Math.max(minTimeout, Math.min(maxTimeout, (long)(latency * multiplier)));
+	}
+
+	@Override public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof AdaptiveTimeoutConfig))
+		{
+			return false;
+		}
+
+		AdaptiveTimeoutConfig config = (AdaptiveTimeoutConfig)o;
+		return Double.compare(percentile, config.percentile) == 0
+			&& Double.compare(multiplier, config.multiplier) == 0
+			&& minTimeout == config.minTimeout
+			&& maxTimeout == config.maxTimeout;
+	}
+
+	@Override public int hashCode()
+	{
+		long bits = Double.doubleToLongBits(percentile);
+		int result = (int)(bits ^ (bits >>> 32));
+		bits = Double.doubleToLongBits(multiplier);
+		result = 31 * result + (int)(bits ^ (bits >>> 32));
+		result = 31 * result + (int)(minTimeout ^ (minTimeout >>> 32));
+		result = 31 * result + (int)(maxTimeout ^ (maxTimeout >>> 32));
+
+		return result;
+	}
+
+	@Override public String toString()
+	{
+		return "AdaptiveTimeoutConfig [percentile=" + percentile + ", multiplier=" + multiplier + ", minTimeout=" + minTimeout + ", maxTimeout=" + maxTimeout + "]";
+	}
+}
@@ -0,0 +1,56 @@
+package net.callumtaylor.asynchttp.obj;
+
+import android.support.annotation.Nullable;
+
+import net.callumtaylor.asynchttp.response.ResponseHandler;
+
+import java.util.List;
+
+import okhttp3.Headers;
+import okhttp3.RequestBody;
+
+/**
+ * A single request in a batch made with {@code AsyncHttpClient.batch()} or {@code SyncHttpClient.batch()}.
+ * The path is relative to the base uri of the client, the same as for the single request methods.
+ *
+ * Each request needs its own response handler, which receives the usual callbacks and holds the
+ * content and {@link ConnectionInfo} of the request once the batch has finished.
+ */
+public class BatchRequest<E>
+{
+	public final RequestMode mode;
+	public final String path;
+	@Nullable public final List<NameValuePair> params;
+	@Nullable public final RequestBody body;
+	@Nullable public final Headers headers;
+	public final ResponseHandler<E> response;
+
+	/**
+	 * Creates a request without parameters, body or headers
+	 * @param mode The request method
+	 * @param path The path relative to the base uri of the client
+	 * @param response The response handler for the request
+	 */
+	public BatchRequest(RequestMode mode, String path, ResponseHandler<E> response)
+	{
+		this(mode, path, null, null, null, response);
+	}
+
+	/**
+	 * @param mode The request method
+	 * @param path The path relative to the base uri of the client
+	 * @param params The request parameters, appended to the uri as a query string
+	 * @param body The request body, for POST, PUT, DELETE and PATCH requests
+	 * @param headers The request headers
+	 * @param response The response handler for the request
+	 */
+	public BatchRequest(RequestMode mode, String path, @Nullable List<NameValuePair> params, @Nullable RequestBody body, @Nullable Headers headers, ResponseHandler<E> response)
+	{
+		this.mode = mode;
+		this.path = path;
+		this.params = params;
+		this.body = body;
+		this.headers = headers;
+		this.response = response;
+	}
+}
@@ -0,0 +1,30 @@
+package net.callumtaylor.asynchttp.obj;
+
+/**
+ * How a GET request uses cached responses. The policies that use stale responses only use those within
+ * the max-stale set with the policy, and never use a response whose {@code Cache-Control} has {@code must-revalidate}.
+ */
+public enum CachePolicy
+{
+	/**
+	 * Always makes the request, never using a cached response. The response is still stored in the cache
+	 */
+	NETWORK_ONLY,
+
+	/**
+	 * Uses a cached response, fresh or stale, if there is one. Otherwise makes the request
+	 */
+	CACHE_FIRST,
+
+	/**
+	 * Only uses a cached response, fresh or stale, and never makes the request. When there is no cached
+	 * response the request fails with a 504
+	 */
+	CACHE_ONLY,
+
+	/**
+	 * Makes the request following the normal caching rules. When the connection fails or times out,
+	 * a cached response, fresh or stale, is used in its place
+	 */
+	NETWORK_FIRST_FALLBACK_CACHE;
+}
@@ -0,0 +1,261 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+
+/**
+ * Freshness and {@code Vary} rules shared by the in-memory caches, following RFC 7234 for a private cache
+ */
+public class CacheUtil
+{
+	/**
+	 * @param method The request method
+	 * @return True if a successful request with the method changes the resource, so responses cached for its URL must be removed
+	 */
+	public static boolean invalidatesCache(String method)
+	{
+		return "POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method) || "DELETE".equals(method);
+	}
+
+	/**
+	 * Updates the headers of a cached response with those of a 304 response to revalidate it, as described
+	 * by RFC 7234 section 4.3.4. The headers that describe the body are kept from the cached response
+	 * @param cachedHeaders The headers of the cached response
+	 * @param networkHeaders The headers of the 304 response
+	 * @return The updated headers
+	 */
+	public static Headers combine(Headers cachedHeaders, Headers networkHeaders)
+	{
+		Headers.Builder result = cachedHeaders.newBuilder();
+
+		for (String name : networkHeaders.names())
+		{
+			if ("Content-Length".equalsIgnoreCase(name) || "Content-Encoding".equalsIgnoreCase(name) || "Content-Type".equalsIgnoreCase(name))
+			{
+				continue;
+			}
+
+			result.removeAll(name);
+
+			for (String value : networkHeaders.values(name))
+			{
+				result.add(name, value);
+			}
+		}
+
+		return result.build();
+	}
+
+	/**
+	 * Gets the names of the request headers a response varies by
+	 * @param responseHeaders The headers of the response
+	 * @return The lower case header names, which contains "*" if the response can not be matched to a request
+	 */
+	public static Set<String> getVaryFields(Headers responseHeaders)
+	{
+		Set<String> fields = new TreeSet<String>();
+
+		for (String vary : responseHeaders.values("Vary"))
+		{
+			for (String field : vary.split(","))
+			{
+				if (field.trim().length() > 0)
+				{
+					fields.add(field.trim().toLowerCase(Locale.US));
+				}
+			}
+		}
+
+		return fields;
+	}
+
+	/**
+	 * Gets the values of the request headers a response varies by
+	 * @param responseHeaders The headers of the response
+	 * @param requestHeaders The headers of the request the response was for
+	 * @return The request headers named in the {@code Vary} header of the response
+	 */
+	public static Headers getVaryHeaders(Headers responseHeaders, Headers requestHeaders)
+	{
+		Headers.Builder varyHeaders = new Headers.Builder();
+
+		for (String field : getVaryFields(responseHeaders))
+		{
+			for (String value : requestHeaders.values(field))
+			{
+				varyHeaders.add(field, value);
+			}
+		}
+
+		return varyHeaders.build();
+	}
+
+	/**
+	 * Checks if a cached response can be used for a request
+	 * @param responseHeaders The headers of the cached response
+	 * @param varyHeaders The headers from {@link #getVaryHeaders(Headers, Headers)} for the cached request
+	 * @param requestHeaders The headers of the new request
+	 * @return True if the new request has the same values for the headers the response varies by
+	 */
+	public static boolean varyMatches(Headers responseHeaders, Headers varyHeaders, Headers requestHeaders)
+	{
+		for (String field : getVaryFields(responseHeaders))
+		{
+			if (!varyHeaders.values(field).equals(requestHeaders.values(field)))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks if a cached response is fresh enough to be used for a request without revalidating it
+	 * @param headers The headers of the cached response
+	 * @param requestCaching The cache control of the new request
+	 * @param sentRequestAtMillis The time the cached request was sent
+	 * @param receivedResponseAtMillis The time the cached response was received
+	 * @param now The current time in milliseconds
+	 * @return True if the response is fresh, allowing for the {@code max-age}, {@code min-fresh} and {@code max-stale} of the request
+	 */
+	public static boolean isFresh(Headers headers, CacheControl requestCaching, long sentRequestAtMillis, long receivedResponseAtMillis, long now)
+	{
+		CacheControl responseCaching = CacheControl.parse(headers);
+
+		if (responseCaching.noCache() || requestCaching.noCache())
+		{
+			return false;
+		}
+
+		long age = getAge(headers, sentRequestAtMillis, receivedResponseAtMillis, now);
+		long freshness = getFreshnessLifetime(headers, receivedResponseAtMillis);
+
+		if (requestCaching.maxAgeSeconds() != -1)
+		{
+			freshness = Math.min(freshness, TimeUnit.SECONDS.toMillis(requestCaching.maxAgeSeconds()));
+		}
+
+		long minFresh = requestCaching.minFreshSeconds() != -1 ? TimeUnit.SECONDS.toMillis(requestCaching.minFreshSeconds()) : 0;
+		long maxStale = 0;
+
+		if (!responseCaching.mustRevalidate() && requestCaching.maxStaleSeconds() != -1)
+		{
+			maxStale = TimeUnit.SECONDS.toMillis(requestCaching.maxStaleSeconds());
+		}
+
+		return age + minFresh < freshness + maxStale;
+	}
+
+	/**
+	 * Gets how long ago a response stopped being fresh
+	 * @param headers The headers of the response
+	 * @param sentRequestAtMillis The time the request was sent
+	 * @param receivedResponseAtMillis The time the response was received
+	 * @param now The current time in milliseconds
+	 * @return The staleness in milliseconds, which is negative while the response is still fresh
+	 */
+	public static long getStaleness(Headers headers, long sentRequestAtMillis, long receivedResponseAtMillis, long now)
+	{
+		return getAge(headers, sentRequestAtMillis, receivedResponseAtMillis, now) - getFreshnessLifetime(headers, receivedResponseAtMillis);
+	}
+
+	/**
+	 * Gets the value of a {@code Cache-Control} directive that is not parsed by {@link CacheControl}, such as
+	 * {@code stale-while-revalidate} or {@code stale-if-error} from RFC 5861
+	 * @param headers The headers to read the directive from
+	 * @param directive The lower case name of the directive
+	 * @return The value of the directive in seconds, or -1 if it is missing or invalid
+	 */
+	public static long getDirectiveSeconds(Headers headers, String directive)
+	{
+		for (String value : headers.values("Cache-Control"))
+		{
+			for (String part : value.split(","))
+			{
+				String[] pair = part.split("=", 2);
+
+				if (pair.length == 2 && directive.equals(pair[0].trim().toLowerCase(Locale.US)))
+				{
+					try
+					{
+						return Long.parseLong(pair[1].trim().replace("\"", ""));
+					}
+					catch (NumberFormatException e)
+					{
+						return -1;
+					}
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Gets how long a response is fresh for, from {@code max-age} or {@code Expires}
+	 * @param headers The headers of the response
+	 * @param receivedResponseAtMillis The time the response was received, used when it has no {@code Date} header
+	 * @return The freshness lifetime in milliseconds, or 0 if the response has no explicit lifetime
+	 */
+	public static long getFreshnessLifetime(Headers headers, long receivedResponseAtMillis)
+	{
+		CacheControl responseCaching = CacheControl.parse(headers);
+
+		if (responseCaching.maxAgeSeconds() != -1)
+		{
+			return TimeUnit.SECONDS.toMillis(responseCaching.maxAgeSeconds());
+		}
+
+		Date expires = headers.getDate("Expires");
+
+		if (expires != null)
+		{
+			Date served = headers.getDate("Date");
+			long servedMillis = served != null ? served.getTime() : receivedResponseAtMillis;
+
+			return Math.max(0, expires.getTime() - servedMillis);
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Gets the current age of a response, as described by RFC 7234 section 4.2.3
+	 * @param headers The headers of the response
+	 * @param sentRequestAtMillis The time the request was sent
+	 * @param receivedResponseAtMillis The time the response was received
+	 * @param now The current time in milliseconds
+	 * @return The age in milliseconds
+	 */
+	public static long getAge(Headers headers, long sentRequestAtMillis, long receivedResponseAtMillis, long now)
+	{
+		Date served = headers.getDate("Date");
+		long apparentAge = served != null ? Math.max(0, receivedResponseAtMillis - served.getTime()) : 0;
+		long receivedAge = apparentAge;
+
+		try
+		{
+			String age = headers.get("Age");
+
+			if (age != null)
+			{
+				receivedAge = Math.max(apparentAge, TimeUnit.SECONDS.toMillis(Long.parseLong(age.trim())));
+			}
+		}
+		catch (NumberFormatException ignored)
+		{
+		}
+
+		long responseDuration = receivedResponseAtMillis - sentRequestAtMillis;
+		long residentDuration = now - receivedResponseAtMillis;
+
+		return receivedAge + responseDuration + residentDuration;
+	}
+}
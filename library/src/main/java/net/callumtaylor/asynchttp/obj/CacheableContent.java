@@ -0,0 +1,27 @@
+package net.callumtaylor.asynchttp.obj;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+/**
+ * Implemented by response handlers whose decoded content can be kept in a {@link net.callumtaylor.asynchttp.ContentCache}
+ * @param <E> The type of the decoded content
+ */
+public interface CacheableContent<E>
+{
+	/**
+	 * Gets the key that identifies the content this handler decodes a response into. Handlers with equal keys must
+	 * decode the same response into equal content, so the key should include the class of the handler
+	 * @return The key, or null if the content of this response can not be cached
+	 */
+	@Nullable
+	public Object getContentCacheKey();
+
+	/**
+	 * Called in place of {@code onReceiveStream} and {@code generateContent} when content for the request was found
+	 * in the {@link net.callumtaylor.asynchttp.ContentCache}. {@code getContent()} must return it afterwards
+	 * @param content The cached content. This is shared with other requests, so must not be modified
+	 */
+	@WorkerThread
+	public void setCachedContent(E content);
+}
@@ -0,0 +1,36 @@
+package net.callumtaylor.asynchttp.obj;
+
+/**
+ * Receives the body of a response as a stream of byte chunks from a
+ * {@link net.callumtaylor.asynchttp.response.PublisherResponseHandler}. Follows the same contract as a
+ * reactive streams subscriber: no chunks are sent until they are requested through the
+ * {@link ChunkSubscription}, and at most one of {@link #onError(Throwable)} or {@link #onComplete()} is called.
+ *
+ * {@link #onNext(byte[])}, {@link #onError(Throwable)} and {@link #onComplete()} are called on the request thread.
+ */
+public interface ChunkSubscriber
+{
+	/**
+	 * Called when the subscriber is subscribed, before any other method
+	 * @param subscription The subscription used to request chunks or cancel the request
+	 */
+	public void onSubscribe(ChunkSubscription subscription);
+
+	/**
+	 * Called with the next chunk of the body, once for each chunk requested
+	 * @param chunk The chunk. It is not re-used, so it can be kept
+	 */
+	public void onNext(byte[] chunk);
+
+	/**
+	 * Called when the request failed, or did not receive a successful response, in which case the
+	 * error is a {@link ResponseException}
+	 * @param error The reason the request failed
+	 */
+	public void onError(Throwable error);
+
+	/**
+	 * Called once the whole body has been received
+	 */
+	public void onComplete();
+}
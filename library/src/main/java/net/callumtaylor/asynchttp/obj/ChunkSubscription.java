@@ -0,0 +1,18 @@
+package net.callumtaylor.asynchttp.obj;
+
+/**
+ * Controls the flow of chunks to a {@link ChunkSubscriber}. Can be called from any thread.
+ */
+public interface ChunkSubscription
+{
+	/**
+	 * Requests more chunks. The body is only read from the network while there is outstanding demand
+	 * @param count The number of chunks to add to the demand. {@link Long#MAX_VALUE} for no limit
+	 */
+	public void request(long count);
+
+	/**
+	 * Stops sending chunks and cancels the request
+	 */
+	public void cancel();
+}
@@ -0,0 +1,21 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.io.IOException;
+
+/**
+ * Exception set on {@link ConnectionInfo#exception} when a request fails straight away because the
+ * circuit breaker for its host is open
+ */
+public class CircuitOpenException extends IOException
+{
+	/**
+	 * The host the request was made to
+	 */
+	public final String host;
+
+	public CircuitOpenException(String host)
+	{
+		super("Circuit breaker is open for " + host);
+		this.host = host;
+	}
+}
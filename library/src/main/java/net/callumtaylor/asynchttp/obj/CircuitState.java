@@ -0,0 +1,23 @@
+package net.callumtaylor.asynchttp.obj;
+
+/**
+ * The state of a host in a {@link net.callumtaylor.asynchttp.CircuitBreaker}
+ */
+public enum CircuitState
+{
+	/**
+	 * Requests are made as normal
+	 */
+	CLOSED,
+
+	/**
+	 * The host is failing. Requests fail straight away without being made
+	 */
+	OPEN,
+
+	/**
+	 * The host has been open for long enough that a limited number of trial requests are let through
+	 * to see if it has recovered
+	 */
+	HALF_OPEN;
+}
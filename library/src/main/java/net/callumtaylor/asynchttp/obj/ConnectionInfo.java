@@ -1,5 +1,8 @@
 package net.callumtaylor.asynchttp.obj;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import okhttp3.Headers;
 
 /**
@@ -42,6 +45,69 @@ public class ConnectionInfo
 	 */
 	public long responseTime = 0L;
 
+	/**
+	 * The protocol the response was received with, such as "http/1.1" or "h2"
+	 */
+	public String protocol = "";
+
+	/**
+	 * True if the response was shared from an identical request that was already in flight
+	 */
+	public boolean coalesced = false;
+
+	/**
+	 * True if the content was served from the {@link net.callumtaylor.asynchttp.ContentCache} without a request or parsing
+	 */
+	public boolean contentCached = false;
+
+	/**
+	 * True if a conditional request returned a 304, and the content decoded from the cached response was used
+	 * again without reading or parsing the body
+	 */
+	public boolean notModified = false;
+
+	/**
+	 * True if a stale cached response was delivered, either while it was revalidated in the background or in place of a failed request
+	 */
+	public boolean stale = false;
+
+	/**
+	 * True if the connection failed or timed out, and a cached response was delivered in its place by
+	 * {@link CachePolicy#NETWORK_FIRST_FALLBACK_CACHE}
+	 */
+	public boolean cacheFallback = false;
+
+	/**
+	 * True if a hedged request was sent because the response took longer than the hedge delay
+	 */
+	public boolean hedged = false;
+
+	/**
+	 * True if the response came from the hedged request rather than the original request
+	 */
+	public boolean hedgeWon = false;
+
+	/**
+	 * The number of times the request was retried
+	 */
+	public int retryCount = 0;
+
+	/**
+	 * The delay in milliseconds before each retry
+	 */
+	public List<Long> retryDelays = new ArrayList<Long>();
+
+	/**
+	 * The adaptive read timeout in milliseconds the request was made with, or 0 if it was not adaptive
+	 */
+	public long readTimeout = 0;
+
+	/**
+	 * The exception the request failed with, or null. A {@link CircuitOpenException} means the request
+	 * was not made because the circuit breaker for its host was open
+	 */
+	public Exception exception;
+
 	/**
 	 * The request headers that were sent
 	 */
@@ -54,6 +120,6 @@ public class ConnectionInfo
 
 	@Override public String toString()
 	{
-		return "ConnectionInfo [connectionUrl=" + connectionUrl + ", requestMethod=" + requestMethod + ", requestHeaders=" + requestHeaders + ", connectionTime=" + connectionTime + ", connectionLength=" + connectionLength + ", responseLength=" + responseLength + ", responseCode=" + responseCode + ", responseTime=" + responseTime + ", responseHeaders=" + responseHeaders + "]";
+		return "ConnectionInfo [connectionUrl=" + connectionUrl + ", requestMethod=" + requestMethod + ", requestHeaders=" + requestHeaders + ", connectionTime=" + connectionTime + ", connectionLength=" + connectionLength + ", responseLength=" + responseLength + ", responseCode=" + responseCode + ", responseTime=" + responseTime + ", protocol=" + protocol + ", coalesced=" + coalesced + ", contentCached=" + contentCached + ", notModified=" + notModified + ", stale=" + stale + ", cacheFallback=" + cacheFallback + ", hedged=" + hedged + ", hedgeWon=" + hedgeWon + ", retryCount=" + retryCount + ", retryDelays=" + retryDelays + ", readTimeout=" + readTimeout + ", exception=" + exception + ", responseHeaders=" + responseHeaders + "]";
 	}
 }
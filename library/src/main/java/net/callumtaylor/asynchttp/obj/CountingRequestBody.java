@@ -1,5 +1,7 @@
 package net.callumtaylor.asynchttp.obj;
 
+import android.support.annotation.Nullable;
+
 import java.io.IOException;
 
 import okhttp3.MediaType;
@@ -15,19 +17,38 @@ import okio.Sink;
  * decorate any request body, but is most useful for tracking the upload progress of large
  * multipart requests.
  *
+ * By default only the byte counts are reported, and the written bytes are passed through without
+ * being copied. Copying each chunk to a byte array for the listener must be enabled explicitly.
+ *
  * @author Leo Nikkilä
  */
 public class CountingRequestBody extends RequestBody
 {
 	protected RequestBody delegate;
 	protected Listener listener;
+	protected boolean copyChunks;
 
 	protected CountingSink countingSink;
 
+	private boolean contentLengthKnown = false;
+	private long contentLength;
+
+	/**
+	 * Creates a body that only reports byte counts
+	 */
 	public CountingRequestBody(RequestBody delegate, Listener listener)
+	{
+		this(delegate, listener, false);
+	}
+
+	/**
+	 * @param copyChunks True to copy each written chunk to a byte array for the listener, false to only report byte counts
+	 */
+	public CountingRequestBody(RequestBody delegate, Listener listener, boolean copyChunks)
 	{
 		this.delegate = delegate;
 		this.listener = listener;
+		this.copyChunks = copyChunks;
 	}
 
 	@Override public MediaType contentType()
@@ -35,18 +56,27 @@ public class CountingRequestBody extends RequestBody
 		return delegate.contentType();
 	}
 
+	/**
+	 * Gets the content length of the delegate, which is only worked out once as it can be expensive for multipart bodies
+	 */
 	@Override public long contentLength()
 	{
-		try
-		{
-			return delegate.contentLength();
-		}
-		catch (IOException e)
+		if (!contentLengthKnown)
 		{
-			e.printStackTrace();
+			try
+			{
+				contentLength = delegate.contentLength();
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				contentLength = 0;
+			}
+
+			contentLengthKnown = true;
 		}
 
-		return 0;
+		return contentLength;
 	}
 
 	@Override public void writeTo(BufferedSink sink) throws IOException
@@ -59,31 +89,54 @@ public class CountingRequestBody extends RequestBody
 		delegate.writeTo(bufferedSink);
 
 		bufferedSink.flush();
+		listener.onRequestComplete(countingSink.bytesWritten, countingSink.contentLength);
 	}
 
 	protected final class CountingSink extends ForwardingSink
 	{
+		private final long contentLength;
 		private long bytesWritten = 0;
 
 		public CountingSink(Sink delegate)
 		{
 			super(delegate);
+			this.contentLength = contentLength();
 		}
 
 		@Override public void write(Buffer source, long byteCount) throws IOException
 		{
-			Buffer copy = new Buffer();
-			source.copyTo(copy, 0, byteCount);
+			byte[] chunk = null;
+
+			if (copyChunks)
+			{
+				Buffer copy = new Buffer();
+				source.copyTo(copy, 0, byteCount);
+				chunk = copy.readByteArray();
+			}
 
 			super.write(source, byteCount);
 
 			bytesWritten += byteCount;
-			listener.onRequestProgress(copy.readByteArray(), byteCount, bytesWritten, contentLength());
+			listener.onRequestProgress(chunk, byteCount, bytesWritten, contentLength);
 		}
 	}
 
 	public static interface Listener
 	{
-		public void onRequestProgress(byte[] buffer, long bufferCount, long bytesWritten, long contentLength);
+		/**
+		 * @param buffer A copy of the written chunk, or null if chunks are not being copied
+		 * @param bufferCount The length of the written chunk
+		 * @param bytesWritten The total number of bytes written
+		 * @param contentLength The length of the body, or -1 if it is not known
+		 */
+		public void onRequestProgress(@Nullable byte[] buffer, long bufferCount, long bytesWritten, long contentLength);
+
+		/**
+		 * Called once the whole body has been written. The content length can be unknown or wrong, for
+		 * example for streams whose length is estimated, so this is the only reliable end of the upload
+		 * @param bytesWritten The total number of bytes written
+		 * @param contentLength The length of the body, or -1 if it is not known
+		 */
+		public void onRequestComplete(long bytesWritten, long contentLength);
 	}
 }
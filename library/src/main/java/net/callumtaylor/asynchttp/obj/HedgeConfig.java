@@ -0,0 +1,78 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes when a hedged request is sent. If a GET or HEAD request has not received a response
+ * after the hedge delay, a second identical request is sent, the first response to arrive is used and
+ * the other request is cancelled.
+ *
+ * Only use hedging against servers where sending a request twice is safe and cheap, such as a
+ * replicated read-only backend.
+ */
+public class HedgeConfig
+{
+	/**
+	 * The time in milliseconds to wait for a response before sending the hedged request. When
+	 * {@link #percentile} is set, this is only used until enough latency samples have been recorded
+	 */
+	public final long delay;
+
+	/**
+	 * The latency percentile of the endpoint, between 0 and 1, to use as the delay, such as 0.95 for
+	 * p95. 0 to always use {@link #delay}
+	 */
+	public final double percentile;
+
+	/**
+	 * Creates a config that sends the hedged request after a fixed delay
+	 * @param delay The time to wait for a response
+	 * @param timeUnit The unit of delay
+	 */
+	public HedgeConfig(long delay, TimeUnit timeUnit)
+	{
+		this(delay, timeUnit, 0);
+	}
+
+	/**
+	 * Creates a config that sends the hedged request after the given latency percentile of the endpoint
+	 * @param delay The time to wait for a response until enough latency samples have been recorded
+	 * @param timeUnit The unit of delay
+	 * @param percentile The latency percentile to wait for, such as 0.95 for p95
+	 */
+	public HedgeConfig(long delay, TimeUnit timeUnit, double percentile)
+	{
+		this.delay = timeUnit.toMillis(delay);
+		this.percentile = percentile;
+	}
+
+	@Override public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof HedgeConfig))
+		{
+			return false;
+		}
+
+		HedgeConfig config = (HedgeConfig)o;
+		return delay == config.delay && Double.compare(percentile, config.percentile) == 0;
+	}
+
+	@Override public int hashCode()
+	{
+		long bits = Double.doubleToLongBits(percentile);
+		int result = (int)(delay ^ (delay >>> 32));
+		result = 31 * result + (int)(bits ^ (bits >>> 32));
+
+		return result;
+	}
+
+	@Override public String toString()
+	{
+		return "HedgeConfig [delay=" + delay + ", percentile=" + percentile + "]";
+	}
+}
@@ -0,0 +1,62 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the number of concurrent calls that can be made to a single host. Callers over the limit
+ * block until a slot is released, and are let through in the order they arrived.
+ */
+public class HostLimiter
+{
+	private final int maxPerHost;
+	private final Map<String, Semaphore> hosts = new HashMap<String, Semaphore>();
+
+	/**
+	 * @param maxPerHost The maximum concurrent calls per host. 0 or less for no limit
+	 */
+	public HostLimiter(int maxPerHost)
+	{
+		this.maxPerHost = maxPerHost;
+	}
+
+	/**
+	 * Blocks until a slot for the host is available
+	 * @param host The host of the request
+	 * @throws InterruptedException If the thread was interrupted whilst waiting
+	 */
+	public void acquire(String host) throws InterruptedException
+	{
+		if (maxPerHost > 0)
+		{
+			getSemaphore(host).acquire();
+		}
+	}
+
+	/**
+	 * Releases a slot previously acquired with {@link #acquire(String)}
+	 * @param host The host of the request
+	 */
+	public void release(String host)
+	{
+		if (maxPerHost > 0)
+		{
+			getSemaphore(host).release();
+		}
+	}
+
+	private synchronized Semaphore getSemaphore(String host)
+	{
+		String key = host == null ? "" : host;
+		Semaphore semaphore = hosts.get(key);
+
+		if (semaphore == null)
+		{
+			semaphore = new Semaphore(maxPerHost, true);
+			hosts.put(key, semaphore);
+		}
+
+		return semaphore;
+	}
+}
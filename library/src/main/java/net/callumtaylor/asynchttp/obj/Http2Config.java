@@ -0,0 +1,62 @@
+package net.callumtaylor.asynchttp.obj;
+
+/**
+ * Describes how HTTP/2 should be used for a request. Concurrent HTTP/2 requests to the same host are
+ * multiplexed over a single shared connection.
+ */
+public class Http2Config
+{
+	/**
+	 * Use cleartext HTTP/2 without negotiation (h2c with prior knowledge). Only use this for servers
+	 * that are known to support it, such as a local test server. When false, HTTP/2 is negotiated
+	 * with ALPN over TLS and falls back to HTTP/1.1.
+	 */
+	public final boolean priorKnowledge;
+
+	/**
+	 * The maximum number of concurrent streams to open to a single host. Requests over this limit
+	 * wait for a stream to be released. 0 for no limit other than the server's.
+	 */
+	public final int maxConcurrentStreams;
+
+	/**
+	 * Creates a config that negotiates HTTP/2 over TLS without a stream limit
+	 */
+	public Http2Config()
+	{
+		this(false, 0);
+	}
+
+	public Http2Config(boolean priorKnowledge, int maxConcurrentStreams)
+	{
+		this.priorKnowledge = priorKnowledge;
+		this.maxConcurrentStreams = maxConcurrentStreams;
+	}
+
+	@Override public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof Http2Config))
+		{
+			return false;
+		}
+
+		Http2Config config = (Http2Config)o;
+		return priorKnowledge == config.priorKnowledge
+			&& maxConcurrentStreams == config.maxConcurrentStreams;
+	}
+
+	@Override public int hashCode()
+	{
+		return 31 * (priorKnowledge ? 1 : 0) + maxConcurrentStreams;
+	}
+
+	@Override public String toString()
+	{
+		return "Http2Config [priorKnowledge=" + priorKnowledge + ", maxConcurrentStreams=" + maxConcurrentStreams + "]";
+	}
+}
@@ -0,0 +1,78 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes the idle-connection pool used when keep-alive is enabled on a client. Requests with equal
+ * configs share the same connection pool.
+ */
+public class KeepAliveConfig
+{
+	/**
+	 * The maximum number of idle connections to keep in the pool
+	 */
+	public final int maxIdleConnections;
+
+	/**
+	 * The time in milliseconds an idle connection is kept alive for before being evicted
+	 */
+	public final long keepAliveDuration;
+
+	/**
+	 * The maximum number of connections that can be open to a single host at once. Requests over this
+	 * limit wait for a connection to be released. 0 for no limit.
+	 */
+	public final int maxConnectionsPerHost;
+
+	/**
+	 * Creates a config with 5 idle connections kept alive for 5 minutes, with no per-host limit
+	 */
+	public KeepAliveConfig()
+	{
+		this(5, 5, TimeUnit.MINUTES, 0);
+	}
+
+	public KeepAliveConfig(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit)
+	{
+		this(maxIdleConnections, keepAliveDuration, timeUnit, 0);
+	}
+
+	public KeepAliveConfig(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit, int maxConnectionsPerHost)
+	{
+		this.maxIdleConnections = maxIdleConnections;
+		this.keepAliveDuration = timeUnit.toMillis(keepAliveDuration);
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	@Override public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof KeepAliveConfig))
+		{
+			return false;
+		}
+
+		KeepAliveConfig config = (KeepAliveConfig)o;
+		return maxIdleConnections == config.maxIdleConnections
+			&& keepAliveDuration == config.keepAliveDuration
+			&& maxConnectionsPerHost == config.maxConnectionsPerHost;
+	}
+
+	@Override public int hashCode()
+	{
+		int result = maxIdleConnections;
+		result = 31 * result + (int)(keepAliveDuration ^ (keepAliveDuration >>> 32));
+		result = 31 * result + maxConnectionsPerHost;
+
+		return result;
+	}
+
+	@Override public String toString()
+	{
+		return "KeepAliveConfig [maxIdleConnections=" + maxIdleConnections + ", keepAliveDuration=" + keepAliveDuration + ", maxConnectionsPerHost=" + maxConnectionsPerHost + "]";
+	}
+}
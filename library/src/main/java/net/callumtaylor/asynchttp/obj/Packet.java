@@ -20,10 +20,21 @@ public class Packet
 	 */
 	public boolean isDownload;
 
+	/**
+	 * If this is the last packet of the transfer, which is always dispatched by a {@link ProgressThrottle}
+	 */
+	public boolean isFinal;
+
 	public Packet(long length, long total, boolean isDownload)
+	{
+		this(length, total, isDownload, false);
+	}
+
+	public Packet(long length, long total, boolean isDownload, boolean isFinal)
 	{
 		this.length = length;
 		this.total = total;
 		this.isDownload = isDownload;
+		this.isFinal = isFinal;
 	}
 }
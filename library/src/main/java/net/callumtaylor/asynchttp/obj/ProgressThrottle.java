@@ -0,0 +1,93 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how often progress is dispatched to {@link net.callumtaylor.asynchttp.response.ResponseHandler#onByteChunkReceivedProcessed(long, long)}
+ * and {@link net.callumtaylor.asynchttp.response.ResponseHandler#onByteChunkSentProcessed(long, long)}.
+ * For {@link net.callumtaylor.asynchttp.AsyncHttpClient} each dispatch is a message to the main
+ * thread, so dispatching every chunk of a large transfer floods it.
+ *
+ * An update is dispatched once both the minimum interval has passed and the transfer has advanced by
+ * the minimum step since the last update. The first update and the final update of a transfer are
+ * always dispatched.
+ */
+public class ProgressThrottle
+{
+	/**
+	 * Dispatches every update
+	 */
+	public static final ProgressThrottle NONE = new ProgressThrottle(0, TimeUnit.MILLISECONDS, 0);
+
+	/**
+	 * Dispatches at most 10 updates a second. This is the default for response handlers
+	 */
+	public static final ProgressThrottle DEFAULT = new ProgressThrottle(100, TimeUnit.MILLISECONDS, 0);
+
+	/**
+	 * The minimum time in milliseconds between updates
+	 */
+	public final long minInterval;
+
+	/**
+	 * The minimum fraction of the total, between 0 and 1, the transfer must advance between updates.
+	 * Ignored when the total length is not known
+	 */
+	public final float minStep;
+
+	/**
+	 * @param minInterval The minimum time between updates, or 0 for no minimum
+	 * @param timeUnit The unit of minInterval
+	 * @param minStep The minimum fraction of the total between updates, such as 0.01 for every 1%, or 0 for no minimum
+	 */
+	public ProgressThrottle(long minInterval, TimeUnit timeUnit, float minStep)
+	{
+		this.minInterval = timeUnit.toMillis(minInterval);
+		this.minStep = Math.max(0, Math.min(1, minStep));
+	}
+
+	/**
+	 * @param elapsed The time in milliseconds since the last update
+	 * @param advanced The number of bytes transferred since the last update
+	 * @param total The total length of the transfer, or -1 if it is not known
+	 * @return True if an update should be dispatched
+	 */
+	public boolean isDue(long elapsed, long advanced, long total)
+	{
+		if (elapsed < minInterval)
+		{
+			return false;
+		}
+
+		return total <= 0 || advanced >= minStep * total;
+	}
+
+	@Override public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof ProgressThrottle))
+		{
+			return false;
+		}
+
+		ProgressThrottle throttle = (ProgressThrottle)o;
+		return minInterval == throttle.minInterval && Float.compare(minStep, throttle.minStep) == 0;
+	}
+
+	@Override public int hashCode()
+	{
+		int result = (int)(minInterval ^ (minInterval >>> 32));
+		result = 31 * result + Float.floatToIntBits(minStep);
+
+		return result;
+	}
+
+	@Override public String toString()
+	{
+		return "ProgressThrottle [minInterval=" + minInterval + ", minStep=" + minStep + "]";
+	}
+}
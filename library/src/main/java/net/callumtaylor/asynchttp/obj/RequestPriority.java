@@ -0,0 +1,33 @@
+package net.callumtaylor.asynchttp.obj;
+
+/**
+ * The priority of a request queued in a {@link net.callumtaylor.asynchttp.RequestScheduler}. Higher
+ * priority requests are always started before lower priority ones.
+ */
+public enum RequestPriority
+{
+	/**
+	 * Started straight away, ignoring the scheduler's limits. Use sparingly for requests the user is waiting on
+	 */
+	IMMEDIATE,
+
+	/**
+	 * Content that is needed to display the current screen
+	 */
+	HIGH,
+
+	/**
+	 * The default priority
+	 */
+	NORMAL,
+
+	/**
+	 * Content that is not immediately visible, such as images further down a list
+	 */
+	LOW,
+
+	/**
+	 * Content that may be needed in the future
+	 */
+	PREFETCH;
+}
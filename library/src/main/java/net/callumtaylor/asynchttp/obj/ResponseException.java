@@ -0,0 +1,19 @@
+package net.callumtaylor.asynchttp.obj;
+
+/**
+ * Exception a {@link net.callumtaylor.asynchttp.ResponseFuture} fails with when its request did not
+ * receive a successful response. The cause is the exception the request failed with, if there was one
+ */
+public class ResponseException extends Exception
+{
+	/**
+	 * The connection info of the failed request
+	 */
+	public final ConnectionInfo connectionInfo;
+
+	public ResponseException(ConnectionInfo connectionInfo)
+	{
+		super("Request to " + connectionInfo.connectionUrl + " failed with response code " + connectionInfo.responseCode, connectionInfo.exception);
+		this.connectionInfo = connectionInfo;
+	}
+}
@@ -0,0 +1,87 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that limits how many retries can be made, shared by every request using the same
+ * {@link RetryPolicy}. Each retry takes a token, and tokens are refilled at a fixed rate up to the
+ * capacity of the bucket. When the bucket is empty, failed requests are not retried.
+ *
+ * This stops retries from multiplying the load on a server that is already failing.
+ */
+public class RetryBudget
+{
+	/**
+	 * The maximum number of tokens the bucket can hold
+	 */
+	public final int capacity;
+
+	/**
+	 * The time in milliseconds it takes to refill a single token
+	 */
+	public final long refillInterval;
+
+	private double tokens;
+	private long lastRefill;
+
+	/**
+	 * Creates a budget of 10 retries, refilling 1 retry per second
+	 */
+	public RetryBudget()
+	{
+		this(10, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @param capacity The maximum number of retries that can be made in a burst
+	 * @param refillInterval The time it takes for a single retry to be refilled
+	 * @param timeUnit The unit of refillInterval
+	 */
+	public RetryBudget(int capacity, long refillInterval, TimeUnit timeUnit)
+	{
+		this.capacity = capacity;
+		this.refillInterval = Math.max(1, timeUnit.toMillis(refillInterval));
+		this.tokens = capacity;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Takes a token from the bucket
+	 * @return True if a token was available and the retry can be made
+	 */
+	public synchronized boolean tryAcquire()
+	{
+		refill();
+
+		if (tokens >= 1)
+		{
+			tokens--;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return The number of whole tokens currently in the bucket
+	 */
+	public synchronized int getAvailable()
+	{
+		refill();
+		return (int)tokens;
+	}
+
+	private void refill()
+	{
+		long now = System.nanoTime();
+		double refilled = (now - lastRefill) / (double)TimeUnit.MILLISECONDS.toNanos(refillInterval);
+
+		tokens = Math.min(capacity, tokens + refilled);
+		lastRefill = now;
+	}
+
+	@Override public String toString()
+	{
+		return "RetryBudget [capacity=" + capacity + ", refillInterval=" + refillInterval + "]";
+	}
+}
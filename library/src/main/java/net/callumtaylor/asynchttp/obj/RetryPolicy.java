@@ -0,0 +1,174 @@
+package net.callumtaylor.asynchttp.obj;
+
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+
+import okhttp3.Headers;
+
+/**
+ * Describes how failed requests are retried. Requests that fail with a transient error, such as a
+ * socket timeout, a connection reset or a 429, 502, 503 or 504 response, are retried with exponential
+ * backoff and jitter. A {@code Retry-After} header from the server is used as the delay instead.
+ *
+ * Only idempotent requests (GET, HEAD, PUT, DELETE and OPTIONS) are retried unless
+ * {@link #retryNonIdempotent} is set. Request bodies of retried requests must be able to be written
+ * more than once, so {@link InputStreamBody} should not be used.
+ *
+ * Share a single policy between clients for its {@link RetryBudget} to apply to all of them.
+ */
+public class RetryPolicy
+{
+	private static final Random random = new Random();
+
+	/**
+	 * The maximum number of times a request is retried
+	 */
+	public final int maxRetries;
+
+	/**
+	 * The delay in milliseconds before the first retry
+	 */
+	public final long initialDelay;
+
+	/**
+	 * The maximum delay in milliseconds between retries. Requests with a longer {@code Retry-After} are not retried
+	 */
+	public final long maxDelay;
+
+	/**
+	 * The amount the delay is multiplied by after each retry
+	 */
+	public final double multiplier;
+
+	/**
+	 * The fraction of each delay that is randomised, between 0 and 1, to stop clients retrying in lock-step
+	 */
+	public final double jitter;
+
+	/**
+	 * True to also retry POST and PATCH requests
+	 */
+	public final boolean retryNonIdempotent;
+
+	/**
+	 * The budget shared by every request using this policy, or null for no limit
+	 */
+	@Nullable public final RetryBudget budget;
+
+	/**
+	 * Creates a policy of 3 retries starting at 500ms and doubling up to 30 seconds, with 50% jitter,
+	 * for idempotent requests only, with a default {@link RetryBudget}
+	 */
+	public RetryPolicy()
+	{
+		this(3, 500, 30000, TimeUnit.MILLISECONDS, 2, 0.5, false, new RetryBudget());
+	}
+
+	public RetryPolicy(int maxRetries, long initialDelay, long maxDelay, TimeUnit timeUnit)
+	{
+		this(maxRetries, initialDelay, maxDelay, timeUnit, 2, 0.5, false, new RetryBudget());
+	}
+
+	public RetryPolicy(int maxRetries, long initialDelay, long maxDelay, TimeUnit timeUnit, double multiplier, double jitter, boolean retryNonIdempotent, @Nullable RetryBudget budget)
+	{
+		this.maxRetries = maxRetries;
+		this.initialDelay = timeUnit.toMillis(initialDelay);
+		this.maxDelay = timeUnit.toMillis(maxDelay);
+		this.multiplier = multiplier;
+		this.jitter = Math.max(0, Math.min(1, jitter));
+		this.retryNonIdempotent = retryNonIdempotent;
+		this.budget = budget;
+	}
+
+	/**
+	 * @param mode The request method
+	 * @return True if requests with the given method can be retried
+	 */
+	public boolean isRetryable(RequestMode mode)
+	{
+		return retryNonIdempotent || (mode != RequestMode.POST && mode != RequestMode.PATCH);
+	}
+
+	/**
+	 * @param responseCode The response code from the server
+	 * @return True if the response code is a transient failure
+	 */
+	public boolean isRetryable(int responseCode)
+	{
+		return responseCode == 429 || responseCode == 502 || responseCode == 503 || responseCode == 504;
+	}
+
+	/**
+	 * @param exception The exception the request failed with
+	 * @return True if the exception is a transient network failure, such as a timeout or connection reset.
+	 * Requests failed by an open {@link net.callumtaylor.asynchttp.CircuitBreaker} are not retried
+	 */
+	public boolean isRetryable(IOException exception)
+	{
+		return !(exception instanceof CircuitOpenException)
+			&& !(exception instanceof UnknownHostException)
+			&& !(exception instanceof SSLException)
+			&& !(exception instanceof ProtocolException);
+	}
+
+	/**
+	 * Gets the delay before the next retry
+	 * @param retry The number of retries already made
+	 * @param headers The response headers, used for {@code Retry-After}, or null if there was no response
+	 * @return The delay in milliseconds, or -1 if the server asked for a longer delay than {@link #maxDelay}
+	 */
+	public long getDelay(int retry, @Nullable Headers headers)
+	{
+		long retryAfter = getRetryAfter(headers);
+
+		if (retryAfter > maxDelay)
+		{
+			return -1;
+		}
+		else if (retryAfter >= 0)
+		{
+			return retryAfter;
+		}
+
+		double delay = Math.min(maxDelay, initialDelay * Math.pow(multiplier, retry));
+		double jittered;
+
+		synchronized (random)
+		{
+			jittered = delay - (delay * jitter * random.nextDouble());
+		}
+
+		return (long)jittered;
+	}
+
+	private static long getRetryAfter(@Nullable Headers headers)
+	{
+		if (headers == null || headers.get("Retry-After") == null)
+		{
+			return -1;
+		}
+
+		try
+		{
+			return TimeUnit.SECONDS.toMillis(Long.parseLong(headers.get("Retry-After").trim()));
+		}
+		catch (NumberFormatException e)
+		{
+			Date date = headers.getDate("Retry-After");
+			return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+		}
+	}
+
+	@Override public String toString()
+	{
+		return "RetryPolicy [maxRetries=" + maxRetries + ", initialDelay=" + initialDelay + ", maxDelay=" + maxDelay + ", multiplier=" + multiplier + ", jitter=" + jitter + ", retryNonIdempotent=" + retryNonIdempotent + ", budget=" + budget + "]";
+	}
+}
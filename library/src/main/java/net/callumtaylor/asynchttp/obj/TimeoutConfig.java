@@ -0,0 +1,95 @@
+package net.callumtaylor.asynchttp.obj;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes the timeouts of a request. The connect, read and write timeouts bound each individual
+ * network operation, so a server that keeps sending a few bytes at a time can hold a request open
+ * indefinitely. The call timeout is a deadline for the whole call, from resolving the host until
+ * the response body has been read, after which the call is cancelled.
+ *
+ * A timeout of 0 means no timeout.
+ */
+public class TimeoutConfig
+{
+	/**
+	 * The time in milliseconds to wait for a connection to be established
+	 */
+	public final long connectTimeout;
+
+	/**
+	 * The time in milliseconds to wait between reads of the response
+	 */
+	public final long readTimeout;
+
+	/**
+	 * The time in milliseconds to wait between writes of the request
+	 */
+	public final long writeTimeout;
+
+	/**
+	 * The time in milliseconds the whole call may take, including reading the response body
+	 */
+	public final long callTimeout;
+
+	/**
+	 * Creates a config without a call deadline
+	 * @param connectTimeout The time to wait for a connection to be established
+	 * @param readTimeout The time to wait between reads of the response
+	 * @param writeTimeout The time to wait between writes of the request
+	 * @param timeUnit The unit of the timeouts
+	 */
+	public TimeoutConfig(long connectTimeout, long readTimeout, long writeTimeout, TimeUnit timeUnit)
+	{
+		this(connectTimeout, readTimeout, writeTimeout, 0, timeUnit);
+	}
+
+	/**
+	 * @param connectTimeout The time to wait for a connection to be established
+	 * @param readTimeout The time to wait between reads of the response
+	 * @param writeTimeout The time to wait between writes of the request
+	 * @param callTimeout The time the whole call may take
+	 * @param timeUnit The unit of the timeouts
+	 */
+	public TimeoutConfig(long connectTimeout, long readTimeout, long writeTimeout, long callTimeout, TimeUnit timeUnit)
+	{
+		this.connectTimeout = timeUnit.toMillis(connectTimeout);
+		this.readTimeout = timeUnit.toMillis(readTimeout);
+		this.writeTimeout = timeUnit.toMillis(writeTimeout);
+		this.callTimeout = timeUnit.toMillis(callTimeout);
+	}
+
+	@Override public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof TimeoutConfig))
+		{
+			return false;
+		}
+
+		TimeoutConfig config = (TimeoutConfig)o;
+		return connectTimeout == config.connectTimeout
+			&& readTimeout == config.readTimeout
+			&& writeTimeout == config.writeTimeout
+			&& callTimeout == config.callTimeout;
+	}
+
+	@Override public int hashCode()
+	{
+		int result = (int)(connectTimeout ^ (connectTimeout >>> 32));
+		result = 31 * result + (int)(readTimeout ^ (readTimeout >>> 32));
+		result = 31 * result + (int)(writeTimeout ^ (writeTimeout >>> 32));
+		result = 31 * result + (int)(callTimeout ^ (callTimeout >>> 32));
+
+		return result;
+	}
+
+	@Override public String toString()
+	{
+		return "TimeoutConfig [connectTimeout=" + connectTimeout + ", readTimeout=" + readTimeout + ", writeTimeout=" + writeTimeout + ", callTimeout=" + callTimeout + "]";
+	}
+}
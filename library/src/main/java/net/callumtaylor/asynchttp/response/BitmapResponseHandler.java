@@ -3,12 +3,14 @@ package net.callumtaylor.asynchttp.response;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 
+import net.callumtaylor.asynchttp.obj.CacheableContent;
+
 import java.io.ByteArrayOutputStream;
 
 /**
  * Convenience response handler class for receiving a bitmap stream.
  */
-public class BitmapResponseHandler extends ResponseHandler<Bitmap>
+public class BitmapResponseHandler extends ResponseHandler<Bitmap> implements CacheableContent<Bitmap>
 {
 	private ByteArrayOutputStream byteBuffer;
 	private Bitmap bitmap;
@@ -40,6 +42,19 @@ public class BitmapResponseHandler extends ResponseHandler<Bitmap>
 		this.byteBuffer = null;
 	}
 
+	@Override public Object getContentCacheKey()
+	{
+		return getClass();
+	}
+
+	/**
+	 * Sets the bitmap from the content cache. The bitmap is shared, so it must not be recycled
+	 */
+	@Override public void setCachedContent(Bitmap content)
+	{
+		this.bitmap = content;
+	}
+
 	/**
 	 * @return The data represented as a bitmap
 	 */
@@ -3,18 +3,22 @@ package net.callumtaylor.asynchttp.response;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import net.callumtaylor.asynchttp.obj.CacheableContent;
+
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 
 /**
  * Gson response handler used for automatically parsing a response into objects using Gson and class types
  * @param <T>
  */
-public class GsonResponseHandler<T> extends StreamResponseHandler<T>
+public class GsonResponseHandler<T> extends StreamResponseHandler<T> implements CacheableContent<T>
 {
 	private Type outClass;
 	private T content;
 	private Gson gson;
+	private boolean parsed = false;
 
 	public GsonResponseHandler(Type outClass)
 	{
@@ -40,6 +44,7 @@ public class GsonResponseHandler<T> extends StreamResponseHandler<T>
 		try
 		{
 			this.content = gson.fromJson(reader, outClass);
+			this.parsed = true;
 		}
 		catch (Exception e)
 		{
@@ -64,6 +69,27 @@ public class GsonResponseHandler<T> extends StreamResponseHandler<T>
 	}
 
 
+	/**
+	 * Content is keyed by the handler class and the type it is parsed into, so handlers for the same type should
+	 * use the same Gson config. Once a response has failed to parse, the fallback instance of T is not cached
+	 * @return The key of the handler, or null if the response could not be parsed
+	 */
+	@Override public Object getContentCacheKey()
+	{
+		return content != null && !parsed ? null : Arrays.asList(getClass(), outClass);
+	}
+
+	@Override public ResponseHandler<T> newContentHandler()
+	{
+		return new GsonResponseHandler<T>(gson, outClass);
+	}
+
+	@Override public void setCachedContent(T content)
+	{
+		this.content = content;
+		this.parsed = true;
+	}
+
 	/**
 	 * @return The data represented as a gson JsonElement primitive type, or a
 	 *         new instance of T if failed to parse Json
@@ -4,6 +4,8 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonParser;
 
+import net.callumtaylor.asynchttp.obj.CacheableContent;
+
 import java.io.IOException;
 
 /**
@@ -11,7 +13,7 @@ import java.io.IOException;
  *
  * * This is <b>not</b> the same as {@link JSONArrayResponseHandler} and {@link JSONObjectResponseHandler}
  */
-public class JsonResponseHandler extends StreamResponseHandler<JsonElement>
+public class JsonResponseHandler extends StreamResponseHandler<JsonElement> implements CacheableContent<JsonElement>
 {
 	private JsonElement content;
 
@@ -37,6 +39,16 @@ public class JsonResponseHandler extends StreamResponseHandler<JsonElement>
 		}
 	}
 
+	@Override public Object getContentCacheKey()
+	{
+		return getClass();
+	}
+
+	@Override public void setCachedContent(JsonElement content)
+	{
+		this.content = content;
+	}
+
 	/**
 	 * @return The data represented as a GSON JsonElement primitive type
 	 */
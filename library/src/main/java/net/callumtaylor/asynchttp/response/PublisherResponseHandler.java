@@ -0,0 +1,281 @@
+package net.callumtaylor.asynchttp.response;
+
+import net.callumtaylor.asynchttp.obj.ChunkSubscriber;
+import net.callumtaylor.asynchttp.obj.ChunkSubscription;
+import net.callumtaylor.asynchttp.obj.ClientTaskImpl;
+import net.callumtaylor.asynchttp.obj.ResponseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Response handler that publishes the body as a stream of byte chunks to a {@link ChunkSubscriber},
+ * with backpressure. The body is only read from the socket while the subscriber has requested
+ * chunks, so a slow subscriber slows the download down instead of the response being buffered in
+ * memory. Whilst there is no demand, the request thread waits.
+ *
+ * Subscribe before making the request. A response received without a subscriber fails straight away
+ * rather than waiting for one, and a subscriber that subscribes after the request has finished is sent
+ * its terminal signal straight away. For example
+ * <pre>
+	PublisherResponseHandler handler = new PublisherResponseHandler();
+	handler.subscribe(new ChunkSubscriber()
+	{
+		private ChunkSubscription subscription;
+
+		&#064;Override public void onSubscribe(ChunkSubscription subscription)
+		{
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		&#064;Override public void onNext(byte[] chunk)
+		{
+			output.write(chunk);
+			subscription.request(1);
+		}
+
+		&#064;Override public void onError(Throwable error){}
+
+		&#064;Override public void onComplete(){}
+	});
+
+	client.get("video", handler);
+ * </pre>
+ */
+public class PublisherResponseHandler extends ResponseHandler<Void>
+{
+	/**
+	 * How often a waiting request thread checks if the request has been cancelled
+	 */
+	private static final long CANCEL_CHECK_INTERVAL = 100;
+
+	private final int chunkSize;
+	private final Object lock = new Object();
+	private ChunkSubscriber subscriber;
+	private ClientTaskImpl client;
+	private long demand = 0;
+	private boolean cancelled = false;
+	private boolean terminated = false;
+	private Throwable error;
+
+	private final ChunkSubscription subscription = new ChunkSubscription()
+	{
+		@Override public void request(long count)
+		{
+			if (count <= 0)
+			{
+				throw new IllegalArgumentException("Requested chunk count must be positive");
+			}
+
+			synchronized (lock)
+			{
+				demand = demand + count < 0 ? Long.MAX_VALUE : demand + count;
+				lock.notifyAll();
+			}
+		}
+
+		@Override public void cancel()
+		{
+			ClientTaskImpl client;
+
+			synchronized (lock)
+			{
+				cancelled = true;
+				client = PublisherResponseHandler.this.client;
+				lock.notifyAll();
+			}
+
+			if (client != null)
+			{
+				client.cancel();
+			}
+		}
+	};
+
+	/**
+	 * Creates a handler that publishes chunks of up to 8KB
+	 */
+	public PublisherResponseHandler()
+	{
+		this(8192);
+	}
+
+	/**
+	 * @param chunkSize The maximum size of each chunk in bytes
+	 */
+	public PublisherResponseHandler(int chunkSize)
+	{
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Subscribes to the body of the response. Only one subscriber is allowed
+	 * @param subscriber The subscriber
+	 */
+	public void subscribe(ChunkSubscriber subscriber)
+	{
+		boolean late;
+		Throwable error;
+
+		synchronized (lock)
+		{
+			if (this.subscriber != null)
+			{
+				throw new IllegalStateException("Handler already has a subscriber");
+			}
+
+			this.subscriber = subscriber;
+			late = terminated;
+			error = this.error;
+		}
+
+		subscriber.onSubscribe(subscription);
+
+		// The request has already finished, so there is nothing left to publish
+		if (late && error != null)
+		{
+			subscriber.onError(error);
+		}
+		else if (late)
+		{
+			subscriber.onComplete();
+		}
+	}
+
+	@Override public void onReceiveStream(InputStream stream, ClientTaskImpl client, long totalLength) throws Exception
+	{
+		boolean subscribed;
+
+		synchronized (lock)
+		{
+			this.client = client;
+			subscribed = subscriber != null;
+		}
+
+		int responseCode = getConnectionInfo().responseCode;
+
+		// Error bodies are not published, the subscriber gets onError instead
+		if (responseCode <= 100 || responseCode >= 400)
+		{
+			stream.close();
+			return;
+		}
+
+		// Nothing would ever request a chunk, so fail rather than hold the request thread forever
+		if (!subscribed)
+		{
+			stream.close();
+			throw new IOException("No subscriber to publish the response to");
+		}
+
+		byte[] buffer = new byte[chunkSize];
+		long readCount = 0;
+		int len;
+
+		while (awaitDemand(client) && (len = stream.read(buffer)) > -1)
+		{
+			onByteChunkReceived(buffer, len, readCount, totalLength);
+			readCount += len;
+			transferProgress(client, readCount, totalLength, true, false);
+
+			subscriber.onNext(Arrays.copyOf(buffer, len));
+		}
+
+		if (isCancelled())
+		{
+			client.cancel();
+		}
+		else if (!client.isCancelled())
+		{
+			getConnectionInfo().responseLength = readCount;
+			transferProgress(client, readCount, totalLength, true, true);
+		}
+
+		stream.close();
+	}
+
+	/**
+	 * Waits until the subscriber has requested a chunk, taking it from the demand
+	 * @return False if the subscription or request was cancelled
+	 */
+	private boolean awaitDemand(ClientTaskImpl client) throws InterruptedException
+	{
+		synchronized (lock)
+		{
+			while (demand == 0 && !cancelled && !client.isCancelled())
+			{
+				lock.wait(CANCEL_CHECK_INTERVAL);
+			}
+
+			if (cancelled || client.isCancelled())
+			{
+				return false;
+			}
+
+			if (demand != Long.MAX_VALUE)
+			{
+				demand--;
+			}
+
+			return true;
+		}
+	}
+
+	private boolean isCancelled()
+	{
+		synchronized (lock)
+		{
+			return cancelled;
+		}
+	}
+
+	@Override public void generateContent(){}
+
+	@Override public Void getContent()
+	{
+		return null;
+	}
+
+	@Override public void onSuccess()
+	{
+		ChunkSubscriber subscriber = terminate(null);
+
+		if (subscriber != null)
+		{
+			subscriber.onComplete();
+		}
+	}
+
+	@Override public void onFailure()
+	{
+		ResponseException error = new ResponseException(getConnectionInfo());
+		ChunkSubscriber subscriber = terminate(error);
+
+		if (subscriber != null)
+		{
+			subscriber.onError(error);
+		}
+	}
+
+	/**
+	 * Records the terminal signal, so a subscriber that subscribes later is still sent it
+	 * @param error The error to send, or null to complete
+	 * @return The subscriber to send the terminal signal to, or null if there is none, it has already been sent or the subscription was cancelled
+	 */
+	private ChunkSubscriber terminate(Throwable error)
+	{
+		synchronized (lock)
+		{
+			if (terminated || cancelled)
+			{
+				return null;
+			}
+
+			terminated = true;
+			this.error = error;
+			return subscriber;
+		}
+	}
+}
@@ -5,12 +5,17 @@ import android.support.annotation.Nullable;
 import android.support.annotation.UiThread;
 import android.support.annotation.WorkerThread;
 
+import net.callumtaylor.asynchttp.ClientExecutorTask;
 import net.callumtaylor.asynchttp.obj.ClientTaskImpl;
 import net.callumtaylor.asynchttp.obj.ConnectionInfo;
 import net.callumtaylor.asynchttp.obj.Packet;
+import net.callumtaylor.asynchttp.obj.ProgressThrottle;
 
 import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is the base class for response handlers in AsyncHttpClient. The method
@@ -33,12 +38,83 @@ import java.net.SocketTimeoutException;
 public abstract class ResponseHandler<E>
 {
 	private final ConnectionInfo connectionInfo = new ConnectionInfo();
+	private ProgressThrottle progressThrottle = ProgressThrottle.DEFAULT;
+	private boolean sentChunksEnabled = false;
+	private long lastDownloadTime = -1;
+	private long lastDownloadLength = 0;
+	private long lastUploadTime = -1;
+	private long lastUploadLength = 0;
 
 	public ConnectionInfo getConnectionInfo()
 	{
 		return connectionInfo;
 	}
 
+	/**
+	 * Sets how often {@link #onByteChunkReceivedProcessed(long, long)} and {@link #onByteChunkSentProcessed(long, long)}
+	 * are called. Defaults to {@link ProgressThrottle#DEFAULT}
+	 * @param progressThrottle The throttle to use, or {@link ProgressThrottle#NONE} to be called for every chunk
+	 */
+	public void setProgressThrottle(@NonNull ProgressThrottle progressThrottle)
+	{
+		this.progressThrottle = progressThrottle;
+	}
+
+	/**
+	 * Enables passing a copy of each uploaded chunk to {@link #onByteChunkSent(byte[], long, long, long)}.
+	 * Off by default, in which case the request body is counted without being copied and the chunk is null.
+	 * Copying every chunk of a large upload adds memory traffic and garbage, so only enable this if the
+	 * handler needs the bytes
+	 * @param sentChunksEnabled True to receive a copy of each uploaded chunk
+	 */
+	public void setSentChunksEnabled(boolean sentChunksEnabled)
+	{
+		this.sentChunksEnabled = sentChunksEnabled;
+	}
+
+	/**
+	 * @return True if a copy of each uploaded chunk is passed to {@link #onByteChunkSent(byte[], long, long, long)}
+	 */
+	public boolean isSentChunksEnabled()
+	{
+		return sentChunksEnabled;
+	}
+
+	/**
+	 * Checks if a progress update should be dispatched according to the {@link ProgressThrottle},
+	 * recording it as the last update if it should
+	 * @param length The size of the data that was transferred in bytes
+	 * @param total The total size to be transferred in bytes
+	 * @param isDownload True for the response, false for the request body
+	 * @param isFinal True if this is the last update of the transfer
+	 * @return True if the update should be dispatched
+	 */
+	public synchronized boolean isProgressDue(long length, long total, boolean isDownload, boolean isFinal)
+	{
+		long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+		long lastTime = isDownload ? lastDownloadTime : lastUploadTime;
+		long lastLength = isDownload ? lastDownloadLength : lastUploadLength;
+		isFinal |= total > 0 && length >= total;
+
+		if (!isFinal && lastTime >= 0 && !progressThrottle.isDue(now - lastTime, length - lastLength, total))
+		{
+			return false;
+		}
+
+		if (isDownload)
+		{
+			lastDownloadTime = now;
+			lastDownloadLength = length;
+		}
+		else
+		{
+			lastUploadTime = now;
+			lastUploadLength = length;
+		}
+
+		return true;
+	}
+
 	/**
 	 * Called when the connection is first made
 	 */
@@ -56,7 +132,7 @@ public abstract class ResponseHandler<E>
 	 * @param client
 	 *            The client task. In order to call
 	 *            {@link ResponseHandler#onByteChunkReceivedProcessed}, you must call
-	 *            <code>client.postPublishProgress(new Packet(int readCount, int totalLength, boolean isDownload))</code>
+	 *            <code>transferProgress(client, readCount, totalLength, isDownload, isFinal)</code>
 	 *            This is required when displaying a progress indicator.
 	 * @param totalLength
 	 *            The total length of the stream
@@ -74,7 +150,7 @@ public abstract class ResponseHandler<E>
 		{
 			onByteChunkReceived(buffer, len, readCount, totalLength);
 
-			client.transferProgress(new Packet(readCount, totalLength, true));
+			transferProgress(client, readCount, totalLength, true, false);
 
 			readCount += len;
 		}
@@ -86,12 +162,33 @@ public abstract class ResponseHandler<E>
 			// we fake the content length, because it can be -1
 			onByteChunkReceived(null, readCount, readCount, readCount);
 
-			client.transferProgress(new Packet(readCount, totalLength, true));
+			transferProgress(client, readCount, totalLength, true, true);
 		}
 
 		stream.close();
 	}
 
+	/**
+	 * Reports the progress of a transfer to the client task. The tasks of the library take the
+	 * update without allocating, other {@link ClientTaskImpl} implementations are sent a {@link Packet}
+	 * @param client The client task
+	 * @param length The size of the data that was transferred in bytes
+	 * @param total The total size to be transferred in bytes
+	 * @param isDownload True for the response, false for the request body
+	 * @param isFinal True if this is the last update of the transfer
+	 */
+	protected static void transferProgress(ClientTaskImpl client, long length, long total, boolean isDownload, boolean isFinal)
+	{
+		if (client instanceof ClientExecutorTask)
+		{
+			((ClientExecutorTask)client).transferProgress(length, total, isDownload, isFinal);
+		}
+		else
+		{
+			client.transferProgress(new Packet(length, total, isDownload, isFinal));
+		}
+	}
+
 	/**
 	 * Called when a chunk has been downloaded from the request. This will be
 	 * called once every chunk request, and once extra when all the content is
@@ -126,7 +223,7 @@ public abstract class ResponseHandler<E>
 	 * called once every chunk request
 	 *
 	 * @param chunk
-	 *            The chunk of data
+	 *            A copy of the chunk of data, or null unless enabled with {@link #setSentChunksEnabled(boolean)}
 	 * @param chunkLength
 	 *            The length of the chunk
 	 * @param totalProcessed
@@ -135,7 +232,7 @@ public abstract class ResponseHandler<E>
 	 *            The total size of the request.
 	 */
 	@WorkerThread
-	public void onByteChunkSent(@NonNull byte[] chunk, long chunkLength, long totalProcessed, long totalLength){}
+	public void onByteChunkSent(@Nullable byte[] chunk, long chunkLength, long totalProcessed, long totalLength){}
 
 	/**
 	 * Runs on the UI thread. Useful for updating progress bars.
@@ -198,4 +295,45 @@ public abstract class ResponseHandler<E>
 	 */
 	@UiThread
 	public void onFinish(){}
+
+	/**
+	 * Creates an empty handler that the response is decoded into when a stale response was delivered and
+	 * revalidating it found that the content has changed, so this handler is not changed after it was delivered.
+	 * By default this is a new instance of the nearest class of this handler with a constructor without arguments
+	 * @return The new handler, or null to not decode the changed content
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public ResponseHandler<E> newContentHandler()
+	{
+		for (Class<?> type = getClass(); type != ResponseHandler.class; type = type.getSuperclass())
+		{
+			if (Modifier.isAbstract(type.getModifiers()))
+			{
+				continue;
+			}
+
+			try
+			{
+				Constructor<?> constructor = type.getDeclaredConstructor();
+				constructor.setAccessible(true);
+
+				return (ResponseHandler<E>)constructor.newInstance();
+			}
+			catch (Exception e)
+			{
+				// No constructor without arguments, such as an anonymous class, so try the class it extends
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Called after a stale cached response was delivered, when revalidating it in the background found that the
+	 * content has changed. This is called after {@link #onFinish()}, on the same thread if it has a looper, such as
+	 * the UI thread for {@link net.callumtaylor.asynchttp.AsyncHttpClient}, otherwise on a background thread
+	 * @param handler The handler from {@link #newContentHandler()} that the new response was decoded into
+	 */
+	public void onContentChanged(ResponseHandler<E> handler){}
 }
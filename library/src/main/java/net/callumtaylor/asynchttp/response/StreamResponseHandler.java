@@ -1,7 +1,6 @@
 package net.callumtaylor.asynchttp.response;
 
 import net.callumtaylor.asynchttp.obj.ClientTaskImpl;
-import net.callumtaylor.asynchttp.obj.Packet;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
@@ -28,7 +27,7 @@ public abstract class StreamResponseHandler<E> extends ResponseHandler<E>
 					int len = super.read(buffer, byteOffset, byteCount);
 
 					onByteChunkReceived(buffer, len, total, totalLength);
-					client.transferProgress(new Packet(total, totalLength, true));
+					transferProgress(client, total, totalLength, true, false);
 
 					total += byteCount;
 
@@ -44,7 +43,7 @@ public abstract class StreamResponseHandler<E> extends ResponseHandler<E>
 			// we fake the content length, because it can be -1
 			onByteChunkReceived(null, totalLength, totalLength, totalLength);
 
-			client.transferProgress(new Packet(totalLength, totalLength, true));
+			transferProgress(client, totalLength, totalLength, true, true);
 		}
 	}
 }